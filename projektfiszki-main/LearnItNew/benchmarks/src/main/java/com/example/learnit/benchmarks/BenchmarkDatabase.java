@@ -0,0 +1,108 @@
+package com.example.learnit.benchmarks;
+
+import com.example.learnit.DatabaseConfig;
+import com.example.learnit.DatabaseManager;
+import com.example.learnit.Flashcard;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Wbudowana baza H2 w katalogu tymczasowym, zastępująca serwer MySQL w benchmarkach.
+ * Dane testowe wstawiane są bezpośrednio przez JDBC, a {@link #reopen()} tworzy nowy
+ * {@link DatabaseManager}, żeby jego cache widziały wstawione dane.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+    private static final int SEED_CHUNK_SIZE = 5_000;
+
+    private final Path directory;
+    private final DatabaseConfig config;
+    private DatabaseManager databaseManager;
+
+    private BenchmarkDatabase(Path directory) {
+        this.directory = directory;
+        this.config = DatabaseConfig.embedded(directory.resolve("learnit"));
+        this.databaseManager = new DatabaseManager(config);
+    }
+
+    static BenchmarkDatabase create() throws IOException {
+        return new BenchmarkDatabase(Files.createTempDirectory("learnit-bench"));
+    }
+
+    DatabaseManager manager() {
+        return databaseManager;
+    }
+
+    /**
+     * Plik w katalogu bazy, usuwany razem z nią.
+     */
+    Path file(String name) {
+        return directory.resolve(name);
+    }
+
+    DatabaseManager reopen() {
+        databaseManager.close();
+        databaseManager = new DatabaseManager(config);
+        return databaseManager;
+    }
+
+    /**
+     * Drzewo decków o ID 1..count: pierwsze fanout decków to korzenie, a każdy kolejny
+     * deck ma rodzica o ID (id - 1) / fanout, więc rodzic zawsze istnieje przed dzieckiem.
+     */
+    void seedDecks(int count, int fanout) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO decks (id, name, parent_id) VALUES (?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            for (int id = 1; id <= count; id++) {
+                statement.setInt(1, id);
+                statement.setString(2, "Deck " + id);
+                if (id <= fanout) {
+                    statement.setNull(3, Types.INTEGER);
+                } else {
+                    statement.setInt(3, (id - 1) / fanout);
+                }
+                statement.addBatch();
+                if (id % SEED_CHUNK_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+
+    void seedFlashcards(int deckId, int count) throws SQLException {
+        for (int start = 0; start < count; start += SEED_CHUNK_SIZE) {
+            databaseManager.addFlashcardsChunk(deckId, flashcards(start, Math.min(SEED_CHUNK_SIZE, count - start)), 500);
+        }
+    }
+
+    static List<Flashcard> flashcards(int start, int count) {
+        List<Flashcard> flashcards = new ArrayList<>(count);
+        for (int i = start; i < start + count; i++) {
+            flashcards.add(new Flashcard("front " + i, "back of flashcard number " + i));
+        }
+        return flashcards;
+    }
+
+    @Override
+    public void close() throws IOException {
+        databaseManager.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
\ No newline at end of file
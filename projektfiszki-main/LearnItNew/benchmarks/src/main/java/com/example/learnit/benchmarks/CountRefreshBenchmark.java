@@ -0,0 +1,46 @@
+package com.example.learnit.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Przeładowanie liczników fiszek wszystkich decków (jedno zapytanie GROUP BY).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CountRefreshBenchmark {
+    private static final int TOTAL_FLASHCARDS = 200_000;
+
+    @Param({"100", "1000"})
+    public int deckCount;
+
+    private BenchmarkDatabase database;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        database = BenchmarkDatabase.create();
+        database.seedDecks(deckCount, deckCount);
+        database.reopen();
+        for (int deckId = 1; deckId <= deckCount; deckId++) {
+            database.seedFlashcards(deckId, TOTAL_FLASHCARDS / deckCount);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    @Benchmark
+    public int refreshCounts() {
+        database.manager().refreshFlashcardCounts();
+        return database.manager().getFlashcardCount(1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.example.learnit.benchmarks;
+
+import com.example.learnit.CsvFlashcardReader;
+import com.example.learnit.Flashcard;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Przepustowość parsowania pliku CSV z fiszkami (wiersze na sekundę), bez zapisu do bazy:
+ * sekwencyjnie z Readera i równolegle z pliku mapowanego w pamięć.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParseBenchmark {
+    private static final int LINES = 100_000;
+
+    private Path csvFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csvFile = Files.createTempFile("learnit-bench", ".csv");
+        try (var writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < LINES; i++) {
+                if (i % 4 == 0) {
+                    writer.write("\"front, " + i + "\",\"back of \"\"flashcard\"\"\r\nin two lines " + i + "\"");
+                } else {
+                    writer.write("front " + i + ",back of flashcard " + i + ", with a comma");
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parse(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            CsvFlashcardReader.read(reader).forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parseParallel(Blackhole blackhole) throws IOException {
+        try (Stream<Flashcard> flashcards = CsvFlashcardReader.read(csvFile)) {
+            flashcards.forEach(blackhole::consume);
+        }
+    }
+}
\ No newline at end of file
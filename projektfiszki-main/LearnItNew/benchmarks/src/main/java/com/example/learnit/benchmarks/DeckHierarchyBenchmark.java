@@ -0,0 +1,83 @@
+package com.example.learnit.benchmarks;
+
+import com.example.learnit.Deck;
+import com.example.learnit.DeckIndex;
+import com.example.learnit.DeckManager;
+import javafx.scene.control.TreeItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Budowa hierarchii decków: indeksu z listy decków, sum liczników po poddrzewach oraz modelu drzewa w {@link DeckManager} -
+ * samego pierwszego poziomu (drzewo jest leniwe) i po rozwinięciu wszystkich węzłów.
+ * Mierzony jest sam model (TreeItem), bez widoku, więc benchmark nie potrzebuje ekranu.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeckHierarchyBenchmark {
+    private static final int FANOUT = 10;
+
+    @Param({"1000", "10000", "100000"})
+    public int deckCount;
+
+    private BenchmarkDatabase database;
+    private List<Deck> decks;
+    private DeckIndex deckIndex;
+    private DeckManager deckManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        database = BenchmarkDatabase.create();
+        database.seedDecks(deckCount, FANOUT);
+        decks = database.reopen().getDeckHierarchy();
+        deckIndex = DeckIndex.of(decks);
+        deckManager = new DeckManager(database.manager());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    @Benchmark
+    public DeckIndex buildDeckIndex() {
+        return DeckIndex.of(decks);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> sumOverSubtrees() {
+        return deckIndex.sumOverSubtrees(deckId -> deckId & 0xFF);
+    }
+
+    @Benchmark
+    public int loadDeckHierarchy() {
+        deckManager.loadDeckHierarchy();
+        return deckManager.getRootItem().getChildren().size();
+    }
+
+    @Benchmark
+    public int loadDeckHierarchyExpanded() {
+        deckManager.loadDeckHierarchy();
+        int items = 0;
+        ArrayDeque<TreeItem<Integer>> pending = new ArrayDeque<>();
+        pending.push(deckManager.getRootItem());
+        while (!pending.isEmpty()) {
+            TreeItem<Integer> item = pending.pop();
+            items++;
+            for (TreeItem<Integer> child : item.getChildren()) {
+                pending.push(child);
+            }
+        }
+        return items;
+    }
+}
\ No newline at end of file
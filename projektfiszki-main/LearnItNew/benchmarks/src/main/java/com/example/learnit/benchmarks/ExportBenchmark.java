@@ -0,0 +1,59 @@
+package com.example.learnit.benchmarks;
+
+import com.example.learnit.Deck;
+import com.example.learnit.FlashcardExporter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Przepustowość eksportu decku do pliku (fiszki na sekundę) w każdym formacie, z kompresją i bez.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+    private static final int DECK_SIZE = 100_000;
+
+    @Param({"CSV", "BINARY"})
+    public FlashcardExporter.Format format;
+
+    @Param({"false", "true"})
+    public boolean compress;
+
+    private BenchmarkDatabase database;
+    private int deckId;
+    private Path exportFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        database = BenchmarkDatabase.create();
+        Deck deck = database.manager().addDeck("export", null);
+        deckId = deck.getId();
+        database.seedFlashcards(deckId, DECK_SIZE);
+        exportFile = Files.createTempFile("learnit-bench-export", ".tmp");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(exportFile);
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DECK_SIZE)
+    public long export() throws IOException {
+        try (FlashcardExporter exporter = new FlashcardExporter(exportFile, format, compress)) {
+            long exported = database.manager().exportFlashcards(deckId, false, exporter);
+            exporter.finish();
+            return exported;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.example.learnit.benchmarks;
+
+import com.example.learnit.Deck;
+import com.example.learnit.Flashcard;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Przepustowość wstawiania fiszek paczkami (fiszki na sekundę) dla różnych rozmiarów partii JDBC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+    private static final int CHUNK_SIZE = 5_000;
+
+    @Param({"100", "500"})
+    public int batchSize;
+
+    private BenchmarkDatabase database;
+    private List<Flashcard> chunk;
+    private int deckId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = BenchmarkDatabase.create();
+        Deck deck = database.manager().addDeck("insert", null);
+        deckId = deck.getId();
+        chunk = BenchmarkDatabase.flashcards(0, CHUNK_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public Map<Integer, String> insertChunk() throws SQLException {
+        return database.manager().addFlashcardsChunk(deckId, chunk, batchSize);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.example.learnit.benchmarks;
+
+import com.example.learnit.Deck;
+import com.example.learnit.Flashcard;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Czas pobrania jednej strony fiszek w zależności od jej głębokości w decku.
+ * Przy stronicowaniu po kluczu czas nie powinien rosnąć z głębokością.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PagingBenchmark {
+    private static final int DECK_SIZE = 200_000;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"0", "10000", "100000", "190000"})
+    public int depth;
+
+    private BenchmarkDatabase database;
+    private int deckId;
+    private int afterId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        database = BenchmarkDatabase.create();
+        Deck deck = database.manager().addDeck("paging", null);
+        deckId = deck.getId();
+        database.seedFlashcards(deckId, DECK_SIZE);
+        if (depth > 0) {
+            List<Flashcard> skipped = database.manager().getFlashcardsAfter(deckId, 0, depth);
+            afterId = skipped.get(skipped.size() - 1).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Flashcard> fetchPage() {
+        return database.manager().getFlashcardsAfter(deckId, afterId, PAGE_SIZE);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.example.learnit.benchmarks;
+
+import com.example.learnit.Deck;
+import com.example.learnit.SearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Czas wyszukania 20 najlepszych fiszek w indeksie pełnotekstowym: rzadkie słowo,
+ * prefiks pasujący do kilku słów i słowo występujące w każdej fiszce.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final int DECK_SIZE = 200_000;
+    private static final int LIMIT = 20;
+
+    @Param({"12345", "front 1234", "flash"})
+    public String query;
+
+    private BenchmarkDatabase database;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException, InterruptedException {
+        database = BenchmarkDatabase.create();
+        Deck deck = database.manager().addDeck("search", null);
+        database.seedFlashcards(deck.getId(), DECK_SIZE);
+        database.manager().startSearchIndexing();
+        while (!database.manager().isSearchIndexReady()) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    @Benchmark
+    public List<SearchResult> search() {
+        return database.manager().searchFlashcards(query, null, LIMIT);
+    }
+}
\ No newline at end of file
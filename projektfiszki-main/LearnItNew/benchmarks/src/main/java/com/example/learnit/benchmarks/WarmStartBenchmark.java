@@ -0,0 +1,76 @@
+package com.example.learnit.benchmarks;
+
+import com.example.learnit.DatabaseManager;
+import com.example.learnit.DeckSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wczytanie decków i liczników przy starcie: pełne z bazy (drzewo decków i GROUP BY po fiszkach)
+ * i z migawki na dysku, po której z bazy czytany jest tylko dziennik zmian. Osobno sam odczyt pliku migawki.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WarmStartBenchmark {
+    private static final int FANOUT = 10;
+    private static final int FLASHCARD_DECKS = 1_000;
+    private static final int FLASHCARDS_PER_DECK = 200;
+
+    @Param({"1000", "10000", "100000"})
+    public int deckCount;
+
+    private BenchmarkDatabase database;
+    private Path snapshotFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        database = BenchmarkDatabase.create();
+        database.seedDecks(deckCount, FANOUT);
+        database.reopen();
+        for (int deckId = 1; deckId <= FLASHCARD_DECKS; deckId++) {
+            database.seedFlashcards(deckId, FLASHCARDS_PER_DECK);
+        }
+        snapshotFile = database.file("decks.snapshot");
+        database.manager().setSnapshotFile(snapshotFile, "benchmark");
+        if (!database.manager().saveSnapshot()) {
+            throw new IllegalStateException("Cannot write deck snapshot");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+    }
+
+    @Benchmark
+    public int loadFromDatabase() {
+        DatabaseManager manager = database.manager();
+        manager.setSnapshotFile(null, null);
+        manager.loadDecks();
+        manager.refreshFlashcardCounts();
+        return manager.getFlashcardCount(1);
+    }
+
+    @Benchmark
+    public int loadFromSnapshot() {
+        DatabaseManager manager = database.manager();
+        manager.setSnapshotFile(snapshotFile, "benchmark");
+        if (!manager.loadDecks()) {
+            throw new IllegalStateException("Deck snapshot was not used");
+        }
+        return manager.getFlashcardCount(1);
+    }
+
+    @Benchmark
+    public DeckSnapshot readSnapshot() throws IOException {
+        return DeckSnapshot.read(snapshotFile);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.example.learnit;
+
+import javafx.application.Platform;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Asynchroniczna fasada nad {@link DatabaseManager} dla interfejsu. Każda operacja wykonuje się
+ * na osobnym wątku wirtualnym, a zwrócony CompletableFuture kończy się na wątku JavaFX
+ * (Platform.runLater) - również przy błędzie - więc kolejne etapy mogą od razu dotykać kontrolek.
+ * Anulowanie zwróconego future nie przerywa zapytania, ale gwarantuje, że jego wynik nie
+ * trafi już do interfejsu.
+ */
+public class AsyncDatabaseManager implements AutoCloseable {
+    private final DatabaseManager databaseManager;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Executor resultExecutor;
+    // ostatnie zadanie dla danego klucza; nowsze anuluje starsze
+    private final Map<String, CompletableFuture<?>> latestByKey = new ConcurrentHashMap<>();
+
+    public AsyncDatabaseManager(DatabaseManager databaseManager) {
+        this(databaseManager, Platform::runLater);
+    }
+
+    /**
+     * @param resultExecutor wątek, na którym kończą się zwracane future (domyślnie wątek JavaFX)
+     */
+    public AsyncDatabaseManager(DatabaseManager databaseManager, Executor resultExecutor) {
+        this.databaseManager = databaseManager;
+        this.resultExecutor = resultExecutor;
+    }
+
+    public DatabaseManager getDatabaseManager() {
+        return databaseManager;
+    }
+
+    /**
+     * Wykonuje zadanie w tle i przekazuje wynik (albo wyjątek) na wątek wyników.
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(task, executor).whenComplete((value, error) -> {
+            if (result.isDone()) {
+                // anulowane w miedzyczasie - nie angazujemy watku JavaFX
+                return;
+            }
+            resultExecutor.execute(() -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        return result;
+    }
+
+    public CompletableFuture<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Jak {@link #supply(Supplier)}, ale anuluje poprzednie, jeszcze niezakończone zadanie
+     * o tym samym kluczu - np. wczytywanie decku, który użytkownik już odznaczył.
+     */
+    public <T> CompletableFuture<T> supplyLatest(String key, Supplier<T> task) {
+        CompletableFuture<T> future = supply(task);
+        CompletableFuture<?> previous = latestByKey.put(key, future);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        future.whenComplete((value, error) -> latestByKey.remove(key, future));
+        return future;
+    }
+
+    public CompletableFuture<Deck> addDeck(String name, Integer parentId) {
+        return supply(() -> databaseManager.addDeck(name, parentId));
+    }
+
+    public CompletableFuture<Boolean> deleteDeck(int id) {
+        return supply(() -> databaseManager.deleteDeck(id));
+    }
+
+    public CompletableFuture<Boolean> updateDeck(int id, String newName) {
+        return supply(() -> databaseManager.updateDeck(id, newName));
+    }
+
+    public CompletableFuture<Deck> cloneDeck(int deckId, Integer targetParentId, String newName) {
+        return supply(() -> databaseManager.cloneDeck(deckId, targetParentId, newName));
+    }
+
+    public CompletableFuture<Boolean> moveDeck(int deckId, Integer newParentId) {
+        return supply(() -> databaseManager.moveDeck(deckId, newParentId));
+    }
+
+    public CompletableFuture<Boolean> mergeDecks(int sourceId, int targetId) {
+        return supply(() -> databaseManager.mergeDecks(sourceId, targetId));
+    }
+
+    public CompletableFuture<Boolean> addFlashcard(int deckId, String front, String back) {
+        return supply(() -> databaseManager.addFlashcard(deckId, front, back));
+    }
+
+    public CompletableFuture<List<Flashcard>> getFlashcardsAfter(int deckId, int afterId, int limit) {
+        return supply(() -> databaseManager.getFlashcardsAfter(deckId, afterId, limit));
+    }
+
+    public CompletableFuture<Void> refreshFlashcardCounts() {
+        return run(databaseManager::refreshFlashcardCounts);
+    }
+
+    /**
+     * Czeka (do kilku sekund) na zakończenie rozpoczętych operacji, np. zapisów przy zamykaniu aplikacji.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.learnit;
+
+/**
+ * Odbiorca postępu masowego dodawania fiszek. Postęp zgłaszany jest raz na zatwierdzoną
+ * transakcję (nie per wiersz), odrzucenia - dla każdego odrzuconego wiersza.
+ */
+public interface BulkInsertListener {
+    BulkInsertListener NONE = new BulkInsertListener() {
+    };
+
+    default void onProgress(long processed, long inserted, long rejected) {
+    }
+
+    default void onReject(RejectedFlashcard rejected) {
+    }
+}
\ No newline at end of file
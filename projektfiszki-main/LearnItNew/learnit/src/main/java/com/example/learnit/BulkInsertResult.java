@@ -0,0 +1,50 @@
+package com.example.learnit;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Podsumowanie masowego dodawania fiszek. Lista odrzuceń jest przycięta do
+ * {@link FlashcardManager#MAX_REPORTED_REJECTS} pozycji, żeby import ze śmieciowego pliku
+ * nie trzymał w pamięci całego wejścia; pełna lista trafia do {@link BulkInsertListener}.
+ */
+public class BulkInsertResult {
+    private final long processed;
+    private final long inserted;
+    private final long rejected;
+    private final List<RejectedFlashcard> rejects;
+    private final long elapsedMillis;
+
+    public BulkInsertResult(long processed, long inserted, long rejected, List<RejectedFlashcard> rejects, long elapsedMillis) {
+        this.processed = processed;
+        this.inserted = inserted;
+        this.rejected = rejected;
+        this.rejects = Collections.unmodifiableList(rejects);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<RejectedFlashcard> getRejects() {
+        return rejects;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "processed=" + processed + ", inserted=" + inserted + ", rejected=" + rejected + ", elapsed=" + elapsedMillis + " ms";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.example.learnit;
+
+/**
+ * Stan powtórek jednej fiszki według SM-2: liczba udanych powtórek z rzędu, bieżący odstęp,
+ * współczynnik łatwości i termin następnej powtórki (epoch millis).
+ * Fiszka bez zapisanego harmonogramu jest nowa i dostaje wartości z {@link #newCard(int, int)}.
+ */
+public class CardSchedule {
+    public static final double INITIAL_EASE_FACTOR = 2.5;
+
+    private final int flashcardId;
+    private final int deckId;
+    private final int repetitions;
+    private final int intervalDays;
+    private final double easeFactor;
+    private final long dueAt;
+
+    public CardSchedule(int flashcardId, int deckId, int repetitions, int intervalDays, double easeFactor, long dueAt) {
+        this.flashcardId = flashcardId;
+        this.deckId = deckId;
+        this.repetitions = repetitions;
+        this.intervalDays = intervalDays;
+        this.easeFactor = easeFactor;
+        this.dueAt = dueAt;
+    }
+
+    public static CardSchedule newCard(int flashcardId, int deckId) {
+        return new CardSchedule(flashcardId, deckId, 0, 0, INITIAL_EASE_FACTOR, 0);
+    }
+
+    public int getFlashcardId() {
+        return flashcardId;
+    }
+
+    public int getDeckId() {
+        return deckId;
+    }
+
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    public int getIntervalDays() {
+        return intervalDays;
+    }
+
+    public double getEaseFactor() {
+        return easeFactor;
+    }
+
+    public long getDueAt() {
+        return dueAt;
+    }
+
+    public boolean isNew() {
+        return repetitions == 0 && intervalDays == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "CardSchedule[flashcard=" + flashcardId + ", repetitions=" + repetitions + ", interval=" + intervalDays
+                + "d, ease=" + String.format("%.2f", easeFactor) + ", dueAt=" + dueAt + "]";
+    }
+}
\ No newline at end of file
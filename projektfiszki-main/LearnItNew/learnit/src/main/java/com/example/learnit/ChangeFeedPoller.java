@@ -0,0 +1,79 @@
+package com.example.learnit;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Co zadany czas odczytuje dziennik zmian ({@link DatabaseManager#pollChanges()}), żeby cache
+ * decków i liczników nadążał za innymi instancjami aplikacji pracującymi na tej samej bazie.
+ * Raz na jakiś czas usuwa też z dziennika wpisy starsze niż okres przechowywania.
+ */
+public class ChangeFeedPoller implements AutoCloseable {
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final DatabaseManager databaseManager;
+    private final long retentionMillis;
+    private final ScheduledExecutorService poller;
+    private final List<Consumer<List<DeckChange>>> listeners = new CopyOnWriteArrayList<>();
+    // dostep tylko z watku pollera
+    private long lastPruneMillis;
+
+    /**
+     * @param retentionMillis jak długo wpisy zostają w dzienniku; instancja, która nie odczytywała
+     *                        dziennika dłużej, wczyta cache od nowa
+     */
+    public ChangeFeedPoller(DatabaseManager databaseManager, long intervalMillis, long retentionMillis) {
+        if (intervalMillis <= 0 || retentionMillis <= 0) {
+            throw new IllegalArgumentException("Invalid change feed settings: intervalMillis=" + intervalMillis
+                    + ", retentionMillis=" + retentionMillis);
+        }
+        this.databaseManager = databaseManager;
+        this.retentionMillis = retentionMillis;
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "learnit-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Słuchacz dostaje naniesione zmiany innych instancji; wywoływany w wątku pollera.
+     */
+    public void addListener(Consumer<List<DeckChange>> listener) {
+        listeners.add(listener);
+    }
+
+    private void poll() {
+        try {
+            List<DeckChange> changes = databaseManager.pollChanges();
+            if (!changes.isEmpty()) {
+                for (Consumer<List<DeckChange>> listener : listeners) {
+                    listener.accept(changes);
+                }
+            }
+            long now = System.currentTimeMillis();
+            if (now - lastPruneMillis >= PRUNE_INTERVAL_MILLIS) {
+                lastPruneMillis = now;
+                databaseManager.pruneChangeLog(retentionMillis);
+            }
+        } catch (RuntimeException e) {
+            // wyjatek zatrzymalby kolejne odczyty
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void close() {
+        poller.shutdownNow();
+        try {
+            poller.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
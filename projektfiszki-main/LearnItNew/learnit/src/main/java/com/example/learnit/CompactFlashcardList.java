@@ -0,0 +1,138 @@
+package com.example.learnit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Zwarta lista fiszek: teksty wszystkich fiszek leżą jako UTF-8 w jednej tablicy bajtów,
+ * a ID i przesunięcia w tablicach int, więc zamiast obiektu fiszki i dwóch obiektów String
+ * (z nagłówkami i tablicami znaków) na fiszkę przypada kilkanaście bajtów plus sam tekst.
+ * <p>
+ * {@link #get(int)} zwraca lekki widok, który dekoduje przód i tył dopiero przy wywołaniu
+ * getFront()/getBack() - czyli w praktyce tylko dla fiszki pokazywanej na ekranie.
+ * Lista przyjmuje tylko dopisywanie; widoki przestają być ważne po {@link #clear()}.
+ */
+public class CompactFlashcardList extends AbstractList<Flashcard> implements RandomAccess {
+    private int[] ids;
+    // poczatek przodu fiszki i to offsets[2 * i], poczatek tylu offsets[2 * i + 1], koniec offsets[2 * i + 2]
+    private int[] offsets;
+    private byte[] data;
+    private int size;
+
+    public CompactFlashcardList() {
+        this(16);
+    }
+
+    public CompactFlashcardList(int expectedSize) {
+        int capacity = Math.max(expectedSize, 1);
+        ids = new int[capacity];
+        offsets = new int[2 * capacity + 1];
+        data = new byte[32 * capacity];
+    }
+
+    @Override
+    public boolean add(Flashcard flashcard) {
+        add(flashcard.getId(), flashcard.getFront(), flashcard.getBack());
+        return true;
+    }
+
+    public void add(int id, String front, String back) {
+        byte[] frontBytes = Objects.requireNonNull(front, "front").getBytes(StandardCharsets.UTF_8);
+        byte[] backBytes = Objects.requireNonNull(back, "back").getBytes(StandardCharsets.UTF_8);
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            offsets = Arrays.copyOf(offsets, 4 * size + 1);
+        }
+        int start = offsets[2 * size];
+        int end = Math.addExact(start, frontBytes.length + backBytes.length);
+        if (end > data.length) {
+            data = Arrays.copyOf(data, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(end, 2L * data.length)));
+        }
+        System.arraycopy(frontBytes, 0, data, start, frontBytes.length);
+        System.arraycopy(backBytes, 0, data, start + frontBytes.length, backBytes.length);
+        ids[size] = id;
+        offsets[2 * size + 1] = start + frontBytes.length;
+        offsets[2 * size + 2] = end;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Flashcard get(int index) {
+        Objects.checkIndex(index, size);
+        return new Card(this, index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    public int getId(int index) {
+        Objects.checkIndex(index, size);
+        return ids[index];
+    }
+
+    public String getFront(int index) {
+        Objects.checkIndex(index, size);
+        return decode(offsets[2 * index], offsets[2 * index + 1]);
+    }
+
+    public String getBack(int index) {
+        Objects.checkIndex(index, size);
+        return decode(offsets[2 * index + 1], offsets[2 * index + 2]);
+    }
+
+    /**
+     * Przybliżony rozmiar tablic listy na stercie, łącznie z niewykorzystaną rezerwą.
+     */
+    public long getRetainedBytes() {
+        return 4L * ids.length + 4L * offsets.length + data.length + 3 * 16;
+    }
+
+    /**
+     * Oddaje niewykorzystaną rezerwę tablic, np. gdy lista zostanie przechowana na dłużej.
+     */
+    public void trimToSize() {
+        ids = Arrays.copyOf(ids, Math.max(size, 1));
+        offsets = Arrays.copyOf(offsets, 2 * Math.max(size, 1) + 1);
+        data = Arrays.copyOf(data, offsets[2 * size]);
+    }
+
+    private String decode(int start, int end) {
+        return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Widok jednej fiszki listy; nie przechowuje tekstów, tylko pozycję.
+     */
+    private static class Card extends Flashcard {
+        private final CompactFlashcardList list;
+        private final int index;
+
+        Card(CompactFlashcardList list, int index) {
+            super(list.ids[index], null, null);
+            this.list = list;
+            this.index = index;
+        }
+
+        @Override
+        public String getFront() {
+            return list.getFront(index);
+        }
+
+        @Override
+        public String getBack() {
+            return list.getBack(index);
+        }
+    }
+}
\ No newline at end of file
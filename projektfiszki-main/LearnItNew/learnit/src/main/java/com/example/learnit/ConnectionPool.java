@@ -0,0 +1,183 @@
+package com.example.learnit;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ograniczona pula połączeń JDBC. Wolne połączenia trzymane są w stosie (LIFO), żeby
+ * wracały najcieplejsze, a te nieużywane dłużej niż idleTimeout są zamykane w tle.
+ * Połączenie, które leżało bezczynnie dłużej niż validationInterval, jest sprawdzane
+ * przed wydaniem.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private final DatabaseConfig config;
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    public ConnectionPool(DatabaseConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxPoolSize(), true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "learnit-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1_000, config.getIdleTimeoutMillis() / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + config.getBorrowTimeoutMillis()
+                        + " ms waiting for a database connection (" + getStats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        borrowCount.increment();
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idleConnections.pollFirst()) != null) {
+                if (isUsable(pooled)) {
+                    break;
+                }
+                destroy(pooled);
+            }
+            if (pooled == null) {
+                pooled = create();
+            }
+            pooled.markBorrowed();
+            activeCount.incrementAndGet();
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(PooledConnection pooled) {
+        activeCount.decrementAndGet();
+        try {
+            Connection connection = pooled.getConnection();
+            if (!closed && !pooled.isBroken() && !connection.isClosed()) {
+                if (!connection.getAutoCommit()) {
+                    // transakcja porzucona przez wywolujacego - nie przenosimy jej do nastepnego uzytkownika
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                pooled.touch();
+                idleConnections.offerFirst(pooled);
+            } else {
+                destroy(pooled);
+            }
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public PoolStats getStats() {
+        long borrows = borrowCount.sum();
+        return new PoolStats(
+                activeCount.get(),
+                idleConnections.size(),
+                totalCount.get(),
+                config.getMaxPoolSize(),
+                permits.getQueueLength(),
+                borrows,
+                borrows == 0 ? 0 : waitNanos.sum() / borrows,
+                maxWaitNanos.get(),
+                createdCount.sum(),
+                evictedCount.sum(),
+                validationFailures.sum()
+        );
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection connection = DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+        totalCount.incrementAndGet();
+        createdCount.increment();
+        return new PooledConnection(this, connection, config.getStatementCacheSize());
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        // czas od oddania do puli; udane uzycie potwierdza polaczenie rownie dobrze jak isValid
+        long idleNanos = System.nanoTime() - pooled.getLastUsedNanos();
+        if (idleNanos < TimeUnit.MILLISECONDS.toNanos(config.getValidationIntervalMillis())) {
+            return true;
+        }
+        try {
+            if (pooled.getConnection().isValid(5)) {
+                return true;
+            }
+        } catch (SQLException ignored) {
+            // traktujemy jak nieudana walidacje
+        }
+        validationFailures.increment();
+        return false;
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalCount.decrementAndGet();
+        pooled.closePhysically();
+    }
+
+    private void evictIdle() {
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+        long now = System.nanoTime();
+        // najstarsze polaczenia leza na koncu stosu
+        while (idleConnections.size() > config.getMinIdle()) {
+            PooledConnection oldest = idleConnections.pollLast();
+            if (oldest == null) {
+                break;
+            }
+            if (now - oldest.getLastUsedNanos() < idleTimeoutNanos) {
+                idleConnections.offerLast(oldest);
+                break;
+            }
+            evictedCount.increment();
+            destroy(oldest);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,502 @@
+package com.example.learnit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Odczyt fiszek z pliku CSV zgodnie z RFC 4180: pola oddzielone przecinkami, rekordy znakami
+ * końca wiersza (CRLF albo LF), pole w cudzysłowie może zawierać przecinki, końce wierszy
+ * i cudzysłowy zapisane jako "". Pierwsze pole to przód fiszki, drugie tył; kolejne pola są
+ * doklejane do tyłu po przecinku, jak w dawnym formacie "przód,reszta wiersza". Puste wiersze
+ * są pomijane.
+ * <p>
+ * {@link #read(Path)} czyta plik przez kanał NIO i mapowanie pamięci: jeden wątek dzieli plik
+ * na kawałki na granicach rekordów, pula wątków parsuje kawałki równolegle, a gotowe kawałki
+ * trafiają w kolejności pliku do ograniczonej kolejki, z której czyta konsument strumienia.
+ * W pamięci jest więc najwyżej kilka kawałków naraz, niezależnie od rozmiaru pliku.
+ */
+public final class CsvFlashcardReader {
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int SCAN_BUFFER_SIZE = 1 << 16;
+    private static final int CHARSET_SAMPLE_SIZE = 1 << 16;
+    private static final byte QUOTE = '"';
+    private static final byte COMMA = ',';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private CsvFlashcardReader() {
+    }
+
+    /**
+     * Leniwy strumień fiszek; rekordy są czytane dopiero przy konsumpcji strumienia,
+     * więc czytnik musi być otwarty do jej końca. Parsuje w wątku konsumenta.
+     */
+    public static Stream<Flashcard> read(BufferedReader reader) {
+        Iterator<Flashcard> records = new ReaderRecordIterator(reader);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Strumień fiszek z pliku w kodowaniu wykrytym przez {@link #detectCharset(Path)},
+     * parsowany równolegle na wszystkich rdzeniach. Strumień trzeba zamknąć (try-with-resources).
+     */
+    public static Stream<Flashcard> read(Path file) throws IOException {
+        return read(file, detectCharset(file), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads liczba wątków parsujących; kodowania, w których znaki ASCII mogą być częścią
+     *                znaku wielobajtowego (np. UTF-16), są zawsze czytane jednym wątkiem
+     */
+    public static Stream<Flashcard> read(Path file, Charset charset, int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Invalid parser thread count: " + threads);
+        }
+        if (!isAsciiCompatible(charset)) {
+            BufferedReader reader = Files.newBufferedReader(file, charset);
+            return read(reader).onClose(() -> {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        ChunkedFile chunkedFile = new ChunkedFile(file, charset, threads);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunkedFile, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(chunkedFile::close);
+    }
+
+    /**
+     * Kodowanie pliku: według znacznika BOM, a bez niego UTF-8, jeśli początek pliku jest
+     * poprawnym UTF-8, w przeciwnym razie kodowanie systemu (np. windows-1250 dla starszych plików).
+     */
+    public static Charset detectCharset(Path file) throws IOException {
+        byte[] sample;
+        try (InputStream input = Files.newInputStream(file)) {
+            sample = input.readNBytes(CHARSET_SAMPLE_SIZE);
+        }
+        if (sample.length >= 3 && (sample[0] & 0xFF) == 0xEF && (sample[1] & 0xFF) == 0xBB && (sample[2] & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        if (sample.length >= 2 && (sample[0] & 0xFF) == 0xFE && (sample[1] & 0xFF) == 0xFF) {
+            return StandardCharsets.UTF_16;
+        }
+        if (sample.length >= 2 && (sample[0] & 0xFF) == 0xFF && (sample[1] & 0xFF) == 0xFE) {
+            return StandardCharsets.UTF_16;
+        }
+        int length = sample.length;
+        if (length == CHARSET_SAMPLE_SIZE) {
+            // ostatni znak probki mogl zostac uciety w polowie
+            while (length > 0 && (sample[length - 1] & 0xC0) == 0x80) {
+                length--;
+            }
+            if (length > 0 && (sample[length - 1] & 0x80) != 0) {
+                length--;
+            }
+        }
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(sample, 0, length));
+            return StandardCharsets.UTF_8;
+        } catch (CharacterCodingException e) {
+            return Charset.forName(System.getProperty("native.encoding", Charset.defaultCharset().name()));
+        }
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        // w UTF-8 i kodowaniach jednobajtowych bajty przecinka, cudzyslowu i konca wiersza
+        // nie wystepuja wewnatrz innych znakow, wiec granice rekordow mozna szukac w bajtach
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+                || (charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f
+                && new String(new byte[]{QUOTE, COMMA, CR, LF}, charset).equals("\",\r\n"));
+    }
+
+    private static Flashcard toFlashcard(List<String> fields) {
+        if (fields.size() <= 2) {
+            return new Flashcard(fields.get(0), fields.size() == 2 ? fields.get(1) : "");
+        }
+        return new Flashcard(fields.get(0), String.join(",", fields.subList(1, fields.size())));
+    }
+
+    private static boolean isBlank(List<String> fields) {
+        return fields.size() == 1 && fields.get(0).isEmpty();
+    }
+
+    /**
+     * Parser rekordów czytający znaki z Readera, w wątku konsumenta.
+     */
+    private static class ReaderRecordIterator implements Iterator<Flashcard> {
+        private final Reader reader;
+        private final StringBuilder field = new StringBuilder();
+        private final List<String> fields = new ArrayList<>();
+        private Flashcard next;
+        private boolean firstRecord = true;
+        private boolean finished;
+
+        ReaderRecordIterator(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                try {
+                    next = readRecord();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Flashcard next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Flashcard flashcard = next;
+            next = null;
+            return flashcard;
+        }
+
+        private Flashcard readRecord() throws IOException {
+            while (true) {
+                fields.clear();
+                field.setLength(0);
+                boolean quoted = false;
+                boolean afterQuote = false;
+                int c;
+                while (true) {
+                    c = reader.read();
+                    if (firstRecord && c == '\uFEFF') {
+                        firstRecord = false;
+                        continue;
+                    }
+                    firstRecord = false;
+                    if (c == -1) {
+                        break;
+                    }
+                    if (quoted) {
+                        if (c == '"') {
+                            quoted = false;
+                            afterQuote = true;
+                        } else {
+                            field.append((char) c);
+                        }
+                    } else if (c == '"') {
+                        if (afterQuote) {
+                            // "" w polu w cudzyslowie to jeden cudzyslow
+                            field.append('"');
+                            quoted = true;
+                            afterQuote = false;
+                        } else if (field.length() == 0) {
+                            quoted = true;
+                        } else {
+                            field.append('"');
+                        }
+                    } else if (c == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                        afterQuote = false;
+                    } else if (c == '\n') {
+                        break;
+                    } else {
+                        afterQuote = false;
+                        field.append((char) c);
+                    }
+                }
+                if (c == -1 && fields.isEmpty() && field.length() == 0) {
+                    finished = true;
+                    return null;
+                }
+                if (!afterQuote && field.length() > 0 && field.charAt(field.length() - 1) == '\r') {
+                    field.setLength(field.length() - 1);
+                }
+                fields.add(field.toString());
+                if (!isBlank(fields)) {
+                    return toFlashcard(fields);
+                }
+                if (c == -1) {
+                    finished = true;
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Plik dzielony na kawałki zakończone granicą rekordu i parsowany równolegle. Jako iterator
+     * oddaje fiszki kolejnych kawałków w kolejności pliku.
+     */
+    private static class ChunkedFile implements Iterator<Flashcard> {
+        private static final CompletableFuture<List<Flashcard>> END = CompletableFuture.completedFuture(List.of());
+
+        private final FileChannel channel;
+        private final Charset charset;
+        private final ExecutorService parsers;
+        private final Thread splitter;
+        // gotowe albo parsowane kawalki w kolejnosci pliku; ograniczona, wiec dzielenie czeka na konsumenta
+        private final BlockingQueue<CompletableFuture<List<Flashcard>>> chunks;
+        private Iterator<Flashcard> current = List.<Flashcard>of().iterator();
+        private boolean finished;
+
+        ChunkedFile(Path file, Charset charset, int threads) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.charset = charset;
+            this.chunks = new ArrayBlockingQueue<>(2 * threads);
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.parsers = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "learnit-csv-parser-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.splitter = new Thread(this::split, "learnit-csv-splitter");
+            splitter.setDaemon(true);
+            splitter.start();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && !finished) {
+                CompletableFuture<List<Flashcard>> chunk;
+                try {
+                    chunk = chunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    throw new IllegalStateException("CSV import interrupted", e);
+                }
+                if (chunk == END) {
+                    finished = true;
+                    close();
+                    break;
+                }
+                try {
+                    current = chunk.get().iterator();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    throw new IllegalStateException("CSV import interrupted", e);
+                } catch (ExecutionException e) {
+                    close();
+                    Throwable cause = e.getCause();
+                    if (cause instanceof UncheckedIOException uncheckedIOException) {
+                        throw uncheckedIOException;
+                    }
+                    throw new UncheckedIOException(new IOException("Cannot parse CSV file", cause));
+                }
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Flashcard next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        /**
+         * Przerywa dzielenie i parsowanie, np. gdy konsument skończył wcześniej.
+         */
+        void close() {
+            finished = true;
+            splitter.interrupt();
+            parsers.shutdownNow();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Czyta plik sekwencyjnie przez kanał i szuka końców rekordów, śledząc cudzysłowy
+         * tym samym automatem co parser; kawałek kończy się na pierwszym końcu rekordu
+         * po przekroczeniu CHUNK_SIZE bajtów.
+         */
+        private void split() {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+                byte[] bytes = buffer.array();
+                long size = channel.size();
+                long chunkStart = 0;
+                long position = 0;
+                int state = ChunkParser.FIELD_START;
+                while (position < size) {
+                    buffer.clear();
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        break;
+                    }
+                    for (int i = 0; i < read; i++) {
+                        byte b = bytes[i];
+                        state = ChunkParser.nextState(state, b);
+                        if (b == LF && state == ChunkParser.FIELD_START && position + i + 1 - chunkStart >= CHUNK_SIZE) {
+                            submit(chunkStart, position + i + 1);
+                            chunkStart = position + i + 1;
+                        }
+                    }
+                    position += read;
+                }
+                if (chunkStart < size) {
+                    submit(chunkStart, size);
+                }
+                chunks.put(END);
+            } catch (InterruptedException e) {
+                // konsument zamknal strumien
+            } catch (IOException e) {
+                try {
+                    chunks.put(CompletableFuture.failedFuture(new UncheckedIOException(e)));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void submit(long start, long end) throws InterruptedException {
+            CompletableFuture<List<Flashcard>> chunk = new CompletableFuture<>();
+            chunks.put(chunk);
+            parsers.execute(() -> {
+                try {
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                    chunk.complete(new ChunkParser(charset).parse(mapped, start == 0));
+                } catch (IOException e) {
+                    chunk.completeExceptionally(new UncheckedIOException(e));
+                } catch (RuntimeException e) {
+                    chunk.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Parser jednego kawałka pliku w bajtach; pola są dekodowane dopiero w całości.
+     */
+    private static class ChunkParser {
+        static final int FIELD_START = 0;
+        static final int UNQUOTED = 1;
+        static final int QUOTED = 2;
+        static final int QUOTE_IN_QUOTED = 3;
+
+        private final Charset charset;
+        private final List<String> fields = new ArrayList<>();
+        private byte[] field = new byte[256];
+        private int fieldLength;
+
+        ChunkParser(Charset charset) {
+            this.charset = charset;
+        }
+
+        static int nextState(int state, byte b) {
+            switch (state) {
+                case FIELD_START:
+                    return b == QUOTE ? QUOTED : b == COMMA || b == LF ? FIELD_START : UNQUOTED;
+                case UNQUOTED:
+                    return b == COMMA || b == LF ? FIELD_START : UNQUOTED;
+                case QUOTED:
+                    return b == QUOTE ? QUOTE_IN_QUOTED : QUOTED;
+                default:
+                    // po zamykajacym cudzyslowie: "" wraca do pola, reszta bajtow jak poza cudzyslowem
+                    return b == QUOTE ? QUOTED : b == COMMA || b == LF ? FIELD_START : QUOTE_IN_QUOTED;
+            }
+        }
+
+        List<Flashcard> parse(ByteBuffer bytes, boolean startOfFile) {
+            List<Flashcard> flashcards = new ArrayList<>();
+            if (startOfFile && bytes.remaining() >= 3 && (bytes.get(0) & 0xFF) == 0xEF
+                    && (bytes.get(1) & 0xFF) == 0xBB && (bytes.get(2) & 0xFF) == 0xBF) {
+                bytes.position(3);
+            }
+            int state = FIELD_START;
+            boolean wasQuoted = false;
+            while (bytes.hasRemaining()) {
+                byte b = bytes.get();
+                int next = nextState(state, b);
+                if (b == LF && next == FIELD_START) {
+                    endField(wasQuoted);
+                    endRecord(flashcards);
+                    wasQuoted = false;
+                } else if (b == COMMA && next == FIELD_START) {
+                    endField(wasQuoted);
+                    wasQuoted = false;
+                } else if (state == FIELD_START && next == QUOTED) {
+                    wasQuoted = true;
+                } else if (state == QUOTE_IN_QUOTED && next == QUOTED) {
+                    // "" w polu w cudzyslowie to jeden cudzyslow
+                    append(QUOTE);
+                } else if (next == QUOTE_IN_QUOTED) {
+                    // zamykajacy cudzyslow pomijamy; bajty miedzy nim a przecinkiem dopisujemy, poza CR
+                    if (state == QUOTE_IN_QUOTED && b != CR) {
+                        append(b);
+                    }
+                } else {
+                    append(b);
+                }
+                state = next;
+            }
+            if (state != FIELD_START || !fields.isEmpty()) {
+                // ostatni rekord pliku bez konca wiersza
+                endField(wasQuoted);
+                endRecord(flashcards);
+            }
+            return flashcards;
+        }
+
+        private void append(byte b) {
+            if (fieldLength == field.length) {
+                field = Arrays.copyOf(field, fieldLength * 2);
+            }
+            field[fieldLength++] = b;
+        }
+
+        private void endField(boolean wasQuoted) {
+            int length = fieldLength;
+            if (!wasQuoted && length > 0 && field[length - 1] == CR) {
+                length--;
+            }
+            fields.add(new String(field, 0, length, charset));
+            fieldLength = 0;
+        }
+
+        private void endRecord(List<Flashcard> flashcards) {
+            if (!isBlank(fields)) {
+                flashcards.add(toFlashcard(fields));
+            }
+            fields.clear();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.example.learnit;
+
+import java.nio.file.Path;
+
+/**
+ * Ustawienia połączenia z bazą danych i rozmiaru puli połączeń.
+ * Domyślne wartości odpowiadają lokalnej bazie "learnit"; każdą z nich można
+ * nadpisać właściwością systemową (np. -Dlearnit.db.url=...), a -Dlearnit.db.backend=embedded
+ * przełącza na wbudowaną bazę w pliku ~/.learnit/learnit.mv.db.
+ * rewriteBatchedStatements sprawia, że sterownik MySQL zamienia partie JDBC
+ * na wielowierszowe INSERT-y.
+ */
+public class DatabaseConfig {
+    public static final String MYSQL_URL = "jdbc:mysql://localhost:3306/learnit?rewriteBatchedStatements=true";
+    public static final String EMBEDDED_URL = EmbeddedFlashcardRepository.URL_PREFIX + "~/.learnit/learnit"
+            + EmbeddedFlashcardRepository.URL_OPTIONS;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxPoolSize;
+    private final int minIdle;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+
+    public DatabaseConfig(String url, String user, String password) {
+        this(url, user, password, 8, 1, 30_000, 300_000, 30_000, 64);
+    }
+
+    public DatabaseConfig(String url, String user, String password, int maxPoolSize, int minIdle,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long validationIntervalMillis,
+                          int statementCacheSize) {
+        if (maxPoolSize <= 0 || minIdle < 0 || minIdle > maxPoolSize) {
+            throw new IllegalArgumentException("Invalid pool size: max=" + maxPoolSize + ", minIdle=" + minIdle);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxPoolSize = maxPoolSize;
+        this.minIdle = minIdle;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * Wbudowana baza w podanym pliku (bez rozszerzenia .mv.db).
+     */
+    public static DatabaseConfig embedded(Path databaseFile) {
+        String url = EmbeddedFlashcardRepository.URL_PREFIX + databaseFile.toAbsolutePath()
+                + EmbeddedFlashcardRepository.URL_OPTIONS;
+        return new DatabaseConfig(url, "sa", "");
+    }
+
+    public static DatabaseConfig fromSystemProperties() {
+        String defaultUrl = "embedded".equalsIgnoreCase(System.getProperty("learnit.db.backend")) ? EMBEDDED_URL : MYSQL_URL;
+        return new DatabaseConfig(
+                System.getProperty("learnit.db.url", defaultUrl),
+                System.getProperty("learnit.db.user", "root"),
+                System.getProperty("learnit.db.password", ""),
+                Integer.getInteger("learnit.db.pool.maxSize", 8),
+                Integer.getInteger("learnit.db.pool.minIdle", 1),
+                Long.getLong("learnit.db.pool.borrowTimeoutMillis", 30_000),
+                Long.getLong("learnit.db.pool.idleTimeoutMillis", 300_000),
+                Long.getLong("learnit.db.pool.validationIntervalMillis", 30_000),
+                Integer.getInteger("learnit.db.pool.statementCacheSize", 64)
+        );
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public long getBorrowTimeoutMillis() {
+        return borrowTimeoutMillis;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public long getValidationIntervalMillis() {
+        return validationIntervalMillis;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+}
\ No newline at end of file
@@ -1,187 +1,964 @@
-package com.example.learnit;
-
-import java.sql.*;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-public class DatabaseManager {
-    private static final String DATABASE_URL = "jdbc:mysql://localhost:3306/learnit";
-    private static final String DATABASE_USER = "root";
-    private static final String DATABASE_PASSWORD = "";
-    private final Map<Integer, Deck> deckCache;
-
-    public DatabaseManager() {
-        deckCache = new HashMap<>();
-        initializeDatabase();
-        loadDeckHierarchyToCache();
-    }
-
-    private void initializeDatabase() {
-        String createDecksTableSQL = """
-                CREATE TABLE IF NOT EXISTS decks (
-                    id INT AUTO_INCREMENT PRIMARY KEY,
-                    name VARCHAR(255) NOT NULL,
-                    parent_id INT DEFAULT NULL,
-                    UNIQUE (name, parent_id),
-                    FOREIGN KEY (parent_id) REFERENCES decks(id) ON DELETE CASCADE
-                );
-                """;
-
-        String createFlashcardsTableSQL = """
-                CREATE TABLE IF NOT EXISTS flashcards (
-                    id INT AUTO_INCREMENT PRIMARY KEY,
-                    deck_id INT NOT NULL,
-                    front TEXT NOT NULL,
-                    back TEXT NOT NULL,
-                    FOREIGN KEY (deck_id) REFERENCES decks(id) ON DELETE CASCADE
-                );
-                """;
-
-        try (Connection connection = DriverManager.getConnection(DATABASE_URL, DATABASE_USER, DATABASE_PASSWORD);
-             Statement statement = connection.createStatement()) {
-            statement.execute(createDecksTableSQL);
-            statement.execute(createFlashcardsTableSQL);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    public void addFlashcard(int deckId, String front, String back) {
-        String sql = "INSERT INTO flashcards (deck_id, front, back) VALUES (?, ?, ?)";
-        try (Connection connection = DriverManager.getConnection(DATABASE_URL, DATABASE_USER, DATABASE_PASSWORD);
-             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setInt(1, deckId);
-            preparedStatement.setString(2, front);
-            preparedStatement.setString(3, back);
-            preparedStatement.executeUpdate();
-            System.out.println("Flashcard added: [Deck ID: " + deckId + ", Front: " + front + ", Back: " + back + "]");
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    public int getFlashcardCount(int deckId) {
-        String sql = "SELECT COUNT(*) FROM flashcards WHERE deck_id = ?";
-        try (Connection connection = DriverManager.getConnection(DATABASE_URL, DATABASE_USER, DATABASE_PASSWORD);
-             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setInt(1, deckId);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            if (resultSet.next()) {
-                return resultSet.getInt(1);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return 0;
-    }
-
-    public List<Flashcard> getFlashcardsBatch(int deckId, int offset, int limit) {
-        List<Flashcard> flashcards = new ArrayList<>();
-        String sql = "SELECT front, back FROM flashcards WHERE deck_id = ? LIMIT ?, ?";
-        try (Connection connection = DriverManager.getConnection(DATABASE_URL, DATABASE_USER, DATABASE_PASSWORD);
-             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setInt(1, deckId);
-            preparedStatement.setInt(2, offset);
-            preparedStatement.setInt(3, limit);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                String front = resultSet.getString("front");
-                String back = resultSet.getString("back");
-                flashcards.add(new Flashcard(front, back));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return flashcards;
-    }
-
-    public List<Flashcard> getFlashcards(int deckId) { // Zachowana dla kompatybilności, ale nie używana w optymalizacji
-        List<Flashcard> flashcards = new ArrayList<>();
-        String sql = "SELECT front, back FROM flashcards WHERE deck_id = ?";
-        try (Connection connection = DriverManager.getConnection(DATABASE_URL, DATABASE_USER, DATABASE_PASSWORD);
-             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setInt(1, deckId);
-            ResultSet resultSet = preparedStatement.executeQuery();
-            while (resultSet.next()) {
-                String front = resultSet.getString("front");
-                String back = resultSet.getString("back");
-                flashcards.add(new Flashcard(front, back));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return flashcards;
-    }
-
-    public List<Deck> getDeckHierarchy() {
-        return new ArrayList<>(deckCache.values());
-    }
-
-    private void loadDeckHierarchyToCache() {
-        deckCache.clear();
-        String sql = "SELECT id, name, parent_id FROM decks";
-        try (Connection connection = DriverManager.getConnection(DATABASE_URL, DATABASE_USER, DATABASE_PASSWORD);
-             Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(sql)) {
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-                Integer parentId = resultSet.getObject("parent_id") != null ? resultSet.getInt("parent_id") : null;
-                deckCache.put(id, new Deck(id, name, parentId));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    public void addDeck(String name, Integer parentId) {
-        String insertSQL = "INSERT INTO decks (name, parent_id) VALUES (?, ?)";
-        try (Connection connection = DriverManager.getConnection(DATABASE_URL, DATABASE_USER, DATABASE_PASSWORD);
-             PreparedStatement preparedStatement = connection.prepareStatement(insertSQL, Statement.RETURN_GENERATED_KEYS)) {
-            preparedStatement.setString(1, name);
-            if (parentId != null) {
-                preparedStatement.setInt(2, parentId);
-            } else {
-                preparedStatement.setNull(2, Types.INTEGER);
-            }
-            preparedStatement.executeUpdate();
-            ResultSet generatedKeys = preparedStatement.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                int id = generatedKeys.getInt(1);
-                deckCache.put(id, new Deck(id, name, parentId));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    public void deleteDeck(int id) {
-        String deleteSQL = "DELETE FROM decks WHERE id = ?";
-        try (Connection connection = DriverManager.getConnection(DATABASE_URL, DATABASE_USER, DATABASE_PASSWORD);
-             PreparedStatement preparedStatement = connection.prepareStatement(deleteSQL)) {
-            preparedStatement.setInt(1, id);
-            preparedStatement.executeUpdate();
-            deckCache.remove(id);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    public void updateDeck(int id, String newName) {
-        String updateSQL = "UPDATE decks SET name = ? WHERE id = ?";
-        try (Connection connection = DriverManager.getConnection(DATABASE_URL, DATABASE_USER, DATABASE_PASSWORD);
-             PreparedStatement preparedStatement = connection.prepareStatement(updateSQL)) {
-            preparedStatement.setString(1, newName);
-            preparedStatement.setInt(2, id);
-            preparedStatement.executeUpdate();
-            Deck deck = deckCache.get(id);
-            if (deck != null) {
-                deckCache.put(id, new Deck(id, newName, deck.getParentId()));
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
+package com.example.learnit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public final class DatabaseManager implements AutoCloseable {
+    private static final int SEARCH_INDEX_PAGE_SIZE = 5_000;
+    private static final int CHANGE_FEED_PAGE_SIZE = 1_000;
+    // wpisy dziennika moga stac sie widoczne nie po kolei (dluzsza transakcja dostala mniejsze ID),
+    // wiec kazdy odczyt siega tyle ID wstecz od kursora
+    private static final int CHANGE_FEED_LOOKBACK = 200;
+
+    private final FlashcardRepository repository;
+    // czasy, liczby wywolan i bledy kazdej operacji na bazie
+    private final MetricsRegistry metrics;
+    // niezmienna migawka deckow; zapisy podmieniaja ja w calosci (copy-on-write)
+    private volatile DeckIndex deckCache;
+    // liczba fiszek per deck; ladowana jednym zapytaniem GROUP BY i aktualizowana przy zapisach
+    private final Map<Integer, Integer> flashcardCountCache;
+    // fiszki czekajace w dzienniku zapisu odroczonego, jeszcze nie w bazie
+    private final Map<Integer, Integer> pendingCountCache = new ConcurrentHashMap<>();
+    // liczba fiszek calego poddrzewa decku (z fiszkami w dzienniku); przeliczana w O(n) przy
+    // przeladowaniu licznikow, a potem aktualizowana przyrostowo wzdluz sciezki do korzenia
+    private volatile Map<Integer, Integer> subtreeCountCache = new ConcurrentHashMap<>();
+    // rosnie przy kazdej zmianie licznikow; zmieniane tylko pod blokada this
+    private volatile long countsVersion;
+    // indeks pelnotekstowy fiszek; budowany w tle dopiero po startSearchIndexing()
+    private final FlashcardSearchIndex searchIndex = new FlashcardSearchIndex();
+    private final ExecutorService searchIndexer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "learnit-search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean searchIndexCatchUpQueued = new AtomicBoolean();
+    // ID, do ktorego indeks przejrzal juz tabele fiszek
+    private volatile int searchIndexScannedId;
+    private volatile boolean searchIndexingStarted;
+    private volatile boolean searchIndexReady;
+    // odczyt dziennika zmian innych instancji; kursor i ID wpisow juz naniesionych w oknie LOOKBACK
+    private final Object changeFeedLock = new Object();
+    private long changeFeedCursor;
+    // wpisy do tego ID sa juz zawarte w cache wczytanym z bazy
+    private long changeFeedFloor;
+    private final TreeSet<Long> appliedChangeIds = new TreeSet<>();
+    private volatile boolean decksLoaded;
+    private volatile boolean countsLoaded;
+    // migawka cache na dysku; null - wylaczona
+    private Path snapshotFile;
+    private String snapshotKey;
+
+    public DatabaseManager() {
+        this(DatabaseConfig.fromSystemProperties());
+    }
+
+    public DatabaseManager(DatabaseConfig config) {
+        this(FlashcardRepository.open(config));
+    }
+
+    public DatabaseManager(DatabaseConfig config, boolean loadNow) {
+        this(FlashcardRepository.open(config), loadNow);
+    }
+
+    public DatabaseManager(FlashcardRepository repository) {
+        this(repository, true);
+    }
+
+    /**
+     * @param loadNow false - konstruktor nie łączy się z bazą; schemat, decki i liczniki wczytują
+     *                dopiero {@link #loadDecks()} i {@link #refreshFlashcardCounts()}, np. w tle po pokazaniu okna
+     */
+    public DatabaseManager(FlashcardRepository repository, boolean loadNow) {
+        this.metrics = new MetricsRegistry();
+        this.repository = new InstrumentedFlashcardRepository(repository, metrics);
+        deckCache = DeckIndex.empty();
+        flashcardCountCache = new ConcurrentHashMap<>();
+        if (loadNow) {
+            loadDecks();
+            refreshFlashcardCounts();
+        }
+    }
+
+    /**
+     * Włącza migawkę cache na dysku: {@link #loadDecks()} zacznie od niej, a {@link #saveSnapshot()} ją zapisze.
+     * @param databaseKey identyfikuje bazę (np. URL) - migawka innej bazy jest pomijana
+     */
+    public void setSnapshotFile(Path file, String databaseKey) {
+        this.snapshotFile = file;
+        this.snapshotKey = databaseKey;
+    }
+
+    /**
+     * Przygotowuje schemat (migracje tylko przy zmianie wersji) i wczytuje decki do cache.
+     * Jeśli jest aktualna migawka ({@link #setSnapshotFile}), decki i liczniki pochodzą z niej,
+     * a z bazy doczytywane są tylko zmiany zapisane po niej w dzienniku; migawka nieaktualna,
+     * uszkodzona albo zapisana dla innej bazy oznacza pełne wczytanie.
+     *
+     * @return true, jeśli liczniki fiszek też są już wczytane (z migawki)
+     */
+    public boolean loadDecks() {
+        initializeDatabase();
+        boolean restored = false;
+        if (snapshotFile != null) {
+            long start = System.nanoTime();
+            DeckSnapshot snapshot = readSnapshot();
+            restored = snapshot != null && restoreSnapshot(snapshot);
+            metrics.operation("snapshot.load").record(System.nanoTime() - start, !restored);
+        }
+        if (!restored) {
+            synchronized (changeFeedLock) {
+                // kursor ustawiony przed wczytaniem cache - zmiana zapisana w miedzyczasie moze zostac
+                // naniesiona drugi raz, co dla decku nic nie zmienia, a liczniki poprawi najblizsze przeladowanie
+                changeFeedCursor = readLatestChangeId();
+                changeFeedFloor = changeFeedCursor;
+                appliedChangeIds.clear();
+            }
+            loadDeckHierarchyToCache();
+        }
+        decksLoaded = true;
+        return restored;
+    }
+
+    private DeckSnapshot readSnapshot() {
+        try {
+            DeckSnapshot snapshot = DeckSnapshot.read(snapshotFile);
+            if (snapshot == null) {
+                return null;
+            }
+            if (!snapshot.getDatabaseKey().equals(snapshotKey)
+                    || snapshot.getSchemaVersion() != JdbcFlashcardRepository.SCHEMA_VERSION) {
+                System.out.println("Deck snapshot belongs to another database or schema, reloading");
+                return null;
+            }
+            return snapshot;
+        } catch (IOException e) {
+            System.err.println("Deck snapshot ignored: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean restoreSnapshot(DeckSnapshot snapshot) {
+        long latestChangeId;
+        try {
+            latestChangeId = repository.findLatestChangeId();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+        if (latestChangeId < snapshot.getChangeCursor()) {
+            // dziennik jest krotszy niz w chwili zapisu - baza odtworzona albo wymieniona
+            System.out.println("Deck snapshot is newer than the database, reloading");
+            return false;
+        }
+        synchronized (changeFeedLock) {
+            changeFeedCursor = snapshot.getChangeCursor();
+            changeFeedFloor = snapshot.getChangeFloor();
+            appliedChangeIds.clear();
+            appliedChangeIds.addAll(snapshot.getAppliedChangeIds());
+            synchronized (this) {
+                deckCache = DeckIndex.of(snapshot.getDecks());
+                flashcardCountCache.clear();
+                flashcardCountCache.putAll(snapshot.getFlashcardCounts());
+                subtreeCountCache = new ConcurrentHashMap<>(deckCache.sumOverSubtrees(this::getFlashcardCount));
+                countsVersion++;
+            }
+        }
+        countsLoaded = true;
+        // doczytanie zmian zapisanych po migawce; przyciety dziennik konczy sie pelnym przeladowaniem
+        pollChanges();
+        return true;
+    }
+
+    /**
+     * Zapisuje migawkę decków i liczników razem z pozycją w dzienniku zmian. Wywoływane przy
+     * zamykaniu, gdy nic już nie zapisuje do bazy - zmiany po migawce są w dzienniku, więc po
+     * awarii stara migawka nadal jest poprawnym punktem startu.
+     *
+     * @return false, jeśli migawka jest wyłączona, decki lub liczniki nie są wczytane albo zapis się nie powiódł
+     */
+    public boolean saveSnapshot() {
+        if (snapshotFile == null || !decksLoaded || !countsLoaded) {
+            return false;
+        }
+        long start = System.nanoTime();
+        // wlasne zmiany trafiaja do zbioru naniesionych dopiero przy odczycie dziennika
+        pollChanges();
+        DeckSnapshot snapshot;
+        synchronized (changeFeedLock) {
+            synchronized (this) {
+                snapshot = new DeckSnapshot(snapshotKey, JdbcFlashcardRepository.SCHEMA_VERSION,
+                        changeFeedCursor, changeFeedFloor, new ArrayList<>(appliedChangeIds),
+                        DeckSnapshot.inTreeOrder(deckCache), new HashMap<>(flashcardCountCache));
+            }
+        }
+        boolean failed = false;
+        try {
+            snapshot.write(snapshotFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+            failed = true;
+        }
+        metrics.operation("snapshot.save").record(System.nanoTime() - start, failed);
+        return !failed;
+    }
+
+    /**
+     * Czy decki zostały już wczytane; do tego czasu cache jest pusty i nie odróżnia
+     * nieistniejącego decku od jeszcze niewczytanego.
+     */
+    public boolean isLoaded() {
+        return decksLoaded;
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public PoolStats getPoolStats() {
+        return repository.getPoolStats();
+    }
+
+    @Override
+    public void close() {
+        searchIndexer.shutdownNow();
+        repository.close();
+    }
+
+    private long readLatestChangeId() {
+        try {
+            return repository.findLatestChangeId();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    private void initializeDatabase() {
+        try {
+            repository.initializeSchema();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return false, gdy fiszki nie udało się zapisać w bazie
+     */
+    public boolean addFlashcard(int deckId, String front, String back) {
+        try {
+            int id = repository.insertFlashcard(deckId, front, back);
+            changeFlashcardCount(flashcardCountCache, deckId, 1);
+            if (searchIndexingStarted) {
+                searchIndex.add(id, deckId, front, back);
+            }
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Wstawia paczkę fiszek w jednej transakcji, wysyłając je partiami JDBC po batchSize wierszy.
+     * Jeśli partia się nie powiedzie, transakcja jest wycofywana i paczka wstawiana ponownie
+     * wiersz po wierszu, żeby odrzucić tylko wadliwe fiszki.
+     *
+     * @return mapa: pozycja w paczce -> powód odrzucenia; pusta, gdy wszystko zostało zapisane
+     * @throws SQLException gdy nie udało się połączyć z bazą albo zatwierdzić transakcji - wtedy nic
+     * z paczki nie jest zapisane i nie ma sensu próbować kolejnych
+     */
+    public Map<Integer, String> addFlashcardsChunk(int deckId, List<Flashcard> flashcards, int batchSize) throws SQLException {
+        Map<Integer, String> rejected = repository.insertFlashcards(deckId, flashcards, batchSize);
+        changeFlashcardCount(flashcardCountCache, deckId, flashcards.size() - rejected.size());
+        // ID wstawionych fiszek nie znamy - indeks dociagnie je z bazy
+        requestSearchIndexCatchUp();
+        return rejected;
+    }
+
+    /**
+     * Zapisuje paczkę fiszek z {@link FlashcardJournal} razem z jej kluczem, więc powtórzenie
+     * segmentu po awarii nie wstawia fiszek drugi raz. Tak jak {@link #addFlashcardsChunk}
+     * odróżnia wiersze odrzucone przez bazę (wynik) od niedostępnej bazy (wyjątek).
+     *
+     * @return pozycja w paczce -> powód odrzucenia albo null, gdy paczka była już zapisana
+     * @throws SQLException gdy nie udało się połączyć z bazą albo zatwierdzić transakcji - paczkę trzeba powtórzyć
+     */
+    public Map<Integer, String> addJournaledFlashcards(String segmentKey, int deckId, List<Flashcard> flashcards, int batchSize)
+            throws SQLException {
+        Map<Integer, String> rejected = repository.insertJournaledFlashcards(segmentKey, deckId, flashcards, batchSize);
+        if (rejected != null) {
+            changeFlashcardCount(flashcardCountCache, deckId, flashcards.size() - rejected.size());
+            requestSearchIndexCatchUp();
+        }
+        return rejected;
+    }
+
+    /**
+     * Usuwa klucze paczek segmentu dziennika, który jest już skasowany z dysku.
+     */
+    public void deleteJournalKeys(String segmentKey) {
+        try {
+            repository.deleteJournalKeys(segmentKey);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public int getFlashcardCount(int deckId) {
+        return flashcardCountCache.getOrDefault(deckId, 0) + pendingCountCache.getOrDefault(deckId, 0);
+    }
+
+    /**
+     * Zmienia liczbę fiszek decku, które czekają na zapis w {@link FlashcardJournal}.
+     * Są one wliczane do {@link #getFlashcardCount(int)}, ale nie do liczników z bazy,
+     * więc przeładowanie liczników ich nie gubi.
+     */
+    public void adjustPendingFlashcardCount(int deckId, int delta) {
+        changeFlashcardCount(pendingCountCache, deckId, delta);
+    }
+
+    /**
+     * Liczba fiszek decku razem ze wszystkimi poddeckami, bez zapytań rekurencyjnych.
+     */
+    public int getSubtreeFlashcardCount(int deckId) {
+        return subtreeCountCache.getOrDefault(deckId, getFlashcardCount(deckId));
+    }
+
+    private synchronized void changeFlashcardCount(Map<Integer, Integer> counts, int deckId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        counts.merge(deckId, delta, (current, change) -> current + change == 0 ? null : current + change);
+        countsVersion++;
+        if (deckCache.contains(deckId)) {
+            addToSubtreeCounts(deckId, delta);
+        }
+    }
+
+    /**
+     * Dolicza zmianę do poddrzewa decku i wszystkich jego przodków - O(głębokość decku).
+     */
+    private void addToSubtreeCounts(int deckId, int delta) {
+        subtreeCountCache.merge(deckId, delta, Integer::sum);
+        for (int ancestorId : deckCache.getAncestorIds(deckId)) {
+            subtreeCountCache.merge(ancestorId, delta, Integer::sum);
+        }
+    }
+
+    /**
+     * Numer wersji liczników fiszek - zmienia się przy każdej zmianie któregokolwiek licznika,
+     * więc widok zbudowany z liczników (np. odpowiedź serwera) jest aktualny, dopóki numer się nie zmieni.
+     */
+    public long getCountsVersion() {
+        return countsVersion;
+    }
+
+    public Map<Integer, Integer> getFlashcardCounts() {
+        return Collections.unmodifiableMap(flashcardCountCache);
+    }
+
+    /**
+     * Przeładowuje liczniki fiszek wszystkich decków jednym zapytaniem.
+     */
+    public void refreshFlashcardCounts() {
+        try {
+            Map<Integer, Integer> counts = repository.countFlashcardsByDeck();
+            synchronized (this) {
+                flashcardCountCache.keySet().retainAll(counts.keySet());
+                flashcardCountCache.putAll(counts);
+                subtreeCountCache = new ConcurrentHashMap<>(deckCache.sumOverSubtrees(this::getFlashcardCount));
+                countsVersion++;
+            }
+            countsLoaded = true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stronicowanie po kluczu: zwraca do limit fiszek decku o ID większym niż afterId,
+     * posortowanych po ID. Korzysta z indeksu (deck_id, id), więc koszt nie rośnie z głębokością
+     * strony, a kolejne strony są stabilne niezależnie od dopisywanych fiszek.
+     * @param afterId ID ostatniej fiszki z poprzedniej strony; 0 dla pierwszej strony
+     */
+    public List<Flashcard> getFlashcardsAfter(int deckId, int afterId, int limit) {
+        try {
+            return repository.findFlashcardsAfter(deckId, afterId, limit);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    public List<Flashcard> getFlashcards(int deckId) { // Zachowana dla kompatybilności, ale nie używana w optymalizacji
+        try {
+            return repository.findFlashcards(deckId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Eksportuje fiszki decku (i opcjonalnie całego poddrzewa, rodzice przed dziećmi), czytając
+     * każdy deck kursorem prosto do eksportera. Eksportera nie zamyka.
+     * @return liczba wyeksportowanych fiszek
+     * @throws IOException gdy nie da się zapisać pliku albo odczytać fiszek z bazy
+     */
+    public long exportFlashcards(int deckId, boolean includeSubdecks, FlashcardExporter exporter) throws IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            DeckIndex decks = deckCache;
+            List<Integer> deckIds = includeSubdecks ? decks.getSubtreeIds(deckId) : List.of(deckId);
+            long exported = 0;
+            for (int id : deckIds) {
+                Deck deck = decks.get(id);
+                if (deck == null) {
+                    continue;
+                }
+                exporter.beginDeck(deck);
+                exported += repository.streamFlashcards(id, exporter);
+            }
+            failed = false;
+            return exported;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new IOException("Cannot read flashcards for export: " + e.getMessage(), e);
+        } finally {
+            metrics.operation("export").record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Sprawdza spójność decków, harmonogramu i fiszek; liczniki fiszek są przy tym wczytywane od nowa.
+     * @param repair czy poprawić deck_id harmonogramu tam, gdzie nie zgadza się z fiszką
+     * @return raport albo null, jeśli zapytania się nie powiodły
+     */
+    public IntegrityReport checkIntegrity(boolean repair) {
+        long start = System.nanoTime();
+        try {
+            refreshFlashcardCounts();
+            DeckIndex decks = deckCache;
+            // decki w cyklu nie wisza pod zadnym deckiem najwyzszego poziomu
+            BitSet reachable = new BitSet();
+            for (Deck root : decks.getChildren(null)) {
+                for (int id : decks.getSubtreeIds(root.getId())) {
+                    reachable.set(id);
+                }
+            }
+            List<Integer> unreachable = new ArrayList<>();
+            Map<String, Integer> namesSeen = new HashMap<>();
+            List<String> duplicates = new ArrayList<>();
+            for (Deck deck : decks.getDecks()) {
+                if (!reachable.get(deck.getId())) {
+                    unreachable.add(deck.getId());
+                }
+                if (namesSeen.merge(deck.getParentId() + "/" + deck.getName(), 1, Integer::sum) == 2) {
+                    duplicates.add(decks.getPath(deck.getId()));
+                }
+            }
+            Collections.sort(unreachable);
+            long flashcards = 0;
+            for (int count : flashcardCountCache.values()) {
+                flashcards += count;
+            }
+            int mismatched = repository.countMismatchedSchedules();
+            int repaired = repair && mismatched > 0 ? repository.repairMismatchedSchedules() : 0;
+            IntegrityReport report = new IntegrityReport(decks.size(), flashcards, unreachable, duplicates,
+                    mismatched, repaired, repository.countBlankFlashcards());
+            metrics.operation("integrityCheck").record(System.nanoTime() - start, false);
+            return report;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            metrics.operation("integrityCheck").record(System.nanoTime() - start, true);
+            return null;
+        }
+    }
+
+    /**
+     * Zaległe fiszki decku (termin nie później niż dueBefore) w kolejności terminów,
+     * stronicowane po kluczu (due_at, id) z indeksu harmonogramu.
+     * @return fiszki albo null, gdy zapytanie się nie powiodło - pusty deck to pusta lista
+     */
+    public List<ScheduledCard> getDueCards(int deckId, long dueBefore, long afterDueAt, int afterId, int limit) {
+        try {
+            return repository.findDueCards(deckId, dueBefore, afterDueAt, afterId, limit);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Fiszki decku, które jeszcze nigdy nie były powtarzane.
+     * @return fiszki albo null, gdy zapytanie się nie powiodło
+     */
+    public List<Flashcard> getNewFlashcards(int deckId, int afterId, int limit) {
+        try {
+            return repository.findUnscheduledFlashcards(deckId, afterId, limit);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Bieżące harmonogramy fiszek, np. do oceny fiszki poza {@link StudySession}.
+     * @return ID fiszki -> harmonogram (nieistniejące fiszki są pominięte) albo null, gdy odczyt się nie powiódł
+     */
+    public Map<Integer, CardSchedule> getSchedules(List<Integer> flashcardIds) {
+        try {
+            return repository.findSchedules(flashcardIds);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Zapisuje paczkę wyników powtórek jedną transakcją.
+     * @return false, jeśli zapis się nie powiódł
+     */
+    public boolean saveSchedules(List<CardSchedule> schedules) {
+        if (schedules.isEmpty()) {
+            return true;
+        }
+        try {
+            repository.saveSchedules(schedules);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Zaczyna budować w tle indeks wyszukiwania; od tej chwili nowe fiszki są do niego dopisywane.
+     */
+    public void startSearchIndexing() {
+        if (!searchIndexingStarted) {
+            searchIndexingStarted = true;
+            requestSearchIndexCatchUp();
+        }
+    }
+
+    /**
+     * @return true, gdy indeks objął już wszystkie fiszki istniejące przy starcie budowania
+     */
+    public boolean isSearchIndexReady() {
+        return searchIndexReady;
+    }
+
+    /**
+     * Wyszukuje fiszki po słowach (albo ich początkach) z przodu i tyłu; wszystkie słowa zapytania
+     * muszą wystąpić w fiszce. Dopóki indeks się buduje, wyniki mogą być niepełne.
+     * @param deckId deck, w którego poddrzewie szukać; null - we wszystkich deckach
+     * @param limit największa liczba wyników
+     * @return wyniki od najtrafniejszego, z treścią fiszek
+     */
+    public List<SearchResult> searchFlashcards(String query, Integer deckId, int limit) {
+        long start = System.nanoTime();
+        DeckIndex decks = deckCache;
+        BitSet deckFilter = new BitSet();
+        if (deckId != null) {
+            for (int subtreeId : decks.getSubtreeIds(deckId)) {
+                deckFilter.set(subtreeId);
+            }
+        } else {
+            for (Deck deck : decks.getDecks()) {
+                deckFilter.set(deck.getId());
+            }
+        }
+        List<SearchResult> hits = searchIndex.search(query, deckFilter, limit);
+        List<SearchResult> results = new ArrayList<>(hits.size());
+        boolean failed = false;
+        if (!hits.isEmpty()) {
+            List<Integer> ids = new ArrayList<>(hits.size());
+            for (SearchResult hit : hits) {
+                ids.add(hit.getFlashcardId());
+            }
+            try {
+                Map<Integer, Flashcard> flashcardsById = new HashMap<>();
+                for (Flashcard flashcard : repository.findFlashcardsByIds(ids)) {
+                    flashcardsById.put(flashcard.getId(), flashcard);
+                }
+                for (SearchResult hit : hits) {
+                    Flashcard flashcard = flashcardsById.get(hit.getFlashcardId());
+                    if (flashcard != null) {
+                        results.add(new SearchResult(hit.getFlashcardId(), hit.getDeckId(), hit.getScore(), flashcard));
+                    }
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                failed = true;
+            }
+        }
+        metrics.operation("search").record(System.nanoTime() - start, failed);
+        return results;
+    }
+
+    private void requestSearchIndexCatchUp() {
+        if (!searchIndexingStarted || !searchIndexCatchUpQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            searchIndexer.execute(this::catchUpSearchIndex);
+        } catch (RejectedExecutionException e) {
+            searchIndexCatchUpQueued.set(false);
+        }
+    }
+
+    /**
+     * Dopisuje do indeksu fiszki o ID większym niż dotąd przejrzane, stronami po kluczu głównym.
+     */
+    private void catchUpSearchIndex() {
+        searchIndexCatchUpQueued.set(false);
+        long start = System.nanoTime();
+        try {
+            while (true) {
+                Map<Integer, List<Flashcard>> page = repository.findAllFlashcardsAfter(searchIndexScannedId, SEARCH_INDEX_PAGE_SIZE);
+                int pageSize = 0;
+                int lastId = searchIndexScannedId;
+                for (Map.Entry<Integer, List<Flashcard>> deckFlashcards : page.entrySet()) {
+                    for (Flashcard flashcard : deckFlashcards.getValue()) {
+                        searchIndex.add(flashcard.getId(), deckFlashcards.getKey(), flashcard.getFront(), flashcard.getBack());
+                        lastId = Math.max(lastId, flashcard.getId());
+                        pageSize++;
+                    }
+                }
+                searchIndexScannedId = lastId;
+                if (pageSize < SEARCH_INDEX_PAGE_SIZE) {
+                    break;
+                }
+            }
+            if (!searchIndexReady) {
+                searchIndexReady = true;
+                System.out.println("Search index built: " + searchIndex.getIndexedCount() + " flashcards in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Wszystkie decki z bieżącej migawki; lista jest niemodyfikowalna i nie jest kopiowana.
+     */
+    public List<Deck> getDeckHierarchy() {
+        return deckCache.getDecks();
+    }
+
+    public DeckIndex getDeckIndex() {
+        return deckCache;
+    }
+
+    public Deck getDeck(int id) {
+        return deckCache.get(id);
+    }
+
+    private void loadDeckHierarchyToCache() {
+        try {
+            deckCache = DeckIndex.of(repository.findAllDecks());
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return dodany deck albo null, jeśli zapis się nie powiódł
+     */
+    public Deck addDeck(String name, Integer parentId) {
+        try {
+            Deck added = new Deck(repository.insertDeck(name, parentId), name, parentId);
+            updateDeckCache(added);
+            return added;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @return false, jeśli usunięcie się nie powiodło - deck zostaje wtedy w cache
+     */
+    public boolean deleteDeck(int id) {
+        try {
+            repository.deleteDeck(id);
+            // ON DELETE CASCADE usuwa tez poddecki i ich fiszki
+            removeSubtreeFromCache(id);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * @return false, jeśli zapis się nie powiódł (np. rodzic ma już deck o tej nazwie)
+     */
+    public boolean updateDeck(int id, String newName) {
+        try {
+            repository.renameDeck(id, newName);
+            Deck deck = deckCache.get(id);
+            if (deck != null) {
+                updateDeckCache(new Deck(id, newName, deck.getParentId()));
+            }
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Kopiuje deck z całym poddrzewem i fiszkami pod podanego rodzica (null - najwyższy poziom).
+     * Kopie fiszek nie mają harmonogramów, więc w nauce pojawią się jako nowe.
+     * @return kopia decku albo null, jeśli zapis się nie powiódł
+     */
+    public Deck cloneDeck(int deckId, Integer targetParentId, String newName) {
+        DeckIndex decks = deckCache;
+        List<Deck> subtree = new ArrayList<>();
+        for (int id : decks.getSubtreeIds(deckId)) {
+            subtree.add(decks.get(id));
+        }
+        if (subtree.isEmpty() || (targetParentId != null && decks.get(targetParentId) == null)) {
+            return null;
+        }
+        try {
+            Map<Integer, Integer> copiedCounts = repository.cloneDecks(subtree, targetParentId, newName);
+            // nowe ID sa w kolejnosci poddrzewa, wiec rodzic kopii jest znany przed dzieckiem
+            Map<Integer, Integer> newIds = new HashMap<>();
+            Deck root = null;
+            int i = 0;
+            for (int newId : copiedCounts.keySet()) {
+                Deck original = subtree.get(i++);
+                Deck copy = root == null
+                        ? new Deck(newId, newName, targetParentId)
+                        : new Deck(newId, original.getName(), newIds.get(original.getParentId()));
+                newIds.put(original.getId(), newId);
+                updateDeckCache(copy);
+                if (root == null) {
+                    root = copy;
+                }
+            }
+            for (Map.Entry<Integer, Integer> copied : copiedCounts.entrySet()) {
+                changeFlashcardCount(flashcardCountCache, copied.getKey(), copied.getValue());
+            }
+            requestSearchIndexCatchUp();
+            return root;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Przepina deck z poddrzewem pod nowego rodzica (null - najwyższy poziom).
+     * @return false, jeśli zapis się nie powiódł (np. rodzic ma już poddeck o tej nazwie)
+     * @throws IllegalArgumentException gdy nowy rodzic leży w poddrzewie przenoszonego decku
+     */
+    public boolean moveDeck(int deckId, Integer newParentId) {
+        Deck deck = deckCache.get(deckId);
+        if (deck == null) {
+            return false;
+        }
+        if (newParentId != null && deckCache.getSubtreeIds(deckId).contains(newParentId)) {
+            throw new IllegalArgumentException("Cannot move deck " + deckId + " into its own subtree");
+        }
+        try {
+            repository.moveDeck(deckId, newParentId);
+            updateDeckCache(new Deck(deckId, deck.getName(), newParentId));
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Scala deck źródłowy z docelowym: fiszki i poddecki źródła przechodzą do celu, źródło znika.
+     * @return false, jeśli zapis się nie powiódł (np. cel ma już poddeck o nazwie poddecku źródła)
+     * @throws IllegalArgumentException gdy cel jest źródłem albo leży w jego poddrzewie
+     */
+    public boolean mergeDecks(int sourceId, int targetId) {
+        DeckIndex decks = deckCache;
+        if (decks.get(sourceId) == null || decks.get(targetId) == null) {
+            return false;
+        }
+        if (decks.getSubtreeIds(sourceId).contains(targetId)) {
+            throw new IllegalArgumentException("Cannot merge deck " + sourceId + " into its own subtree");
+        }
+        try {
+            int moved = repository.mergeDecks(sourceId, targetId);
+            // kolejnosc jak w dzienniku zmian: fiszki, poddecki, na koniec usuniecie zrodla
+            changeFlashcardCount(flashcardCountCache, targetId, moved);
+            for (Deck child : decks.getChildren(sourceId)) {
+                updateDeckCache(new Deck(child.getId(), child.getName(), targetId));
+            }
+            removeSubtreeFromCache(sourceId);
+            searchIndex.reassignDeck(sourceId, targetId);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private synchronized void updateDeckCache(Deck deck) {
+        Deck previous = deckCache.get(deck.getId());
+        boolean moved = previous != null && !Objects.equals(previous.getParentId(), deck.getParentId());
+        int subtreeCount = getSubtreeFlashcardCount(deck.getId());
+        if (moved) {
+            // przeniesione poddrzewo odejmujemy od starych przodkow...
+            for (int ancestorId : deckCache.getAncestorIds(deck.getId())) {
+                subtreeCountCache.merge(ancestorId, -subtreeCount, Integer::sum);
+            }
+        }
+        deckCache = deckCache.withDeck(deck);
+        if (moved) {
+            // ...i doliczamy do nowych
+            for (int ancestorId : deckCache.getAncestorIds(deck.getId())) {
+                subtreeCountCache.merge(ancestorId, subtreeCount, Integer::sum);
+            }
+        } else if (previous == null) {
+            // poddecki dodane przed rodzicem zostaly wlasnie pod niego przepiete
+            int relinkedCount = 0;
+            for (Deck child : deckCache.getChildren(deck.getId())) {
+                relinkedCount += getSubtreeFlashcardCount(child.getId());
+            }
+            if (relinkedCount != 0) {
+                subtreeCountCache.put(deck.getId(), getFlashcardCount(deck.getId()) + relinkedCount);
+                for (int ancestorId : deckCache.getAncestorIds(deck.getId())) {
+                    subtreeCountCache.merge(ancestorId, relinkedCount, Integer::sum);
+                }
+            }
+        }
+    }
+
+    private synchronized void removeSubtreeFromCache(int id) {
+        int subtreeCount = getSubtreeFlashcardCount(id);
+        for (int ancestorId : deckCache.getAncestorIds(id)) {
+            subtreeCountCache.merge(ancestorId, -subtreeCount, Integer::sum);
+        }
+        for (int removedId : deckCache.getSubtreeIds(id)) {
+            flashcardCountCache.remove(removedId);
+            subtreeCountCache.remove(removedId);
+        }
+        deckCache = deckCache.withoutSubtree(id);
+    }
+
+    /**
+     * Nanosi na cache zmiany zapisane przez inne instancje aplikacji od poprzedniego wywołania.
+     * Gdy dziennik został przycięty za ostatnio odczytanym wpisem, wczytuje cache od nowa
+     * i zwraca pojedynczą zmianę {@link DeckChange.Type#RELOADED}.
+     *
+     * @return naniesione zmiany w kolejności dziennika; przy usunięciu i scaleniu decku parentId to rodzic z cache
+     */
+    public List<DeckChange> pollChanges() {
+        long start = System.nanoTime();
+        boolean failed = false;
+        List<DeckChange> applied = new ArrayList<>();
+        synchronized (changeFeedLock) {
+            try {
+                long readFrom = Math.max(changeFeedFloor, changeFeedCursor - CHANGE_FEED_LOOKBACK);
+                for (boolean firstPage = true; ; firstPage = false) {
+                    List<DeckChange> changes = repository.findChangesAfter(readFrom, CHANGE_FEED_PAGE_SIZE);
+                    if (firstPage && !changes.isEmpty() && changes.get(0).getId() > changeFeedCursor + 1
+                            && repository.findOldestChangeId() > changeFeedCursor + 1) {
+                        // brakujace wpisy zostaly juz usuniete z dziennika - nie wiadomo, co sie zmienilo
+                        loadDeckHierarchyToCache();
+                        refreshFlashcardCounts();
+                        requestSearchIndexCatchUp();
+                        changeFeedCursor = readLatestChangeId();
+                        changeFeedFloor = changeFeedCursor;
+                        appliedChangeIds.clear();
+                        applied.clear();
+                        applied.add(new DeckChange(changeFeedCursor, repository.getChangeOrigin(),
+                                DeckChange.Type.RELOADED, 0, null, null, 0));
+                        break;
+                    }
+                    for (DeckChange change : changes) {
+                        if (!appliedChangeIds.add(change.getId())) {
+                            continue;
+                        }
+                        changeFeedCursor = Math.max(changeFeedCursor, change.getId());
+                        if (!change.getOrigin().equals(repository.getChangeOrigin())) {
+                            applied.add(applyChange(change));
+                        }
+                    }
+                    if (changes.size() < CHANGE_FEED_PAGE_SIZE) {
+                        break;
+                    }
+                    readFrom = changes.get(changes.size() - 1).getId();
+                }
+                appliedChangeIds.headSet(changeFeedCursor - CHANGE_FEED_LOOKBACK, true).clear();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                failed = true;
+            }
+        }
+        metrics.operation("pollChanges").record(System.nanoTime() - start, failed);
+        return applied;
+    }
+
+    private DeckChange applyChange(DeckChange change) {
+        switch (change.getType()) {
+            case DECK_SAVED:
+                updateDeckCache(new Deck(change.getDeckId(), change.getName(), change.getParentId()));
+                return change;
+            case DECK_DELETED:
+                return removeDeckOnRemoteChange(change);
+            case DECKS_MERGED:
+                // fiszki i poddecki przeszly do celu we wczesniejszych wpisach, zostaje indeks i usuniecie zrodla
+                searchIndex.reassignDeck(change.getDeckId(), change.getParentId());
+                return removeDeckOnRemoteChange(change);
+            case FLASHCARDS_ADDED:
+                if (deckCache.get(change.getDeckId()) != null) {
+                    changeFlashcardCount(flashcardCountCache, change.getDeckId(), change.getCountDelta());
+                }
+                requestSearchIndexCatchUp();
+                return change;
+            default:
+                return change;
+        }
+    }
+
+    private DeckChange removeDeckOnRemoteChange(DeckChange change) {
+        Deck removed = deckCache.get(change.getDeckId());
+        if (removed == null) {
+            return change;
+        }
+        removeSubtreeFromCache(change.getDeckId());
+        return new DeckChange(change.getId(), change.getOrigin(), change.getType(), change.getDeckId(),
+                removed.getParentId(), removed.getName(), change.getCountDelta());
+    }
+
+    /**
+     * Usuwa z dziennika zmian wpisy starsze niż podany wiek.
+     */
+    public void pruneChangeLog(long olderThanMillis) {
+        try {
+            int removed = repository.deleteChangesBefore(System.currentTimeMillis() - olderThanMillis);
+            if (removed > 0) {
+                System.out.println("Change log pruned: " + removed + " entries");
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.example.learnit;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie JFR dla jednego wywołania repozytorium; widoczne w JDK Mission Control
+ * w kategorii LearnIt, gdy nagrywanie jest włączone (-XX:StartFlightRecording).
+ */
+@Name("com.example.learnit.DatabaseQuery")
+@Label("Database Query")
+@Category({"LearnIt", "Database"})
+@Description("One call to the flashcard repository")
+public class DatabaseQueryEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Rows")
+    @Description("Rows returned or written, -1 when not applicable")
+    public int rows;
+
+    @Label("Failed")
+    public boolean failed;
+}
\ No newline at end of file
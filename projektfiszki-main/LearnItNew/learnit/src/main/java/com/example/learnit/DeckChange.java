@@ -0,0 +1,70 @@
+package com.example.learnit;
+
+/**
+ * Wpis dziennika zmian (tabela change_log) zapisywany w tej samej transakcji co zmiana decku
+ * albo dodanie fiszek. Inne instancje aplikacji odczytują dziennik od ostatnio widzianego ID
+ * i nanoszą zmiany na swoje cache, zamiast przeładowywać wszystko.
+ */
+public class DeckChange {
+    public enum Type {
+        /** Deck dodany, przemianowany albo przeniesiony; niesie aktualną nazwę i rodzica. */
+        DECK_SAVED,
+        /** Deck usunięty razem z poddrzewem. */
+        DECK_DELETED,
+        /** Deck scalony z deckiem parentId: jego fiszki i poddecki przeszły do celu, a sam deck usunięto. */
+        DECKS_MERGED,
+        /** Do decku dopisano countDelta fiszek. */
+        FLASHCARDS_ADDED,
+        /** Dziennik został przycięty za ostatnio widzianym wpisem - cache wczytano od nowa. */
+        RELOADED
+    }
+
+    private final long id;
+    private final String origin;
+    private final Type type;
+    private final int deckId;
+    private final Integer parentId;
+    private final String name;
+    private final int countDelta;
+
+    public DeckChange(long id, String origin, Type type, int deckId, Integer parentId, String name, int countDelta) {
+        this.id = id;
+        this.origin = origin;
+        this.type = type;
+        this.deckId = deckId;
+        this.parentId = parentId;
+        this.name = name;
+        this.countDelta = countDelta;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Identyfikator instancji, która wprowadziła zmianę - własne zmiany są już w cache.
+     */
+    public String getOrigin() {
+        return origin;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getDeckId() {
+        return deckId;
+    }
+
+    public Integer getParentId() {
+        return parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCountDelta() {
+        return countDelta;
+    }
+}
\ No newline at end of file
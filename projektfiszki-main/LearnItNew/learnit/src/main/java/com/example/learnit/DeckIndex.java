@@ -0,0 +1,282 @@
+package com.example.learnit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Niezmienna migawka decków z indeksami po ID, po (rodzic, nazwa) i po dzieciach rodzica.
+ * Migawkę można bez kopiowania przekazywać między wątkami. Zmiany działają jak kopiowanie
+ * przy zapisie: nowa migawka dostaje pełne kopie trzech map, więc każda zmiana kosztuje O(n),
+ * a z poprzednią migawką współdzieli tylko listy dzieci i mapy nazw rodziców, których zmiana
+ * nie dotyczy. Przy zmianach pojedynczych decków z interfejsu i dziennika zmian to wystarcza;
+ * hurtowe wczytanie idzie przez {@link #of}.
+ */
+public final class DeckIndex {
+    // klucz rodzica dla deckow najwyzszego poziomu (ID w bazie zaczynaja sie od 1)
+    private static final int ROOT_KEY = 0;
+    private static final DeckIndex EMPTY = new DeckIndex(Map.of(), Map.of(), Map.of());
+
+    private final Map<Integer, Deck> byId;
+    private final Map<Integer, Map<String, Deck>> byParentAndName;
+    private final Map<Integer, List<Deck>> childrenByParent;
+    private volatile List<Deck> decks;
+
+    private DeckIndex(Map<Integer, Deck> byId, Map<Integer, Map<String, Deck>> byParentAndName,
+                      Map<Integer, List<Deck>> childrenByParent) {
+        this.byId = byId;
+        this.byParentAndName = byParentAndName;
+        this.childrenByParent = childrenByParent;
+    }
+
+    public static DeckIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Buduje indeks w czasie O(n) niezależnie od kolejności decków na liście - rodzic
+     * nie musi wystąpić przed dziećmi. Deck, którego rodzica nie ma na liście, trafia
+     * na najwyższy poziom, zamiast zniknąć z drzewa.
+     */
+    public static DeckIndex of(Collection<Deck> decks) {
+        Map<Integer, Deck> byId = new HashMap<>(decks.size() * 2);
+        for (Deck deck : decks) {
+            byId.put(deck.getId(), deck);
+        }
+        Map<Integer, Map<String, Deck>> byParentAndName = new HashMap<>();
+        Map<Integer, List<Deck>> childrenByParent = new HashMap<>();
+        for (Deck deck : decks) {
+            int parentKey = parentKey(deck, byId);
+            byParentAndName.computeIfAbsent(parentKey, key -> new HashMap<>()).put(deck.getName(), deck);
+            childrenByParent.computeIfAbsent(parentKey, key -> new ArrayList<>()).add(deck);
+        }
+        Map<Integer, Map<String, Deck>> namesView = new HashMap<>(byParentAndName.size() * 2);
+        byParentAndName.forEach((key, names) -> namesView.put(key, Collections.unmodifiableMap(names)));
+        Map<Integer, List<Deck>> childrenView = new HashMap<>(childrenByParent.size() * 2);
+        childrenByParent.forEach((key, children) -> childrenView.put(key, Collections.unmodifiableList(children)));
+        return new DeckIndex(byId, namesView, childrenView);
+    }
+
+    public Deck get(int id) {
+        return byId.get(id);
+    }
+
+    public boolean contains(int id) {
+        return byId.containsKey(id);
+    }
+
+    /**
+     * Deck o podanej nazwie pod danym rodzicem - para (parent_id, name) jest w bazie unikalna.
+     * @param parentId ID rodzica albo null dla decków najwyższego poziomu
+     */
+    public Deck find(Integer parentId, String name) {
+        return byParentAndName.getOrDefault(parentKey(parentId), Map.of()).get(name);
+    }
+
+    /**
+     * @param parentId ID rodzica albo null dla decków najwyższego poziomu
+     */
+    public List<Deck> getChildren(Integer parentId) {
+        return childrenByParent.getOrDefault(parentKey(parentId), List.of());
+    }
+
+    public List<Deck> getDecks() {
+        List<Deck> result = decks;
+        if (result == null) {
+            result = Collections.unmodifiableList(new ArrayList<>(byId.values()));
+            decks = result;
+        }
+        return result;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * ID decku i wszystkich jego potomków, w kolejności wszerz (rodzic przed dziećmi).
+     */
+    public List<Integer> getSubtreeIds(int rootId) {
+        List<Integer> ids = new ArrayList<>();
+        if (!byId.containsKey(rootId)) {
+            return ids;
+        }
+        ids.add(rootId);
+        for (int i = 0; i < ids.size(); i++) {
+            for (Deck child : childrenByParent.getOrDefault(ids.get(i), List.of())) {
+                ids.add(child.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Ścieżka decku od korzenia, np. "Języki / Francuski"; przydatna tam, gdzie sama nazwa
+     * jest niejednoznaczna.
+     */
+    public String getPath(int id) {
+        Deck deck = byId.get(id);
+        if (deck == null) {
+            return "";
+        }
+        StringBuilder path = new StringBuilder(deck.getName());
+        int depth = 0;
+        while (deck.getParentId() != null && (deck = byId.get(deck.getParentId())) != null && depth++ < byId.size()) {
+            path.insert(0, " / ").insert(0, deck.getName());
+        }
+        return path.toString();
+    }
+
+    /**
+     * ID przodków decku od rodzica do decku najwyższego poziomu; pusta lista dla decku
+     * najwyższego poziomu albo nieznanego ID.
+     */
+    public List<Integer> getAncestorIds(int id) {
+        List<Integer> ancestors = new ArrayList<>();
+        Deck deck = byId.get(id);
+        while (deck != null && parentKey(deck, byId) != ROOT_KEY && ancestors.size() < byId.size()) {
+            ancestors.add(deck.getParentId());
+            deck = byId.get(deck.getParentId());
+        }
+        return ancestors;
+    }
+
+    /**
+     * Sumy wartości po całych poddrzewach (deck razem z potomkami), np. liczby fiszek,
+     * liczone w O(n): decki są przechodzone wszerz od korzeni, a potem od końca,
+     * więc każdy dopisuje swoją sumę do rodzica dopiero po zsumowaniu wszystkich dzieci.
+     */
+    public Map<Integer, Integer> sumOverSubtrees(IntUnaryOperator valueOfDeck) {
+        List<Deck> order = new ArrayList<>(byId.size());
+        order.addAll(childrenByParent.getOrDefault(ROOT_KEY, List.of()));
+        for (int i = 0; i < order.size(); i++) {
+            order.addAll(childrenByParent.getOrDefault(order.get(i).getId(), List.of()));
+        }
+        Map<Integer, Integer> sums = new HashMap<>(byId.size() * 2);
+        for (int i = order.size() - 1; i >= 0; i--) {
+            Deck deck = order.get(i);
+            int sum = sums.merge(deck.getId(), valueOfDeck.applyAsInt(deck.getId()), Integer::sum);
+            int parentKey = parentKey(deck, byId);
+            if (parentKey != ROOT_KEY) {
+                sums.merge(parentKey, sum, Integer::sum);
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Nowa migawka z dodanym lub podmienionym deckiem. Decki dodane wcześniej niż ich rodzic
+     * czekają na najwyższym poziomie i są pod niego przepinane, gdy rodzic się pojawi.
+     */
+    public DeckIndex withDeck(Deck deck) {
+        Deck previous = byId.get(deck.getId());
+        Map<Integer, Deck> newById = new HashMap<>(byId);
+        newById.put(deck.getId(), deck);
+        Map<Integer, Map<String, Deck>> newByName = new HashMap<>(byParentAndName);
+        Map<Integer, List<Deck>> newChildren = new HashMap<>(childrenByParent);
+        if (previous != null) {
+            unlink(previous, byId, newByName, newChildren);
+        }
+        int parentKey = parentKey(deck, newById);
+        Map<String, Deck> names = new HashMap<>(newByName.getOrDefault(parentKey, Map.of()));
+        names.put(deck.getName(), deck);
+        newByName.put(parentKey, Collections.unmodifiableMap(names));
+        List<Deck> children = new ArrayList<>(newChildren.getOrDefault(parentKey, List.of()));
+        int position = previous != null && parentKey(previous, byId) == parentKey
+                ? indexOf(childrenByParent.get(parentKey), previous.getId())
+                : -1;
+        if (position >= 0) {
+            children.add(position, deck);
+        } else {
+            children.add(deck);
+        }
+        newChildren.put(parentKey, Collections.unmodifiableList(children));
+        if (previous == null) {
+            relinkOrphans(deck.getId(), newByName, newChildren);
+        }
+        return new DeckIndex(newById, newByName, newChildren);
+    }
+
+    private static void relinkOrphans(int parentId, Map<Integer, Map<String, Deck>> byName,
+                                      Map<Integer, List<Deck>> children) {
+        List<Deck> orphans = new ArrayList<>();
+        for (Deck root : children.getOrDefault(ROOT_KEY, List.of())) {
+            if (root.getParentId() != null && root.getParentId() == parentId) {
+                orphans.add(root);
+            }
+        }
+        if (orphans.isEmpty()) {
+            return;
+        }
+        Map<String, Deck> rootNames = new HashMap<>(byName.get(ROOT_KEY));
+        List<Deck> roots = new ArrayList<>(children.get(ROOT_KEY));
+        Map<String, Deck> names = new HashMap<>(byName.getOrDefault(parentId, Map.of()));
+        List<Deck> orphanChildren = new ArrayList<>(children.getOrDefault(parentId, List.of()));
+        for (Deck orphan : orphans) {
+            rootNames.remove(orphan.getName(), orphan);
+            roots.remove(orphan);
+            names.put(orphan.getName(), orphan);
+            orphanChildren.add(orphan);
+        }
+        byName.put(ROOT_KEY, Collections.unmodifiableMap(rootNames));
+        children.put(ROOT_KEY, Collections.unmodifiableList(roots));
+        byName.put(parentId, Collections.unmodifiableMap(names));
+        children.put(parentId, Collections.unmodifiableList(orphanChildren));
+    }
+
+    /**
+     * Nowa migawka bez decku i całego jego poddrzewa.
+     */
+    public DeckIndex withoutSubtree(int rootId) {
+        List<Integer> removedIds = getSubtreeIds(rootId);
+        if (removedIds.isEmpty()) {
+            return this;
+        }
+        Map<Integer, Deck> newById = new HashMap<>(byId);
+        Map<Integer, Map<String, Deck>> newByName = new HashMap<>(byParentAndName);
+        Map<Integer, List<Deck>> newChildren = new HashMap<>(childrenByParent);
+        unlink(byId.get(rootId), byId, newByName, newChildren);
+        for (int removedId : removedIds) {
+            newById.remove(removedId);
+            newByName.remove(removedId);
+            newChildren.remove(removedId);
+        }
+        return new DeckIndex(newById, newByName, newChildren);
+    }
+
+    private static void unlink(Deck deck, Map<Integer, Deck> byId, Map<Integer, Map<String, Deck>> byName,
+                               Map<Integer, List<Deck>> children) {
+        int parentKey = parentKey(deck, byId);
+        Map<String, Deck> names = new HashMap<>(byName.getOrDefault(parentKey, Map.of()));
+        names.remove(deck.getName());
+        byName.put(parentKey, Collections.unmodifiableMap(names));
+        List<Deck> siblings = new ArrayList<>(children.getOrDefault(parentKey, List.of()));
+        siblings.removeIf(sibling -> sibling.getId() == deck.getId());
+        children.put(parentKey, Collections.unmodifiableList(siblings));
+    }
+
+    private static int indexOf(List<Deck> decks, int id) {
+        for (int i = 0; i < decks.size(); i++) {
+            if (decks.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int parentKey(Integer parentId) {
+        return parentId == null ? ROOT_KEY : parentId;
+    }
+
+    /**
+     * Klucz rodzica, pod którym deck wisi w indeksie - najwyższy poziom, jeśli rodzica nie ma w indeksie.
+     */
+    private static int parentKey(Deck deck, Map<Integer, Deck> byId) {
+        Integer parentId = deck.getParentId();
+        return parentId == null || !byId.containsKey(parentId) ? ROOT_KEY : parentId;
+    }
+}
\ No newline at end of file
@@ -1,102 +1,238 @@
-package com.example.learnit;
-
-import javafx.scene.control.TreeItem;
-import javafx.scene.control.TreeView;
-
-import java.util.*;
-
-public class DeckManager {
-    private final DatabaseManager databaseManager;
-    private TreeView<String> deckTree;
-    private TreeItem<String> rootNode;
-
-    public DeckManager(DatabaseManager databaseManager) {
-        this.databaseManager = databaseManager;
-
-        // inicjalizacja drzewa deckow
-        initializeTreeView();
-    }
-
-    public TreeView<String> getDeckTree() {
-        // zwraca drzewo deckow
-        return deckTree;
-    }
-
-    public void loadDeckHierarchy() {
-        // upewnij sie, ze rootNode jest zainicjalizowany
-        if (rootNode == null) {
-            rootNode = new TreeItem<>("Root");
-            deckTree.setRoot(rootNode);
-            rootNode.setExpanded(true);
-        }
-
-        // czyszczenie istniejących węzłów w drzewie
-        rootNode.getChildren().clear();
-
-        // pobranie hierarchii deckow z bazy danych
-        List<Deck> decks = databaseManager.getDeckHierarchy();
-        Map<Integer, TreeItem<String>> deckMap = new HashMap<>();
-
-        // budowanie drzewa na podstawie hierarchii deckow
-        for (Deck deck : decks) {
-            TreeItem<String> treeItem = new TreeItem<>(deck.getName());
-            deckMap.put(deck.getId(), treeItem);
-
-            if (deck.getParentId() == null) {
-                // jesli deck nie ma rodzica, dodaj do rootNode
-                rootNode.getChildren().add(treeItem);
-            } else {
-                // jesli deck ma rodzica, znajdz go w mapie i dodaj jako dziecko
-                TreeItem<String> parentItem = deckMap.get(deck.getParentId());
-                if (parentItem != null) {
-                    parentItem.getChildren().add(treeItem);
-                } else {
-                    System.out.println("Parent not found for: " + deck.getName());
-                }
-            }
-        }
-    }
-
-    private void initializeTreeView() {
-        // inicjalizacja drzewa z rootNode
-        rootNode = new TreeItem<>("Root");
-        rootNode.setExpanded(true);
-        deckTree = new TreeView<>(rootNode);
-
-        // ukrycie glownego wezla root (opcja kosmetyczna)
-        deckTree.setShowRoot(false);
-    }
-
-    public void addDeck(String name, Integer parentId) {
-        // dodanie nowego decku do bazy i odswiezenie hierarchii
-        databaseManager.addDeck(name, parentId);
-        loadDeckHierarchy();
-    }
-
-    public void deleteDeck(String name) {
-        // usuniecie decku na podstawie nazwy i odswiezenie hierarchii
-        Deck deck = findDeckByName(name);
-        if (deck != null) {
-            databaseManager.deleteDeck(deck.getId());
-            loadDeckHierarchy();
-        }
-    }
-
-    public void editDeck(String currentName, String newName) {
-        // edycja nazwy decku i odswiezenie hierarchii
-        Deck deck = findDeckByName(currentName);
-        if (deck != null) {
-            databaseManager.updateDeck(deck.getId(), newName);
-            loadDeckHierarchy();
-        }
-    }
-
-    private Deck findDeckByName(String name) {
-        // wyszukaj deck na podstawie nazwy
-        List<Deck> decks = databaseManager.getDeckHierarchy();
-        return decks.stream()
-                .filter(deck -> deck.getName().equals(name))
-                .findFirst()
-                .orElse(null);
-    }
-}
+package com.example.learnit;
+
+import javafx.collections.ObservableList;
+import javafx.event.Event;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeView;
+
+import java.util.*;
+
+public class DeckManager {
+    private final DatabaseManager databaseManager;
+    // utworzone dotad wezly drzewa; dzieci powstaja dopiero przy rozwinieciu rodzica
+    private final Map<Integer, DeckTreeItem> itemsById = new HashMap<>();
+    private TreeView<Integer> deckTree;
+    private DeckTreeItem rootNode;
+
+    public DeckManager(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+
+        // inicjalizacja modelu drzewa; sam widok powstaje przy pierwszym getDeckTree()
+        rootNode = new DeckTreeItem(0);
+        rootNode.setExpanded(true);
+    }
+
+    public TreeView<Integer> getDeckTree() {
+        // zwraca drzewo deckow
+        if (deckTree == null) {
+            initializeTreeView();
+        }
+        return deckTree;
+    }
+
+    /**
+     * Niewidoczny korzeń drzewa decków. Model drzewa nie wymaga uruchomionego JavaFX,
+     * w przeciwieństwie do widoku z {@link #getDeckTree()}.
+     */
+    public TreeItem<Integer> getRootItem() {
+        return rootNode;
+    }
+
+    public void loadDeckHierarchy() {
+        // pelna przebudowa - potrzebna tylko po zmianach spoza tego okna (np. przeladowanie cache)
+        itemsById.clear();
+        rootNode = new DeckTreeItem(0);
+        rootNode.setExpanded(true);
+        if (deckTree != null) {
+            deckTree.setRoot(rootNode);
+        }
+    }
+
+    private void initializeTreeView() {
+        // inicjalizacja drzewa z rootNode
+        deckTree = new TreeView<>(rootNode);
+
+        // ukrycie glownego wezla root (opcja kosmetyczna)
+        deckTree.setShowRoot(false);
+
+        // wiersze rysuje komorka na podstawie ID decku, bez grafiki w kazdym TreeItem
+        deckTree.setCellFactory(view -> new DeckTreeCell(databaseManager));
+    }
+
+    public Deck addDeck(String name, Integer parentId) {
+        // dodanie nowego decku do bazy i dopiecie tylko jego wezla
+        Deck deck = databaseManager.addDeck(name, parentId);
+        if (deck != null) {
+            onDeckAdded(deck);
+        }
+        return deck;
+    }
+
+    public boolean deleteDeck(int deckId) {
+        // usuniecie decku (razem z poddeckami) i odpiecie jego wezla - tylko gdy baza je usunela
+        Deck deck = databaseManager.getDeck(deckId);
+        if (deck == null) {
+            return false;
+        }
+        List<Integer> removedIds = databaseManager.getDeckIndex().getSubtreeIds(deckId);
+        if (!databaseManager.deleteDeck(deckId)) {
+            return false;
+        }
+        onDecksRemoved(deck.getParentId(), removedIds);
+        return true;
+    }
+
+    public boolean editDeck(int deckId, String newName) {
+        // edycja nazwy decku - odswiezamy tylko jego wiersz
+        if (databaseManager.getDeck(deckId) == null || !databaseManager.updateDeck(deckId, newName)) {
+            return false;
+        }
+        refreshDeck(deckId);
+        return true;
+    }
+
+    public Deck getSelectedDeck() {
+        // deck zaznaczony w drzewie albo null
+        if (deckTree == null) {
+            return null;
+        }
+        TreeItem<Integer> selectedItem = deckTree.getSelectionModel().getSelectedItem();
+        return selectedItem == null ? null : databaseManager.getDeck(selectedItem.getValue());
+    }
+
+    public void onDeckAdded(Deck deck) {
+        // jesli dzieci rodzica nie byly jeszcze rozwijane, powstana przy rozwinieciu
+        DeckTreeItem parentItem = itemFor(deck.getParentId());
+        if (parentItem == null) {
+            return;
+        }
+        if (parentItem.childrenLoaded) {
+            parentItem.getChildren().add(new DeckTreeItem(deck.getId()));
+        } else {
+            // rodzic mogl byc lisciem - odswiez strzalke rozwijania
+            refreshItem(parentItem);
+        }
+    }
+
+    public void onDecksRemoved(Integer parentId, Collection<Integer> removedIds) {
+        for (int removedId : removedIds) {
+            DeckTreeItem item = itemsById.remove(removedId);
+            if (item != null && item.getParent() != null && !removedIds.contains(item.getParent().getValue())) {
+                item.getParent().getChildren().remove(item);
+            }
+        }
+        DeckTreeItem parentItem = itemFor(parentId);
+        if (parentItem != null) {
+            refreshItem(parentItem);
+        }
+        if (parentId != null) {
+            // zmienila sie suma fiszek wszystkich przodkow
+            refreshAncestors(parentId);
+        }
+    }
+
+    public void onDeckSaved(Deck deck) {
+        // zmiana juz naniesiona na cache (np. z innej instancji): nowy deck, nowa nazwa albo nowy rodzic
+        DeckTreeItem item = itemsById.get(deck.getId());
+        if (item == null) {
+            onDeckAdded(deck);
+            return;
+        }
+        TreeItem<Integer> parentItem = item.getParent();
+        Integer shownParentId = parentItem == null || parentItem.getValue() == 0 ? null : parentItem.getValue();
+        if (Objects.equals(shownParentId, deck.getParentId())) {
+            refreshItem(item);
+            return;
+        }
+        // przeniesienie: zamiast przepinac wezel budujemy go od nowa pod nowym rodzicem
+        List<Integer> movedIds = new ArrayList<>();
+        collectShownSubtree(item, movedIds);
+        onDecksRemoved(shownParentId, movedIds);
+        onDeckAdded(deck);
+        refreshAncestors(deck.getId());
+    }
+
+    private void collectShownSubtree(DeckTreeItem item, List<Integer> target) {
+        target.add(item.getValue());
+        if (item.childrenLoaded) {
+            for (TreeItem<Integer> child : item.getChildren()) {
+                collectShownSubtree((DeckTreeItem) child, target);
+            }
+        }
+    }
+
+    public void onDeckDeleted(int deckId, Integer parentId) {
+        // cache juz nie zna poddrzewa, wiec usuwamy to, co zostalo pokazane w drzewie
+        DeckTreeItem item = itemsById.get(deckId);
+        List<Integer> removedIds = new ArrayList<>();
+        if (item != null) {
+            collectShownSubtree(item, removedIds);
+        }
+        onDecksRemoved(parentId, removedIds);
+    }
+
+    public void refreshDeck(int deckId) {
+        // ponowne narysowanie wiersza, np. po zmianie nazwy lub liczby fiszek
+        DeckTreeItem item = itemsById.get(deckId);
+        if (item != null) {
+            refreshItem(item);
+        }
+    }
+
+    public void refreshCounts(int deckId) {
+        // liczba fiszek decku wchodzi tez do sum wszystkich jego przodkow
+        refreshDeck(deckId);
+        refreshAncestors(deckId);
+    }
+
+    private void refreshAncestors(int deckId) {
+        for (int ancestorId : databaseManager.getDeckIndex().getAncestorIds(deckId)) {
+            refreshDeck(ancestorId);
+        }
+    }
+
+    private DeckTreeItem itemFor(Integer deckId) {
+        return deckId == null ? rootNode : itemsById.get(deckId);
+    }
+
+    private static void refreshItem(TreeItem<Integer> item) {
+        Event.fireEvent(item, new TreeItem.TreeModificationEvent<>(TreeItem.valueChangedEvent(), item, item.getValue()));
+    }
+
+    /**
+     * Węzeł drzewa przechowujący ID decku (0 dla korzenia). Dzieci są tworzone leniwie
+     * z indeksu decków przy pierwszym odwołaniu, czyli przy rozwinięciu węzła.
+     */
+    private class DeckTreeItem extends TreeItem<Integer> {
+        private boolean childrenLoaded;
+
+        DeckTreeItem(int deckId) {
+            super(deckId);
+            if (deckId != 0) {
+                itemsById.put(deckId, this);
+            }
+        }
+
+        @Override
+        public ObservableList<TreeItem<Integer>> getChildren() {
+            if (!childrenLoaded) {
+                childrenLoaded = true;
+                List<Deck> children = databaseManager.getDeckIndex().getChildren(getValue() == 0 ? null : getValue());
+                List<DeckTreeItem> items = new ArrayList<>(children.size());
+                for (Deck child : children) {
+                    items.add(new DeckTreeItem(child.getId()));
+                }
+                super.getChildren().setAll(items);
+            }
+            return super.getChildren();
+        }
+
+        @Override
+        public boolean isLeaf() {
+            if (childrenLoaded) {
+                return super.getChildren().isEmpty();
+            }
+            return databaseManager.getDeckIndex().getChildren(getValue() == 0 ? null : getValue()).isEmpty();
+        }
+    }
+}
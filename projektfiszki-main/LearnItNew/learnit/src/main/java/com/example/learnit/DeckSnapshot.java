@@ -0,0 +1,237 @@
+package com.example.learnit;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Zapisany na dysku stan cache decków i liczników fiszek razem z pozycją w dzienniku zmian,
+ * do której jest aktualny. Przy następnym uruchomieniu cache wczytuje się z pliku zamiast z bazy,
+ * a z bazy doczytywane są tylko wpisy dziennika późniejsze niż zapisana pozycja.
+ * <p>
+ * Plik jest odczytywany w całości do bufora na stercie i zapisywany z takiego bufora przez kanał,
+ * bez mapowania do pamięci - na Windows zmapowanego pliku nie da się podmienić ani usunąć, dopóki
+ * GC nie zwolni mapowania. Układ: "LIXS", bajt wersji, wersja schematu bazy (int), klucz bazy
+ * (długość w bajtach i UTF-8), kursor i dolna granica dziennika (long), liczba i ID wpisów dziennika już naniesionych w oknie wstecz (int, long...),
+ * liczba decków i rekordy decków (ID, ID rodzica albo 0, nazwa), liczba i pary (ID decku, liczba
+ * fiszek), na końcu CRC32 wszystkich wcześniejszych bajtów. Decki zapisane są tak, że każdy
+ * rodzic stoi przed dziećmi, a dzieci w kolejności drzewa.
+ */
+public final class DeckSnapshot {
+    static final byte[] MAGIC = {'L', 'I', 'X', 'S'};
+    static final byte FORMAT_VERSION = 1;
+
+    private final String databaseKey;
+    private final int schemaVersion;
+    private final long changeCursor;
+    private final long changeFloor;
+    private final List<Long> appliedChangeIds;
+    private final List<Deck> decks;
+    private final Map<Integer, Integer> flashcardCounts;
+
+    public DeckSnapshot(String databaseKey, int schemaVersion, long changeCursor, long changeFloor,
+                        List<Long> appliedChangeIds, List<Deck> decks, Map<Integer, Integer> flashcardCounts) {
+        this.databaseKey = databaseKey;
+        this.schemaVersion = schemaVersion;
+        this.changeCursor = changeCursor;
+        this.changeFloor = changeFloor;
+        this.appliedChangeIds = appliedChangeIds;
+        this.decks = decks;
+        this.flashcardCounts = flashcardCounts;
+    }
+
+    /**
+     * Decki z indeksu w kolejności drzewa - {@link DeckIndex#of} odtworzy z nich tę samą kolejność dzieci.
+     */
+    static List<Deck> inTreeOrder(DeckIndex index) {
+        List<Deck> decks = new ArrayList<>(index.size());
+        for (Deck root : index.getChildren(null)) {
+            for (int id : index.getSubtreeIds(root.getId())) {
+                decks.add(index.get(id));
+            }
+        }
+        return decks;
+    }
+
+    public String getDatabaseKey() {
+        return databaseKey;
+    }
+
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    public long getChangeCursor() {
+        return changeCursor;
+    }
+
+    public long getChangeFloor() {
+        return changeFloor;
+    }
+
+    public List<Long> getAppliedChangeIds() {
+        return appliedChangeIds;
+    }
+
+    public List<Deck> getDecks() {
+        return decks;
+    }
+
+    public Map<Integer, Integer> getFlashcardCounts() {
+        return flashcardCounts;
+    }
+
+    /**
+     * Zapisuje migawkę do pliku tymczasowego i podmienia nim poprzedni plik, więc przerwany zapis
+     * zostawia starą, nadal poprawną migawkę.
+     */
+    public void write(Path file) throws IOException {
+        byte[] key = databaseKey.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> names = new ArrayList<>(decks.size());
+        long size = MAGIC.length + 1 + 4 + 4 + key.length + 8 + 8 + 4 + 8L * appliedChangeIds.size() + 4;
+        for (Deck deck : decks) {
+            byte[] name = deck.getName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            size += 4 + 4 + 4 + name.length;
+        }
+        size += 4 + 8L * flashcardCounts.size() + 4;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Deck snapshot too large: " + size + " bytes");
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            buffer.put(MAGIC).put(FORMAT_VERSION).putInt(schemaVersion);
+            buffer.putInt(key.length).put(key);
+            buffer.putLong(changeCursor).putLong(changeFloor);
+            buffer.putInt(appliedChangeIds.size());
+            for (long id : appliedChangeIds) {
+                buffer.putLong(id);
+            }
+            buffer.putInt(decks.size());
+            for (int i = 0; i < decks.size(); i++) {
+                Deck deck = decks.get(i);
+                byte[] name = names.get(i);
+                buffer.putInt(deck.getId()).putInt(deck.getParentId() == null ? 0 : deck.getParentId());
+                buffer.putInt(name.length).put(name);
+            }
+            buffer.putInt(flashcardCounts.size());
+            for (Map.Entry<Integer, Integer> count : flashcardCounts.entrySet()) {
+                buffer.putInt(count.getKey()).putInt(count.getValue());
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().flip());
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                // system plikow bez atomowej podmiany
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @return migawka albo null, gdy pliku nie ma
+     * @throws IOException gdy pliku nie da się odczytać albo jest uszkodzony (zła suma kontrolna, obcięty)
+     */
+    public static DeckSnapshot read(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Deck snapshot is corrupt: " + file);
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            if (buffer.limit() < MAGIC.length + 1 + 4) {
+                throw new IOException("Deck snapshot is truncated: " + file);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, buffer.limit() - 4));
+            if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+                throw new IOException("Deck snapshot checksum mismatch: " + file);
+            }
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            byte version = buffer.get();
+            if (!Arrays.equals(magic, MAGIC) || version != FORMAT_VERSION) {
+                throw new IOException("Unsupported deck snapshot format: " + file);
+            }
+            int schemaVersion = buffer.getInt();
+            String databaseKey = readText(buffer);
+            long changeCursor = buffer.getLong();
+            long changeFloor = buffer.getLong();
+            int appliedCount = checkedCount(buffer, buffer.getInt(), 8);
+            List<Long> appliedChangeIds = new ArrayList<>(appliedCount);
+            for (int i = 0; i < appliedCount; i++) {
+                appliedChangeIds.add(buffer.getLong());
+            }
+            int deckCount = checkedCount(buffer, buffer.getInt(), 12);
+            List<Deck> decks = new ArrayList<>(deckCount);
+            for (int i = 0; i < deckCount; i++) {
+                int id = buffer.getInt();
+                int parentId = buffer.getInt();
+                decks.add(new Deck(id, readText(buffer), parentId == 0 ? null : parentId));
+            }
+            int countEntries = checkedCount(buffer, buffer.getInt(), 8);
+            Map<Integer, Integer> flashcardCounts = new HashMap<>(countEntries * 2);
+            for (int i = 0; i < countEntries; i++) {
+                flashcardCounts.put(buffer.getInt(), buffer.getInt());
+            }
+            return new DeckSnapshot(databaseKey, schemaVersion, changeCursor, changeFloor,
+                    appliedChangeIds, decks, flashcardCounts);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Deck snapshot is corrupt: " + file, e);
+        }
+    }
+
+    private static String readText(ByteBuffer buffer) {
+        int length = checkedCount(buffer, buffer.getInt(), 1);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int checkedCount(ByteBuffer buffer, int count, int minBytesEach) {
+        if (count < 0 || (long) count * minBytesEach > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid record count: " + count);
+        }
+        return count;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.example.learnit;
+
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.TreeCell;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+
+/**
+ * Komórka drzewa decków: nazwa i liczba fiszek, a w nawiasie liczba fiszek całego poddrzewa,
+ * jeśli poddecki też mają fiszki. Węzły graficzne tworzone są raz na komórkę,
+ * a TreeView recyklinguje komórki, więc ich liczba zależy od wysokości okna, nie od liczby decków.
+ */
+public class DeckTreeCell extends TreeCell<Integer> {
+    private final DatabaseManager databaseManager;
+    private final HBox deckBox;
+    private final Label nameLabel;
+    private final Label countLabel;
+
+    public DeckTreeCell(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+        nameLabel = new Label();
+        countLabel = new Label();
+        HBox.setHgrow(nameLabel, Priority.ALWAYS);
+        nameLabel.setMaxWidth(Double.MAX_VALUE);
+        deckBox = new HBox(10, nameLabel, countLabel);
+        deckBox.setAlignment(Pos.CENTER_LEFT);
+    }
+
+    @Override
+    protected void updateItem(Integer deckId, boolean empty) {
+        super.updateItem(deckId, empty);
+        setText(null);
+        Deck deck = empty || deckId == null ? null : databaseManager.getDeck(deckId);
+        if (deck == null) {
+            setGraphic(null);
+            return;
+        }
+        nameLabel.setText(deck.getName());
+        int count = databaseManager.getFlashcardCount(deckId);
+        int subtreeCount = databaseManager.getSubtreeFlashcardCount(deckId);
+        // deck z poddeckami pokazuje tez liczbe fiszek calego poddrzewa
+        countLabel.setText(subtreeCount == count ? Integer.toString(count) : count + " (" + subtreeCount + ")");
+        setGraphic(deckBox);
+    }
+}
\ No newline at end of file
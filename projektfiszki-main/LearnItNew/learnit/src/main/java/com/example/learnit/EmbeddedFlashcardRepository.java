@@ -0,0 +1,75 @@
+package com.example.learnit;
+
+import java.util.List;
+
+/**
+ * Repozytorium we wbudowanej bazie H2 zapisanej w jednym pliku, działającej w procesie aplikacji.
+ * Nie wymaga serwera, a odczyty nie przechodzą przez sieć. Baza jest otwierana w trybie
+ * zgodności z MySQL, więc zapytania są wspólne z {@link MySqlFlashcardRepository}.
+ */
+public class EmbeddedFlashcardRepository extends JdbcFlashcardRepository {
+    public static final String URL_PREFIX = "jdbc:h2:";
+    // tryb MySQL dla wspolnego SQL, male litery w metadanych, 64 MB cache stron
+    public static final String URL_OPTIONS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CACHE_SIZE=65536";
+
+    public EmbeddedFlashcardRepository(DatabaseConfig config) {
+        super(config);
+    }
+
+    @Override
+    protected List<String> schemaStatements() {
+        String createDecksTableSQL = """
+                CREATE TABLE IF NOT EXISTS decks (
+                    id INT AUTO_INCREMENT PRIMARY KEY,
+                    name VARCHAR(255) NOT NULL,
+                    parent_id INT DEFAULT NULL,
+                    UNIQUE (name, parent_id),
+                    FOREIGN KEY (parent_id) REFERENCES decks(id) ON DELETE CASCADE
+                );
+                """;
+
+        // VARCHAR bez limitu trzymany jest w wierszu, w przeciwienstwie do CLOB, na ktory H2 mapuje TEXT
+        String createFlashcardsTableSQL = """
+                CREATE TABLE IF NOT EXISTS flashcards (
+                    id INT AUTO_INCREMENT PRIMARY KEY,
+                    deck_id INT NOT NULL,
+                    front VARCHAR NOT NULL,
+                    back VARCHAR NOT NULL,
+                    FOREIGN KEY (deck_id) REFERENCES decks(id) ON DELETE CASCADE
+                );
+                """;
+
+        String createIndexSQL = "CREATE INDEX IF NOT EXISTS idx_flashcards_deck_id_id ON flashcards (deck_id, id)";
+
+        String createScheduleTableSQL = """
+                CREATE TABLE IF NOT EXISTS card_schedule (
+                    flashcard_id INT PRIMARY KEY,
+                    deck_id INT NOT NULL,
+                    repetitions INT NOT NULL,
+                    interval_days INT NOT NULL,
+                    ease_factor DOUBLE NOT NULL,
+                    due_at BIGINT NOT NULL,
+                    FOREIGN KEY (flashcard_id) REFERENCES flashcards(id) ON DELETE CASCADE
+                );
+                """;
+
+        String createScheduleIndexSQL = "CREATE INDEX IF NOT EXISTS idx_card_schedule_deck_due ON card_schedule (deck_id, due_at, flashcard_id)";
+
+        // dziennik zmian dla innych instancji korzystajacych z tej samej bazy
+        String createChangeLogTableSQL = """
+                CREATE TABLE IF NOT EXISTS change_log (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    origin VARCHAR(36) NOT NULL,
+                    change_type VARCHAR(16) NOT NULL,
+                    deck_id INT NOT NULL,
+                    parent_id INT DEFAULT NULL,
+                    name VARCHAR(255) DEFAULT NULL,
+                    count_delta INT NOT NULL DEFAULT 0,
+                    created_at BIGINT NOT NULL
+                );
+                """;
+
+        return List.of(createDecksTableSQL, createFlashcardsTableSQL, createIndexSQL, createScheduleTableSQL, createScheduleIndexSQL,
+                createChangeLogTableSQL);
+    }
+}
\ No newline at end of file
@@ -1,19 +1,32 @@
-package com.example.learnit;
-
-public class Flashcard {
-    private String front;
-    private String back;
-
-    public Flashcard(String front, String back) {
-        this.front = front;
-        this.back = back;
-    }
-
-    public String getFront() {
-        return front;
-    }
-
-    public String getBack() {
-        return back;
-    }
-}
+package com.example.learnit;
+
+public class Flashcard {
+    private int id;
+    private String front;
+    private String back;
+
+    public Flashcard(String front, String back) {
+        this(0, front, back);
+    }
+
+    public Flashcard(int id, String front, String back) {
+        this.id = id;
+        this.front = front;
+        this.back = back;
+    }
+
+    /**
+     * ID fiszki w bazie; 0 dla fiszki, która nie została jeszcze zapisana.
+     */
+    public int getId() {
+        return id;
+    }
+
+    public String getFront() {
+        return front;
+    }
+
+    public String getBack() {
+        return back;
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.learnit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Zapis eksportowanych fiszek do pliku przez kanał NIO z jednym buforem o stałym rozmiarze:
+ * teksty są kodowane do UTF-8 prosto w bufor, bez pośrednich tablic, a pełny bufor idzie
+ * na dysk (opcjonalnie przez kompresję gzip). Pamięć eksportu nie zależy więc od liczby fiszek.
+ * <p>
+ * Eksport trafia najpierw do pliku tymczasowego obok docelowego. Dopiero {@link #finish()} dopisuje
+ * rekord końcowy i podmienia plik docelowy; {@link #close()} bez finish() (np. po błędzie w trakcie
+ * eksportu) usuwa plik tymczasowy, a wcześniejsza zawartość pliku docelowego zostaje nietknięta.
+ * <p>
+ * Formaty:
+ * <ul>
+ * <li>CSV - "przód,tył" w wierszu, cudzysłowy według RFC 4180, końce wierszy CRLF; plik da się
+ * zaimportować z powrotem ({@link CsvFlashcardReader}), ale podział na decki przepada.</li>
+ * <li>BINARY - zachowuje drzewo decków. Po nagłówku "LIXP" i bajcie wersji następują rekordy:
+ * 'D' (ID decku, ID rodzica albo 0 dla korzenia eksportu, nazwa), 'F' (ID fiszki, przód, tył)
+ * i na końcu 'E' (liczba decków, liczba fiszek). Liczby to int/long big-endian, teksty to długość
+ * w bajtach (int) i UTF-8; fiszki należą do ostatniego rekordu 'D' przed nimi.</li>
+ * </ul>
+ */
+public class FlashcardExporter implements FlashcardRowHandler, AutoCloseable {
+    public enum Format {
+        CSV,
+        BINARY
+    }
+
+    static final byte[] BINARY_MAGIC = {'L', 'I', 'X', 'P'};
+    static final byte BINARY_VERSION = 1;
+    static final byte DECK_RECORD = 'D';
+    static final byte FLASHCARD_RECORD = 'F';
+    static final byte END_RECORD = 'E';
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Format format;
+    private final Path file;
+    private final Path temporary;
+    private final FileChannel fileChannel;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private Integer exportRootId;
+    private long deckCount;
+    private long flashcardCount;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * @param compress czy kompresować plik gzipem (zwykle z rozszerzeniem .gz)
+     */
+    public FlashcardExporter(Path file, Format format, boolean compress) throws IOException {
+        this.format = format;
+        this.file = file;
+        this.temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        this.fileChannel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            if (compress) {
+                // bez bufora bezposredniego - strumien gzip i tak kopiuje bajty do tablicy
+                this.channel = Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(fileChannel), BUFFER_SIZE));
+                this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            } else {
+                this.channel = fileChannel;
+                this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            }
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        if (format == Format.BINARY) {
+            buffer.put(BINARY_MAGIC).put(BINARY_VERSION);
+        }
+    }
+
+    /**
+     * Eksporter z formatem wybranym po rozszerzeniu: .lix (albo .lix.gz) to BINARY, inne CSV,
+     * a końcówka .gz włącza kompresję.
+     */
+    public static FlashcardExporter forFile(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase();
+        Format format = name.endsWith(".lix") || name.endsWith(".lix.gz") ? Format.BINARY : Format.CSV;
+        return new FlashcardExporter(file, format, name.endsWith(".gz"));
+    }
+
+    /**
+     * Rozpoczyna deck: kolejne fiszki należą do niego. Pierwszy deck jest korzeniem eksportu.
+     */
+    public void beginDeck(Deck deck) throws IOException {
+        if (exportRootId == null) {
+            exportRootId = deck.getId();
+        }
+        deckCount++;
+        if (format == Format.BINARY) {
+            ensureRemaining(9);
+            buffer.put(DECK_RECORD).putInt(deck.getId())
+                    .putInt(deck.getId() == exportRootId || deck.getParentId() == null ? 0 : deck.getParentId());
+            writeSizedText(deck.getName());
+        }
+    }
+
+    @Override
+    public void onRow(int id, String front, String back) throws IOException {
+        flashcardCount++;
+        if (format == Format.BINARY) {
+            ensureRemaining(5);
+            buffer.put(FLASHCARD_RECORD).putInt(id);
+            writeSizedText(front);
+            writeSizedText(back);
+        } else {
+            writeCsvField(front);
+            ensureRemaining(1);
+            buffer.put((byte) ',');
+            writeCsvField(back);
+            ensureRemaining(2);
+            buffer.put((byte) '\r').put((byte) '\n');
+        }
+    }
+
+    public long getDeckCount() {
+        return deckCount;
+    }
+
+    public long getFlashcardCount() {
+        return flashcardCount;
+    }
+
+    /**
+     * Kończy eksport: zapisuje rekord końcowy i resztę bufora, zamyka plik i przenosi go
+     * w miejsce docelowego. Bez wywołania finish plik docelowy nie powstaje.
+     */
+    public void finish() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Exporter is already closed");
+        }
+        try {
+            if (format == Format.BINARY) {
+                ensureRemaining(13);
+                buffer.put(END_RECORD).putInt((int) deckCount).putLong(flashcardCount);
+            }
+            flush();
+            // zamyka tez strumien gzip, ktory dopisuje stopke
+            channel.close();
+            fileChannel.close();
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                // system plikow bez atomowej podmiany
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            finished = true;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Zamyka plik; jeśli eksport nie został zakończony przez {@link #finish()}, porzuca go
+     * razem z plikiem tymczasowym.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (finished) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // porzucany plik i tak jest kasowany
+        } finally {
+            fileChannel.close();
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void writeCsvField(String text) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writeText(text, 0, text.length());
+            return;
+        }
+        ensureRemaining(1);
+        buffer.put((byte) '"');
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                // cudzyslow wewnatrz pola zapisujemy podwojnie
+                writeText(text, start, i + 1);
+                start = i;
+            }
+        }
+        writeText(text, start, text.length());
+        ensureRemaining(1);
+        buffer.put((byte) '"');
+    }
+
+    private void writeSizedText(String text) throws IOException {
+        ensureRemaining(4);
+        buffer.putInt(utf8Length(text));
+        writeText(text, 0, text.length());
+    }
+
+    private void writeText(String text, int start, int end) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text, start, end);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                flush();
+            } else {
+                break;
+            }
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            flush();
+        }
+    }
+
+    /**
+     * Liczba bajtów tekstu w UTF-8, zgodna z koderem (niesparowany surogat staje się '?').
+     */
+    static int utf8Length(String text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,432 @@
+package com.example.learnit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Zapis odroczony (write-behind) pojedynczo dodawanych fiszek. Fiszka trafia najpierw do
+ * dziennika na dysku (dopisanie + fsync) i do pamięci, a licznik decku rośnie od razu; do bazy
+ * dziennik wysyła fiszki paczkami - po przekroczeniu progu, co zadany czas i przy zamknięciu.
+ * <p>
+ * Dziennik składa się z segmentów: bieżącego, do którego się dopisuje, i zamkniętych, które
+ * czekają na zapis do bazy. Segment jest usuwany dopiero po udanym zapisie, a segmenty pozostałe
+ * po awarii są wczytywane i zapisywane przy następnym uruchomieniu, więc nic nie ginie;
+ * wpis urwany przez awarię w trakcie dopisywania (bez końca linii) trafia do rejected.log.
+ * Fiszki każdego decku z segmentu trafiają do bazy w jednej transakcji razem z kluczem
+ * (nazwa segmentu, deck), więc powtórka segmentu po awarii pomija to, co już zostało zapisane.
+ * Wiersze odrzucone przez bazę (np. za długi tekst) trafiają do pliku rejected.log w katalogu
+ * dziennika i nie wstrzymują kolejnych segmentów; ponawiany jest tylko zapis przy niedostępnej bazie.
+ */
+public class FlashcardJournal implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String QUARANTINE_FILE = "rejected.log";
+
+    private final DatabaseManager databaseManager;
+    private final Path directory;
+    private final int flushThreshold;
+    private final ScheduledExecutorService flusher;
+    private final List<Consumer<Set<Integer>>> flushListeners = new CopyOnWriteArrayList<>();
+    // w nazwach segmentow tego uruchomienia - klucz paczki w bazie nie powtorzy sie, nawet gdy numeracja zacznie sie od nowa
+    private final String runId = UUID.randomUUID().toString();
+    // zamkniete segmenty w kolejnosci powstania; dostep tylko z watku flushera (i przy starcie/zamknieciu)
+    private final ArrayDeque<Segment> sealedSegments = new ArrayDeque<>();
+    private Segment activeSegment;
+    private FileChannel activeChannel;
+    private long nextSegmentNumber;
+    private boolean closed;
+
+    public FlashcardJournal(DatabaseManager databaseManager, Path directory, int flushThreshold, long flushIntervalMillis) {
+        if (flushThreshold <= 0 || flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Invalid journal settings: flushThreshold=" + flushThreshold
+                    + ", flushIntervalMillis=" + flushIntervalMillis);
+        }
+        this.databaseManager = databaseManager;
+        this.directory = directory;
+        this.flushThreshold = flushThreshold;
+        try {
+            Files.createDirectories(directory);
+            recover();
+            openActiveSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open flashcard journal in " + directory, e);
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "learnit-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushInBackground, 0, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Dopisuje fiszkę do dziennika. Po powrocie fiszka jest trwale zapisana na dysku,
+     * ale do bazy trafi dopiero przy najbliższym opróżnieniu dziennika.
+     */
+    public void append(int deckId, String front, String back) {
+        boolean thresholdReached;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Flashcard journal is closed");
+            }
+            Entry entry = new Entry(deckId, new Flashcard(front, back));
+            try {
+                ByteBuffer record = StandardCharsets.UTF_8.encode(entry.toRecord());
+                while (record.hasRemaining()) {
+                    activeChannel.write(record);
+                }
+                activeChannel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write to flashcard journal", e);
+            }
+            activeSegment.entries.add(entry);
+            thresholdReached = activeSegment.entries.size() >= flushThreshold;
+        }
+        databaseManager.adjustPendingFlashcardCount(deckId, 1);
+        if (thresholdReached) {
+            try {
+                flusher.execute(this::flushInBackground);
+            } catch (RejectedExecutionException ignored) {
+                // dziennik jest zamykany - close() sam go oprozni
+            }
+        }
+    }
+
+    /**
+     * Liczba fiszek, które czekają na zapis do bazy.
+     */
+    public synchronized int getPendingCount() {
+        int pending = activeSegment.entries.size();
+        for (Segment segment : sealedSegments) {
+            pending += segment.entries.size();
+        }
+        return pending;
+    }
+
+    /**
+     * Listener dostaje ID decków, do których właśnie zapisano fiszki; wywoływany z wątku dziennika.
+     */
+    public void addFlushListener(Consumer<Set<Integer>> listener) {
+        flushListeners.add(listener);
+    }
+
+    /**
+     * Zatrzymuje zapis w tle i synchronicznie opróżnia dziennik.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (this) {
+            closed = true;
+            closeActiveChannel();
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // wyjatek anulowalby kolejne zaplanowane zrzuty
+            e.printStackTrace();
+        }
+    }
+
+    private void flush() {
+        synchronized (this) {
+            if (!activeSegment.entries.isEmpty()) {
+                Segment sealed = activeSegment;
+                FileChannel sealedChannel = activeChannel;
+                try {
+                    // nowy segment przed zamknieciem starego - gdy sie nie uda, dopisujemy dalej do biezacego
+                    openActiveSegment();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot open flashcard journal segment", e);
+                }
+                closeChannel(sealed, sealedChannel);
+                sealedSegments.addLast(sealed);
+            }
+        }
+        if (!databaseManager.isLoaded()) {
+            // przed wczytaniem decków nie da się sprawdzić, czy deck fiszek istnieje - segmenty czekają na dysku
+            return;
+        }
+        Set<Integer> flushedDecks = new LinkedHashSet<>();
+        Segment segment;
+        while ((segment = peekSealed()) != null) {
+            if (!writeToDatabase(segment, flushedDecks)) {
+                // baza niedostepna - segment zostaje na dysku i wroci przy nastepnej probie
+                break;
+            }
+            try {
+                Files.deleteIfExists(segment.file);
+                // klucze dopiero po skasowaniu pliku - awaria pomiedzy zostawi tylko zbedne klucze
+                databaseManager.deleteJournalKeys(segment.key());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            synchronized (this) {
+                sealedSegments.pollFirst();
+            }
+        }
+        if (!flushedDecks.isEmpty()) {
+            for (Consumer<Set<Integer>> listener : flushListeners) {
+                listener.accept(flushedDecks);
+            }
+        }
+    }
+
+    private synchronized Segment peekSealed() {
+        return sealedSegments.peekFirst();
+    }
+
+    /**
+     * @return false, jeśli baza jest niedostępna i segment trzeba powtórzyć
+     */
+    private boolean writeToDatabase(Segment segment, Set<Integer> flushedDecks) {
+        Map<Integer, List<Flashcard>> byDeck = new LinkedHashMap<>();
+        for (Entry entry : segment.entries) {
+            byDeck.computeIfAbsent(entry.deckId, id -> new ArrayList<>()).add(entry.flashcard);
+        }
+        for (Map.Entry<Integer, List<Flashcard>> deckEntries : byDeck.entrySet()) {
+            if (segment.writtenDecks.contains(deckEntries.getKey())) {
+                continue;
+            }
+            int deckId = deckEntries.getKey();
+            List<Flashcard> flashcards = deckEntries.getValue();
+            if (databaseManager.getDeck(deckId) == null) {
+                // deck usunieto, zanim jego fiszki trafily do bazy
+                System.err.println("Dropping " + flashcards.size() + " journaled flashcards of deleted deck " + deckId
+                        + " to " + directory.resolve(QUARANTINE_FILE));
+                for (Flashcard flashcard : flashcards) {
+                    quarantine(deckId, flashcard, "deck deleted");
+                }
+                databaseManager.adjustPendingFlashcardCount(deckId, -flashcards.size());
+                segment.writtenDecks.add(deckId);
+                continue;
+            }
+            Map<Integer, String> rejected;
+            try {
+                rejected = databaseManager.addJournaledFlashcards(segment.key(), deckId, flashcards, FlashcardManager.DEFAULT_BATCH_SIZE);
+            } catch (SQLException e) {
+                System.err.println("Journal flush for deck " + deckId + " failed, will retry: " + e.getMessage());
+                return false;
+            }
+            if (rejected == null) {
+                // paczka zapisana przed awaria - liczniki z bazy juz ja zawieraja
+                System.out.println("Journaled flashcards of deck " + deckId + " from " + segment.file.getFileName() + " already stored");
+                rejected = Map.of();
+            }
+            for (Map.Entry<Integer, String> reject : rejected.entrySet()) {
+                Flashcard flashcard = flashcards.get(reject.getKey());
+                System.err.println("Journaled flashcard rejected by database: " + flashcard.getFront()
+                        + " (" + reject.getValue() + "), moved to " + directory.resolve(QUARANTINE_FILE));
+                quarantine(deckId, flashcard, reject.getValue());
+            }
+            databaseManager.adjustPendingFlashcardCount(deckId, -flashcards.size());
+            segment.writtenDecks.add(deckId);
+            flushedDecks.add(deckId);
+        }
+        return true;
+    }
+
+    /**
+     * Dopisuje fiszkę, której nie da się zapisać do bazy, do rejected.log razem z powodem.
+     */
+    private void quarantine(int deckId, Flashcard flashcard, String reason) {
+        String record = new Entry(deckId, flashcard).toRecord();
+        appendToQuarantine(record.substring(0, record.length() - 1) + "\t" + Entry.escape(String.valueOf(reason)) + "\n");
+    }
+
+    private void appendToQuarantine(String line) {
+        try (FileChannel channel = FileChannel.open(directory.resolve(QUARANTINE_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (var listing = Files.list(directory)) {
+            listing.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .forEach(files::add);
+        }
+        for (Path file : files) {
+            Segment segment = new Segment(file);
+            byte[] content = Files.readAllBytes(file);
+            // wpis jest kompletny dopiero z koncem linii - urwany ogon to dopisywanie przerwane awaria
+            int end = content.length;
+            while (end > 0 && content[end - 1] != '\n') {
+                end--;
+            }
+            if (end < content.length) {
+                String tail = new String(content, end, content.length - end, StandardCharsets.UTF_8);
+                System.err.println("Dropping unterminated record at the end of " + file.getFileName()
+                        + ", moved to " + directory.resolve(QUARANTINE_FILE));
+                appendToQuarantine(tail + "\t" + Entry.escape("unterminated record in " + file.getFileName()) + "\n");
+                // obciety segment nie trafi do kwarantanny drugi raz przy kolejnym odtwarzaniu
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(end);
+                    channel.force(false);
+                }
+            }
+            for (String line : new String(content, 0, end, StandardCharsets.UTF_8).split("\n")) {
+                Entry entry = Entry.fromRecord(line);
+                if (entry != null) {
+                    segment.entries.add(entry);
+                    databaseManager.adjustPendingFlashcardCount(entry.deckId, 1);
+                }
+            }
+            sealedSegments.addLast(segment);
+            nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber(file) + 1);
+        }
+        int recovered = getPendingCountUnlocked();
+        if (recovered > 0) {
+            System.out.println("Recovered " + recovered + " journaled flashcards from " + files.size() + " segment(s)");
+        }
+    }
+
+    private int getPendingCountUnlocked() {
+        int pending = 0;
+        for (Segment segment : sealedSegments) {
+            pending += segment.entries.size();
+        }
+        return pending;
+    }
+
+    private void openActiveSegment() throws IOException {
+        Path file = directory.resolve(String.format("%s%019d-%s%s", SEGMENT_PREFIX, nextSegmentNumber++, runId, SEGMENT_SUFFIX));
+        activeChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeSegment = new Segment(file);
+    }
+
+    private void closeActiveChannel() {
+        closeChannel(activeSegment, activeChannel);
+    }
+
+    private void closeChannel(Segment segment, FileChannel channel) {
+        try {
+            channel.close();
+            if (segment.entries.isEmpty()) {
+                Files.deleteIfExists(segment.file);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static long segmentNumber(Path file) {
+        String key = segmentKey(file);
+        int separator = key.indexOf('-');
+        try {
+            return Long.parseLong(separator < 0 ? key : key.substring(0, separator));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Nazwa segmentu bez przedrostka i rozszerzenia: numer i identyfikator uruchomienia, które go utworzyło.
+     */
+    private static String segmentKey(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+    }
+
+    private static class Segment {
+        private final Path file;
+        private final List<Entry> entries = new ArrayList<>();
+        // decki juz zapisane do bazy - przy ponownej probie po bledzie nie zapisujemy ich drugi raz
+        private final Set<Integer> writtenDecks = new LinkedHashSet<>();
+
+        Segment(Path file) {
+            this.file = file;
+        }
+
+        String key() {
+            return segmentKey(file);
+        }
+    }
+
+    /**
+     * Wpis dziennika; na dysku jeden wiersz "deckId TAB przód TAB tył" z zakodowanymi
+     * ukośnikami, tabulatorami i końcami linii.
+     */
+    private static class Entry {
+        private final int deckId;
+        private final Flashcard flashcard;
+
+        Entry(int deckId, Flashcard flashcard) {
+            this.deckId = deckId;
+            this.flashcard = flashcard;
+        }
+
+        String toRecord() {
+            return deckId + "\t" + escape(flashcard.getFront()) + "\t" + escape(flashcard.getBack()) + "\n";
+        }
+
+        static Entry fromRecord(String line) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length != 3) {
+                return null;
+            }
+            try {
+                return new Entry(Integer.parseInt(fields[0]), new Flashcard(unescape(fields[1]), unescape(fields[2])));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static String escape(String value) {
+            return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+        }
+
+        private static String unescape(String value) {
+            StringBuilder result = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' && i + 1 < value.length()) {
+                    char next = value.charAt(++i);
+                    result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+                } else {
+                    result.append(c);
+                }
+            }
+            return result.toString();
+        }
+    }
+}
\ No newline at end of file
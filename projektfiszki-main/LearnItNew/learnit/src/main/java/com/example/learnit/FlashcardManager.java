@@ -1,27 +1,156 @@
-package com.example.learnit;
-
-public class FlashcardManager {
-    private final DatabaseManager databaseManager;
-
-    // Konstruktor, który przyjmuje instancję DatabaseManager
-    public FlashcardManager(DatabaseManager databaseManager) {
-        this.databaseManager = databaseManager;
-    }
-
-    /**
-     * Dodanie nowej fiszki do bazy danych.
-     * @param deckId ID decku, do którego należy fiszka
-     * @param front Tekst na przedniej stronie fiszki
-     * @param back Tekst na tylnej stronie fiszki
-     */
-    public void addFlashcard(int deckId, String front, String back) {
-        if (deckId <= 0 || front == null || front.isEmpty() || back == null || back.isEmpty()) {
-            System.err.println("Invalid data for flashcard.");
-            return;
-        }
-
-        // Wywołanie metody z DatabaseManager do dodania fiszki
-        databaseManager.addFlashcard(deckId, front.trim(), back.trim());
-        System.out.println("Flashcard added to deck ID " + deckId + ": [Front: " + front + ", Back: " + back + "]");
-    }
-}
+package com.example.learnit;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class FlashcardManager {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_TRANSACTION_SIZE = 5_000;
+    public static final int MAX_REPORTED_REJECTS = 1_000;
+
+    private final DatabaseManager databaseManager;
+    private final FlashcardJournal journal;
+
+    // Konstruktor, który przyjmuje instancję DatabaseManager
+    public FlashcardManager(DatabaseManager databaseManager) {
+        this(databaseManager, null);
+    }
+
+    /**
+     * @param journal dziennik zapisu odroczonego dla {@link #addFlashcard}; null - zapis od razu do bazy
+     */
+    public FlashcardManager(DatabaseManager databaseManager, FlashcardJournal journal) {
+        this.databaseManager = databaseManager;
+        this.journal = journal;
+    }
+
+    public FlashcardJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Dodanie nowej fiszki do bazy danych.
+     * @param deckId ID decku, do którego należy fiszka
+     * @param front Tekst na przedniej stronie fiszki
+     * @param back Tekst na tylnej stronie fiszki
+     * @return false, gdy dane są niepoprawne albo zapis w bazie się nie powiódł
+     */
+    public boolean addFlashcard(int deckId, String front, String back) {
+        if (deckId <= 0 || front == null || front.isEmpty() || back == null || back.isEmpty()) {
+            System.err.println("Invalid data for flashcard.");
+            return false;
+        }
+
+        if (journal != null) {
+            journal.append(deckId, front.trim(), back.trim());
+            return true;
+        }
+        // Wywołanie metody z DatabaseManager do dodania fiszki
+        return databaseManager.addFlashcard(deckId, front.trim(), back.trim());
+    }
+
+    /**
+     * Masowe dodanie fiszek do jednego decku, np. przy imporcie z pliku.
+     * Fiszki są zapisywane paczkami w osobnych transakcjach, bez logowania każdego wiersza.
+     * @param deckId ID decku, do którego trafią fiszki
+     * @param flashcards strumień fiszek; czytany leniwie, więc może być dowolnie długi
+     * @param listener odbiorca postępu i odrzuconych wierszy
+     * @throws SQLException gdy baza przestała odpowiadać - import jest przerywany, a paczki zapisane
+     * wcześniej zostają w bazie
+     */
+    public BulkInsertResult addFlashcards(int deckId, Stream<Flashcard> flashcards, BulkInsertListener listener)
+            throws SQLException {
+        return addFlashcards(deckId, flashcards, DEFAULT_BATCH_SIZE, DEFAULT_TRANSACTION_SIZE, listener);
+    }
+
+    /**
+     * @param batchSize liczba wierszy wysyłanych jednym executeBatch
+     * @param transactionSize liczba wierszy zatwierdzanych jednym commitem
+     */
+    public BulkInsertResult addFlashcards(int deckId, Stream<Flashcard> flashcards, int batchSize, int transactionSize,
+                                          BulkInsertListener listener) throws SQLException {
+        if (deckId <= 0 || batchSize <= 0 || transactionSize <= 0) {
+            throw new IllegalArgumentException("Invalid bulk insert parameters: deckId=" + deckId
+                    + ", batchSize=" + batchSize + ", transactionSize=" + transactionSize);
+        }
+        long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        ImportEvent event = new ImportEvent();
+        event.begin();
+        List<RejectedFlashcard> reportedRejects = new ArrayList<>();
+        List<Flashcard> chunk = new ArrayList<>(transactionSize);
+        long[] chunkRows = new long[transactionSize];
+        long processed = 0;
+        long inserted = 0;
+        long rejected = 0;
+
+        Iterator<Flashcard> iterator = flashcards.iterator();
+        while (iterator.hasNext()) {
+            Flashcard flashcard = iterator.next();
+            processed++;
+            Flashcard valid = validated(flashcard);
+            if (valid == null) {
+                rejected++;
+                reject(new RejectedFlashcard(processed, flashcard, "Empty front or back"), reportedRejects, listener);
+            } else {
+                chunkRows[chunk.size()] = processed;
+                chunk.add(valid);
+            }
+
+            if (chunk.size() == transactionSize || !iterator.hasNext()) {
+                Map<Integer, String> failures;
+                try {
+                    failures = chunk.isEmpty() ? Map.of() : databaseManager.addFlashcardsChunk(deckId, chunk, batchSize);
+                } catch (SQLException e) {
+                    // to nie jest wina wierszy - reszta pliku trafilaby na ten sam blad
+                    databaseManager.getMetrics().operation("import").record(System.nanoTime() - startNanos, true);
+                    throw new SQLException("Import stopped at row " + chunkRows[0] + " after " + inserted
+                            + " flashcards: " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+                }
+                for (Map.Entry<Integer, String> failure : failures.entrySet()) {
+                    int index = failure.getKey();
+                    reject(new RejectedFlashcard(chunkRows[index], chunk.get(index), failure.getValue()), reportedRejects, listener);
+                }
+                inserted += chunk.size() - failures.size();
+                rejected += failures.size();
+                chunk.clear();
+                listener.onProgress(processed, inserted, rejected);
+            }
+        }
+        databaseManager.getMetrics().operation("import").record(System.nanoTime() - startNanos, inserted == 0 && rejected > 0);
+        if (event.shouldCommit()) {
+            event.deckId = deckId;
+            event.processed = processed;
+            event.inserted = inserted;
+            event.rejected = rejected;
+            event.commit();
+        }
+        return new BulkInsertResult(processed, inserted, rejected, reportedRejects, System.currentTimeMillis() - start);
+    }
+
+    private static Flashcard validated(Flashcard flashcard) {
+        if (flashcard == null || flashcard.getFront() == null || flashcard.getBack() == null) {
+            return null;
+        }
+        String front = flashcard.getFront().trim();
+        String back = flashcard.getBack().trim();
+        if (front.isEmpty() || back.isEmpty()) {
+            return null;
+        }
+        return front.length() == flashcard.getFront().length() && back.length() == flashcard.getBack().length()
+                ? flashcard
+                : new Flashcard(front, back);
+    }
+
+    private static void reject(RejectedFlashcard rejectedFlashcard, List<RejectedFlashcard> reportedRejects,
+                               BulkInsertListener listener) {
+        if (reportedRejects.size() < MAX_REPORTED_REJECTS) {
+            reportedRejects.add(rejectedFlashcard);
+        }
+        listener.onReject(rejectedFlashcard);
+    }
+}
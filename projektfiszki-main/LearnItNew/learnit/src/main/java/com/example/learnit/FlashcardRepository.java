@@ -0,0 +1,189 @@
+package com.example.learnit;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dostęp do danych decków i fiszek. {@link DatabaseManager} trzyma nad nim cache,
+ * a sama implementacja decyduje, gdzie dane leżą: na serwerze MySQL
+ * ({@link MySqlFlashcardRepository}) albo w lokalnym pliku ({@link EmbeddedFlashcardRepository}).
+ */
+public interface FlashcardRepository extends AutoCloseable {
+
+    /**
+     * Wybiera implementację na podstawie adresu JDBC z konfiguracji.
+     */
+    static FlashcardRepository open(DatabaseConfig config) {
+        if (config.getUrl().startsWith(EmbeddedFlashcardRepository.URL_PREFIX)) {
+            return new EmbeddedFlashcardRepository(config);
+        }
+        return new MySqlFlashcardRepository(config);
+    }
+
+    void initializeSchema() throws SQLException;
+
+    List<Deck> findAllDecks() throws SQLException;
+
+    /**
+     * @return ID nowego decku
+     */
+    int insertDeck(String name, Integer parentId) throws SQLException;
+
+    /**
+     * Usuwa deck razem z poddeckami i ich fiszkami.
+     */
+    void deleteDeck(int id) throws SQLException;
+
+    void renameDeck(int id, String newName) throws SQLException;
+
+    /**
+     * Kopiuje decki poddrzewa razem z fiszkami (bez harmonogramów powtórek) w jednej transakcji;
+     * fiszki każdego decku kopiuje jedno zapytanie INSERT ... SELECT.
+     * @param subtree decki poddrzewa, rodzice przed dziećmi; pierwszy to korzeń
+     * @param rootName nazwa kopii korzenia
+     * @return ID nowego decku -> liczba skopiowanych fiszek, w kolejności subtree
+     */
+    Map<Integer, Integer> cloneDecks(List<Deck> subtree, Integer targetParentId, String rootName) throws SQLException;
+
+    /**
+     * Przepina deck (z całym poddrzewem) pod nowego rodzica; null - na najwyższy poziom.
+     */
+    void moveDeck(int id, Integer newParentId) throws SQLException;
+
+    /**
+     * Scala deck źródłowy z docelowym w jednej transakcji: fiszki (z harmonogramami) i poddecki
+     * źródła przechodzą do celu, a deck źródłowy jest usuwany.
+     * @return liczba przeniesionych fiszek
+     */
+    int mergeDecks(int sourceId, int targetId) throws SQLException;
+
+    /**
+     * @return ID nowej fiszki
+     */
+    int insertFlashcard(int deckId, String front, String back) throws SQLException;
+
+    /**
+     * Wstawia paczkę fiszek w jednej transakcji.
+     * @return pozycja w paczce -> powód odrzucenia dla wierszy, których nie udało się zapisać
+     * @throws SQLException gdy nie zapisano niczego
+     */
+    Map<Integer, String> insertFlashcards(int deckId, List<Flashcard> flashcards, int batchSize) throws SQLException;
+
+    /**
+     * Jak {@link #insertFlashcards}, ale w tej samej transakcji zapisuje klucz paczki (segmentKey, deckId);
+     * paczka, której klucz już jest w bazie, nie jest wstawiana drugi raz.
+     * @return pozycja w paczce -> powód odrzucenia albo null, gdy paczka była już zapisana
+     * @throws SQLException gdy nie udało się połączyć z bazą albo zatwierdzić transakcji
+     */
+    Map<Integer, String> insertJournaledFlashcards(String segmentKey, int deckId, List<Flashcard> flashcards, int batchSize)
+            throws SQLException;
+
+    /**
+     * Usuwa klucze paczek segmentu dziennika, który jest już w całości zapisany i skasowany z dysku.
+     */
+    void deleteJournalKeys(String segmentKey) throws SQLException;
+
+    Map<Integer, Integer> countFlashcardsByDeck() throws SQLException;
+
+    /**
+     * Strona fiszek decku o ID większym niż afterId, posortowana po ID.
+     */
+    List<Flashcard> findFlashcardsAfter(int deckId, int afterId, int limit) throws SQLException;
+
+    /**
+     * Wszystkie fiszki decku. Listy fiszek zwracane przez repozytorium mogą być
+     * {@link CompactFlashcardList} - teksty są wtedy dekodowane dopiero przy odczycie.
+     */
+    List<Flashcard> findFlashcards(int deckId) throws SQLException;
+
+    /**
+     * Fiszki decku z terminem powtórki nie późniejszym niż dueBefore, posortowane po
+     * (due_at, id) i stronicowane po kluczu od pozycji (afterDueAt, afterId).
+     */
+    List<ScheduledCard> findDueCards(int deckId, long dueBefore, long afterDueAt, int afterId, int limit) throws SQLException;
+
+    /**
+     * Strona wszystkich fiszek o ID większym niż afterId, w kolejności ID (po kluczu głównym),
+     * pogrupowana po deckach: ID decku -> jego fiszki ze strony.
+     */
+    Map<Integer, List<Flashcard>> findAllFlashcardsAfter(int afterId, int limit) throws SQLException;
+
+    /**
+     * Fiszki o podanych ID, w dowolnej kolejności; nieistniejące ID są pomijane.
+     */
+    List<Flashcard> findFlashcardsByIds(List<Integer> ids) throws SQLException;
+
+    /**
+     * Przekazuje wszystkie fiszki decku, w kolejności ID, czytając je kursorem tylko do przodu:
+     * na MySQL wiersze są strumieniowane z serwera pojedynczo, więc pamięć nie zależy od rozmiaru decku.
+     * Połączenie jest zajęte do końca odczytu, dlatego odbiorca nie powinien wołać repozytorium.
+     * @return liczba przekazanych fiszek
+     */
+    long streamFlashcards(int deckId, FlashcardRowHandler handler) throws SQLException, IOException;
+
+    /**
+     * Fiszki decku, które nie mają jeszcze harmonogramu, o ID większym niż afterId.
+     */
+    List<Flashcard> findUnscheduledFlashcards(int deckId, int afterId, int limit) throws SQLException;
+
+    /**
+     * Harmonogramy fiszek o podanych ID; fiszka bez zapisanego harmonogramu dostaje
+     * {@link CardSchedule#newCard(int, int)}, a nieistniejące ID są pomijane.
+     * @return ID fiszki -> harmonogram
+     */
+    Map<Integer, CardSchedule> findSchedules(List<Integer> flashcardIds) throws SQLException;
+
+    /**
+     * Zapisuje (wstawia albo nadpisuje) harmonogramy w jednej transakcji.
+     */
+    void saveSchedules(List<CardSchedule> schedules) throws SQLException;
+
+    /**
+     * Identyfikator tej instancji zapisywany w dzienniku zmian przy każdej jej zmianie.
+     */
+    String getChangeOrigin();
+
+    /**
+     * Wpisy dziennika zmian o ID większym niż afterId, w kolejności ID.
+     */
+    List<DeckChange> findChangesAfter(long afterId, int limit) throws SQLException;
+
+    /**
+     * @return najmniejsze ID w dzienniku zmian albo 0, gdy dziennik jest pusty
+     */
+    long findOldestChangeId() throws SQLException;
+
+    /**
+     * @return największe ID w dzienniku zmian albo 0, gdy dziennik jest pusty
+     */
+    long findLatestChangeId() throws SQLException;
+
+    /**
+     * Usuwa z dziennika wpisy starsze niż podany moment (ms od epoki).
+     * @return liczba usuniętych wpisów
+     */
+    int deleteChangesBefore(long createdBefore) throws SQLException;
+
+    /**
+     * @return liczba wpisów harmonogramu, których deck_id nie zgadza się z deckiem fiszki
+     */
+    int countMismatchedSchedules() throws SQLException;
+
+    /**
+     * Przepisuje deck_id harmonogramu z fiszki tam, gdzie się rozjechały.
+     * @return liczba poprawionych wpisów
+     */
+    int repairMismatchedSchedules() throws SQLException;
+
+    /**
+     * @return liczba fiszek z pustym (albo samymi odstępami) przodem lub tyłem
+     */
+    long countBlankFlashcards() throws SQLException;
+
+    PoolStats getPoolStats();
+
+    @Override
+    void close();
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.example.learnit;
+
+import java.io.IOException;
+
+/**
+ * Odbiorca wierszy fiszek czytanych kursorem przez {@link FlashcardRepository#streamFlashcards}.
+ * Dostaje każdy wiersz od razu po odczycie, bez składania listy.
+ */
+@FunctionalInterface
+public interface FlashcardRowHandler {
+    void onRow(int id, String front, String back) throws IOException;
+}
\ No newline at end of file
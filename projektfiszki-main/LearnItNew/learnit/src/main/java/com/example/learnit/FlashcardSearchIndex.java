@@ -0,0 +1,343 @@
+package com.example.learnit;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Odwrócony indeks słów z przodu i tyłu fiszek, trzymany w pamięci. Słowa są sprowadzane
+ * do małych liter bez polskich znaków, a dla każdego słowa indeks trzyma posortowaną tablicę
+ * ID fiszek. Słowa leżą w drzewie, więc zapytanie "kot" dopasowuje też "kotek" i "kotlet".
+ * <p>
+ * Zapytanie zwraca fiszki zawierające wszystkie słowa zapytania (każde jako prefiks),
+ * ocenione sumą wag dopasowań: rzadsze słowa ważą więcej, a pełne słowo więcej niż prefiks.
+ * Sam indeks nie zna treści fiszek - pamięta tylko ID, deck i słowa.
+ */
+public class FlashcardSearchIndex {
+    // slowa dluzsze niz to sa obcinane - nikt nie wpisze ich w calosci w zapytaniu
+    private static final int MAX_TERM_LENGTH = 32;
+    private static final int MAX_QUERY_TERMS = 8;
+    // najwiecej slow, na ktore rozwija sie jeden prefiks (np. "a")
+    private static final int MAX_PREFIX_EXPANSIONS = 512;
+    private static final double PREFIX_MATCH_WEIGHT = 0.6;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    // deck fiszki o danym ID; 0 - fiszki nie ma w indeksie
+    private int[] deckByFlashcard = new int[1024];
+    private int indexedCount;
+    private int maxIndexedId;
+
+    /**
+     * Dodaje fiszkę do indeksu; ponowne dodanie tej samej fiszki do tego samego decku niczego nie zmienia.
+     */
+    public void add(int flashcardId, int deckId, String front, String back) {
+        Set<String> cardTerms = new LinkedHashSet<>();
+        tokenize(front, cardTerms);
+        tokenize(back, cardTerms);
+        lock.writeLock().lock();
+        try {
+            if (flashcardId >= deckByFlashcard.length) {
+                deckByFlashcard = Arrays.copyOf(deckByFlashcard, Math.max(flashcardId + 1, deckByFlashcard.length * 2));
+            }
+            if (deckByFlashcard[flashcardId] != 0) {
+                // fiszka juz jest (np. wczytana przez budowanie i przez dopisanie) - aktualizujemy tylko deck
+                deckByFlashcard[flashcardId] = deckId;
+                return;
+            }
+            deckByFlashcard[flashcardId] = deckId;
+            indexedCount++;
+            maxIndexedId = Math.max(maxIndexedId, flashcardId);
+            for (String term : cardTerms) {
+                terms.computeIfAbsent(term, t -> new Postings()).add(flashcardId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Zapisuje, że fiszka leży teraz w innym decku (np. po scaleniu decków).
+     */
+    public void moveFlashcard(int flashcardId, int deckId) {
+        lock.writeLock().lock();
+        try {
+            if (flashcardId < deckByFlashcard.length && deckByFlashcard[flashcardId] != 0) {
+                deckByFlashcard[flashcardId] = deckId;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Przepisuje wszystkie fiszki jednego decku do innego (po scaleniu decków) - jedno przejście
+     * po tablicy decków, bez listy ID przeniesionych fiszek.
+     */
+    public void reassignDeck(int fromDeckId, int toDeckId) {
+        lock.writeLock().lock();
+        try {
+            for (int id = 0; id <= maxIndexedId && id < deckByFlashcard.length; id++) {
+                if (deckByFlashcard[id] == fromDeckId) {
+                    deckByFlashcard[id] = toDeckId;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Największe ID fiszki w indeksie - od niego zaczyna się dociąganie nowych fiszek z bazy.
+     */
+    public int getMaxIndexedId() {
+        lock.readLock().lock();
+        try {
+            return maxIndexedId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getIndexedCount() {
+        lock.readLock().lock();
+        try {
+            return indexedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param deckFilter decki, z których mogą pochodzić wyniki (np. poddrzewo wybranego decku
+     *                   albo wszystkie istniejące decki - fiszki usuniętych decków zostają w indeksie)
+     * @param limit największa liczba wyników
+     * @return najlepsze wyniki od najtrafniejszego; bez treści fiszek
+     */
+    public List<SearchResult> search(String query, BitSet deckFilter, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>();
+        tokenize(query, queryTerms);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<TermMatches> matches = new ArrayList<>();
+            for (String queryTerm : queryTerms) {
+                if (matches.size() == MAX_QUERY_TERMS) {
+                    break;
+                }
+                TermMatches termMatches = match(queryTerm, deckFilter);
+                if (termMatches.size == 0) {
+                    return List.of();
+                }
+                matches.add(termMatches);
+            }
+            // przeciecie zaczynamy od najrzadszego slowa, zeby kolejne kroki mialy jak najmniej kandydatow
+            matches.sort(Comparator.comparingInt(termMatches -> termMatches.size));
+            TermMatches candidates = matches.get(0);
+            for (int i = 1; i < matches.size() && candidates.size > 0; i++) {
+                candidates = candidates.intersect(matches.get(i));
+            }
+            return topResults(candidates, deckFilter, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private TermMatches match(String queryTerm, BitSet deckFilter) {
+        NavigableMap<String, Postings> prefixed = terms.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false);
+        // size() widoku podmapy przechodzi wszystkie jego klucze, wiec jedyne dopasowanie sprawdzamy przez higherKey
+        Map.Entry<String, Postings> first = prefixed.firstEntry();
+        if (first != null && prefixed.higherKey(first.getKey()) == null) {
+            return TermMatches.of(first.getValue(), weight(first.getKey(), queryTerm, first.getValue()));
+        }
+        int expansions = 0;
+        int total = 0;
+        for (Postings postings : prefixed.values()) {
+            if (expansions++ == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            total += postings.size;
+        }
+        // pary (ID, waga) w jednym long: po posortowaniu ten sam ID stoi obok, a waga rosnie
+        long[] pairs = new long[total];
+        int count = 0;
+        expansions = 0;
+        for (Map.Entry<String, Postings> entry : prefixed.entrySet()) {
+            if (expansions++ == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            Postings postings = entry.getValue();
+            long weightBits = Float.floatToIntBits(weight(entry.getKey(), queryTerm, postings)) & 0xFFFFFFFFL;
+            for (int i = 0; i < postings.size; i++) {
+                int id = postings.ids[i];
+                // filtr deckow juz tutaj - przy wyszukiwaniu w poddrzewie zostaje duzo mniej do sortowania
+                int deckId = deckByFlashcard[id];
+                if (deckId != 0 && (deckFilter == null || deckFilter.get(deckId))) {
+                    pairs[count++] = ((long) id << 32) | weightBits;
+                }
+            }
+        }
+        Arrays.sort(pairs, 0, count);
+        int[] ids = new int[count];
+        float[] scores = new float[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int id = (int) (pairs[i] >>> 32);
+            float weight = Float.intBitsToFloat((int) pairs[i]);
+            if (size > 0 && ids[size - 1] == id) {
+                scores[size - 1] = weight;
+            } else {
+                ids[size] = id;
+                scores[size] = weight;
+                size++;
+            }
+        }
+        return new TermMatches(ids, scores, size);
+    }
+
+    private float weight(String term, String queryTerm, Postings postings) {
+        double idf = Math.log(1 + (double) indexedCount / Math.max(1, postings.size));
+        return (float) (term.length() == queryTerm.length() ? idf : idf * PREFIX_MATCH_WEIGHT);
+    }
+
+    private List<SearchResult> topResults(TermMatches candidates, BitSet deckFilter, int limit) {
+        // kopiec najslabszego z dotychczas najlepszych wynikow; przy rownej ocenie wygrywa nizsze ID
+        PriorityQueue<SearchResult> best = new PriorityQueue<>(limit + 1, Comparator
+                .comparingDouble(SearchResult::getScore)
+                .thenComparing(Comparator.comparingInt(SearchResult::getFlashcardId).reversed()));
+        for (int i = 0; i < candidates.size; i++) {
+            int id = candidates.ids[i];
+            int deckId = deckByFlashcard[id];
+            if (deckId == 0 || (deckFilter != null && !deckFilter.get(deckId))) {
+                continue;
+            }
+            float score = candidates.scoreAt(i);
+            if (best.size() == limit) {
+                SearchResult weakest = best.peek();
+                if (score < weakest.getScore() || (score == weakest.getScore() && id > weakest.getFlashcardId())) {
+                    continue;
+                }
+                best.poll();
+            }
+            best.add(new SearchResult(id, deckId, score));
+        }
+        List<SearchResult> results = new ArrayList<>(best);
+        results.sort(best.comparator().reversed());
+        return results;
+    }
+
+    /**
+     * Dzieli tekst na słowa: małe litery, bez znaków diakrytycznych (ą -> a, ł -> l).
+     */
+    static void tokenize(String text, Set<String> target) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i <= normalized.length(); i++) {
+            char c = i < normalized.length() ? normalized.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (term.length() < MAX_TERM_LENGTH) {
+                    term.append(c == '\u0142' ? 'l' : c);
+                }
+            } else if (term.length() > 0) {
+                target.add(term.toString());
+                term.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Posortowane ID fiszek zawierających jedno słowo.
+     */
+    private static class Postings {
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            if (size == 0 || ids[size - 1] < id) {
+                ids[size++] = id;
+                return;
+            }
+            // fiszka dopisana, zanim budowanie indeksu doszlo do starszych - wstawiamy w srodek
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+    }
+
+    /**
+     * Kandydaci dla jednego słowa zapytania: rosnące ID i ich dotychczasowe oceny
+     * (scores == null - wszyscy mają tę samą ocenę, np. gdy słowo pasuje do jednego wpisu indeksu).
+     */
+    private static class TermMatches {
+        private final int[] ids;
+        private final float[] scores;
+        private final float sharedScore;
+        private final int size;
+
+        TermMatches(int[] ids, float[] scores, int size) {
+            this(ids, scores, 0, size);
+        }
+
+        private TermMatches(int[] ids, float[] scores, float sharedScore, int size) {
+            this.ids = ids;
+            this.scores = scores;
+            this.sharedScore = sharedScore;
+            this.size = size;
+        }
+
+        static TermMatches of(Postings postings, float weight) {
+            // bez kopiowania - pod blokada odczytu tablica wpisu sie nie zmienia
+            return new TermMatches(postings.ids, null, weight, postings.size);
+        }
+
+        float scoreAt(int index) {
+            return scores == null ? sharedScore : scores[index];
+        }
+
+        TermMatches intersect(TermMatches other) {
+            int[] ids = new int[Math.min(size, other.size)];
+            float[] scores = new float[ids.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (this.ids[i] < other.ids[j]) {
+                    i++;
+                } else if (this.ids[i] > other.ids[j]) {
+                    j++;
+                } else {
+                    ids[count] = this.ids[i];
+                    scores[count++] = scoreAt(i++) + other.scoreAt(j++);
+                }
+            }
+            return new TermMatches(ids, scores, count);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.learnit;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie JFR zgłaszane przez {@link FxStallWatchdog}, gdy wątek JavaFX nie odpowiadał
+ * dłużej niż próg; czas trwania zdarzenia to czas przestoju.
+ */
+@Name("com.example.learnit.FxStall")
+@Label("JavaFX Thread Stall")
+@Category({"LearnIt", "UI"})
+public class FxStallEvent extends Event {
+    @Label("Call Site")
+    public String callSite;
+
+    @Label("Stack Trace")
+    public String stackTrace;
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.example.learnit;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wykrywa zawieszenia wątku JavaFX. Co kilkadziesiąt milisekund wysyła na ten wątek pusty
+ * Runnable; jeśli nie wykona się on w ciągu progu, zrzuca stos wątku JavaFX i wypisuje
+ * miejsce w kodzie aplikacji, które go blokuje. Czas oczekiwania każdego sygnału trafia
+ * do metryki "fx.eventLatency", a przestoje powyżej progu do "fx.stall" i do JFR ({@link FxStallEvent}).
+ */
+public class FxStallWatchdog implements AutoCloseable {
+    private static final String APP_PACKAGE = "com.example.learnit.";
+
+    private final Thread fxThread;
+    private final long thresholdNanos;
+    private final long checkIntervalMillis;
+    private final OperationStats eventLatency;
+    private final OperationStats stalls;
+    private final ScheduledExecutorService scheduler;
+    // moment wyslania sygnalu, ktory jeszcze nie dotarl; 0 gdy nic nie czeka
+    private long pingSentNanos;
+    private FxStallEvent currentStall;
+
+    public FxStallWatchdog(Thread fxThread, long thresholdMillis, MetricsRegistry metrics) {
+        this.fxThread = fxThread;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.checkIntervalMillis = Math.max(10, thresholdMillis / 4);
+        this.eventLatency = metrics.operation("fx.eventLatency");
+        this.stalls = metrics.operation("fx.stall");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "learnit-fx-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        long sent;
+        synchronized (this) {
+            sent = pingSentNanos;
+            if (sent == 0) {
+                pingSentNanos = now;
+                Platform.runLater(this::onPing);
+                return;
+            }
+            if (currentStall != null || now - sent < thresholdNanos) {
+                return;
+            }
+            currentStall = new FxStallEvent();
+            currentStall.begin();
+        }
+        StackTraceElement[] stack = fxThread.getStackTrace();
+        String callSite = callSite(stack);
+        System.err.println("JavaFX thread stalled for over " + TimeUnit.NANOSECONDS.toMillis(now - sent)
+                + " ms at " + callSite);
+        StringBuilder trace = new StringBuilder();
+        for (StackTraceElement element : stack) {
+            trace.append("\tat ").append(element).append(System.lineSeparator());
+        }
+        System.err.print(trace);
+        synchronized (this) {
+            if (currentStall != null) {
+                currentStall.callSite = callSite;
+                currentStall.stackTrace = trace.toString();
+            }
+        }
+    }
+
+    private void onPing() {
+        FxStallEvent stall;
+        long waited;
+        synchronized (this) {
+            waited = System.nanoTime() - pingSentNanos;
+            pingSentNanos = 0;
+            stall = currentStall;
+            currentStall = null;
+        }
+        eventLatency.record(waited, false);
+        if (stall != null) {
+            stalls.record(waited, true);
+            System.err.println("JavaFX thread responsive again after " + TimeUnit.NANOSECONDS.toMillis(waited) + " ms");
+            stall.commit();
+        }
+    }
+
+    /**
+     * Pierwsza ramka z kodu aplikacji - to ona zwykle wywołała blokującą operację.
+     */
+    private static String callSite(StackTraceElement[] stack) {
+        for (StackTraceElement element : stack) {
+            if (element.getClassName().startsWith(APP_PACKAGE) && !element.getClassName().startsWith(FxStallWatchdog.class.getName())) {
+                return element.toString();
+            }
+        }
+        return stack.length > 0 ? stack[0].toString() : "unknown";
+    }
+}
\ No newline at end of file
@@ -1,435 +1,657 @@
-package com.example.learnit;
-
-import javafx.geometry.Insets;
-import javafx.geometry.Pos;
-import javafx.scene.Scene;
-import javafx.scene.control.*;
-import javafx.scene.layout.*;
-import javafx.stage.FileChooser;
-import javafx.stage.Stage;
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-
-public class GraphicManager {
-    private final Stage primaryStage;
-    private final DatabaseManager databaseManager;
-    private final FlashcardManager flashcardManager;
-    private VBox mainLayout;
-    private HBox buttonBox;
-    private TreeView<String> deckTree;
-    private VBox treeContainer;
-    private Stage flashcardStage;
-    private int currentFlashcardIndex;
-    private List<Flashcard> currentFlashcards;
-    private Label flashcardLabel;
-    private HBox flashcardButtons;
-    private int currentDeckId;
-    private int batchSize = 100;
-    private int loadedFlashcardsOffset = 0;
-
-    public GraphicManager(Stage primaryStage, DatabaseManager databaseManager, FlashcardManager flashcardManager) {
-        this.primaryStage = primaryStage;
-        this.databaseManager = databaseManager;
-        this.flashcardManager = flashcardManager;
-
-        initializeUI();
-    }
-
-    public Scene getMainScene() {
-        return new Scene(mainLayout, 800, 600);
-    }
-
-    private void initializeUI() {
-        mainLayout = new VBox(10);
-        mainLayout.setPadding(new Insets(15));
-        mainLayout.setStyle("-fx-background-color: #F0F0F0;");
-
-        deckTree = createDeckTree();
-        deckTree.setPrefHeight(500);
-        deckTree.setStyle("-fx-background-color: #FFFFFF; -fx-text-fill: black; -fx-font-size: 14px; -fx-border-radius: 5px;");
-
-        treeContainer = new VBox(deckTree);
-        treeContainer.setPadding(new Insets(10));
-        treeContainer.setStyle("-fx-background-color: #FFFFFF; -fx-background-radius: 10px;");
-
-        Button addDeckButton = createModernButton("Add Deck");
-        Button deleteDeckButton = createModernButton("Delete Deck");
-        Button editDeckButton = createModernButton("Edit Deck");
-        Button addFlashcardButton = createModernButton("Add Flashcard");
-
-        addDeckButton.setOnAction(e -> addDeck());
-        deleteDeckButton.setOnAction(e -> deleteDeck(deckTree));
-        editDeckButton.setOnAction(e -> editDeck(deckTree));
-        addFlashcardButton.setOnAction(e -> addFlashcard());
-
-        buttonBox = new HBox(10, addDeckButton, deleteDeckButton, editDeckButton, addFlashcardButton);
-        buttonBox.setAlignment(Pos.CENTER);
-        buttonBox.setPadding(new Insets(10));
-        buttonBox.setStyle("-fx-background-color: #D3D3D3; -fx-background-radius: 10px;");
-
-        updateButtonStyles("#4682B4", "white");
-
-        mainLayout.getChildren().addAll(treeContainer, buttonBox);
-        VBox.setVgrow(treeContainer, Priority.ALWAYS);
-
-        deckTree.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
-            if (newSelection != null) {
-                showFlashcards(newSelection);
-            }
-        });
-    }
-
-    private void updateButtonStyles(String backgroundColor, String textColor) {
-        for (var node : buttonBox.getChildren()) {
-            if (node instanceof Button) {
-                Button button = (Button) node;
-                button.setStyle(
-                        "-fx-background-color: " + backgroundColor + ";" +
-                                "-fx-text-fill: " + textColor + ";" +
-                                "-fx-font-size: 14px;" +
-                                "-fx-padding: 10 20 10 20;" +
-                                "-fx-background-radius: 8px;" +
-                                "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.3), 5, 0, 0, 2);"
-                );
-            }
-        }
-    }
-
-    private Button createModernButton(String text) {
-        return new Button(text);
-    }
-
-    private TreeView<String> createDeckTree() {
-        TreeItem<String> rootNode = new TreeItem<>("");
-        rootNode.setExpanded(true);
-
-        for (Deck deck : databaseManager.getDeckHierarchy()) {
-            int flashcardCount = databaseManager.getFlashcardCount(deck.getId());
-            HBox deckBox = new HBox(10);
-            deckBox.setAlignment(Pos.CENTER_LEFT);
-            Label nameLabel = new Label(deck.getName());
-            HBox.setHgrow(nameLabel, Priority.ALWAYS);
-            Label countLabel = new Label(String.valueOf(flashcardCount));
-            deckBox.getChildren().addAll(nameLabel, countLabel);
-
-            TreeItem<String> deckItem = new TreeItem<>("");
-            deckItem.setGraphic(deckBox);
-            rootNode.getChildren().add(deckItem);
-        }
-
-        TreeView<String> treeView = new TreeView<>(rootNode);
-        treeView.setShowRoot(false);
-        return treeView;
-    }
-
-    private void addDeck() {
-        TextInputDialog dialog = new TextInputDialog();
-        dialog.setTitle("Add Deck");
-        dialog.setHeaderText("Enter deck name:");
-        dialog.setContentText("Deck name:");
-        applyDialogStyle(dialog);
-
-        dialog.showAndWait().ifPresent(name -> {
-            if (!name.trim().isEmpty()) {
-                databaseManager.addDeck(name.trim(), null);
-                updateDeckTree();
-            }
-        });
-    }
-
-    private void deleteDeck(TreeView<String> deckTree) {
-        TreeItem<String> selectedItem = deckTree.getSelectionModel().getSelectedItem();
-        if (selectedItem != null) {
-            HBox deckBox = (HBox) selectedItem.getGraphic();
-            String deckName = ((Label) deckBox.getChildren().get(0)).getText();
-            Deck deck = findDeckByName(deckName);
-            if (deck != null) {
-                databaseManager.deleteDeck(deck.getId());
-                updateDeckTree();
-            }
-        } else {
-            showAlert("Error", "Please select a deck to delete.");
-        }
-    }
-
-    private void editDeck(TreeView<String> deckTree) {
-        TreeItem<String> selectedItem = deckTree.getSelectionModel().getSelectedItem();
-        if (selectedItem != null) {
-            HBox deckBox = (HBox) selectedItem.getGraphic();
-            String currentName = ((Label) deckBox.getChildren().get(0)).getText();
-            TextInputDialog dialog = new TextInputDialog(currentName);
-            dialog.setTitle("Edit Deck");
-            dialog.setHeaderText("Edit deck name:");
-            dialog.setContentText("New name:");
-            applyDialogStyle(dialog);
-
-            dialog.showAndWait().ifPresent(newName -> {
-                if (!newName.trim().isEmpty()) {
-                    Deck deck = findDeckByName(currentName);
-                    if (deck != null) {
-                        databaseManager.updateDeck(deck.getId(), newName.trim());
-                        updateDeckTree();
-                    }
-                }
-            });
-        } else {
-            showAlert("Error", "Please select a deck to edit.");
-        }
-    }
-
-    private void addFlashcard() {
-        Dialog<ButtonType> dialog = new Dialog<>();
-        dialog.setTitle("Add Flashcard");
-        dialog.setHeaderText("Add or import flashcards:");
-
-        ComboBox<String> deckSelector = new ComboBox<>();
-        for (Deck deck : databaseManager.getDeckHierarchy()) {
-            deckSelector.getItems().add(deck.getName());
-        }
-        deckSelector.setPromptText("Select a deck");
-        deckSelector.setPrefWidth(200);
-
-        TextField frontField = new TextField();
-        frontField.setPromptText("Enter front text");
-        TextField backField = new TextField();
-        backField.setPromptText("Enter back text");
-
-        Button importButton = createModernButton("Import from CSV");
-        importButton.setOnAction(e -> {
-            FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Select CSV File");
-            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
-            File file = fileChooser.showOpenDialog(dialog.getDialogPane().getScene().getWindow());
-            if (file != null && deckSelector.getValue() != null) {
-                Deck selectedDeck = findDeckByName(deckSelector.getValue());
-                if (selectedDeck != null) {
-                    importFromCSV(file, selectedDeck.getId());
-                    showAlert("Success", "Flashcards imported successfully!");
-                    updateDeckTree();
-                    if (flashcardStage != null && flashcardStage.isShowing() && currentDeckId == selectedDeck.getId()) {
-                        loadNextFlashcardBatchIfNeeded();
-                    }
-                    dialog.close();
-                }
-            } else {
-                showAlert("Error", "Please select a deck before importing!");
-            }
-        });
-
-        VBox content = new VBox(15);
-        content.setPadding(new Insets(20));
-        content.getChildren().addAll(
-                new Label("Deck:"), deckSelector,
-                new Label("Front:"), frontField,
-                new Label("Back:"), backField,
-                importButton
-        );
-        content.setStyle("-fx-background-color: #FFFFFF; -fx-text-fill: black;");
-
-        dialog.getDialogPane().setContent(content);
-        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
-        applyDialogStyle(dialog);
-
-        dialog.showAndWait().ifPresent(result -> {
-            if (result == ButtonType.OK) {
-                String selectedDeckName = deckSelector.getValue();
-                String frontText = frontField.getText().trim();
-                String backText = backField.getText().trim();
-                if (selectedDeckName != null && !frontText.isEmpty() && !backText.isEmpty()) {
-                    Deck selectedDeck = findDeckByName(selectedDeckName);
-                    if (selectedDeck != null) {
-                        flashcardManager.addFlashcard(selectedDeck.getId(), frontText, backText);
-                        showAlert("Success", "Flashcard added!");
-                        updateDeckTree();
-                        if (flashcardStage != null && flashcardStage.isShowing() && currentDeckId == selectedDeck.getId()) {
-                            loadNextFlashcardBatchIfNeeded();
-                        }
-                    }
-                } else if (frontText.isEmpty() && backText.isEmpty()) {
-                    // Nic nie rób, jeśli pola są puste - import już obsłużony
-                } else {
-                    showAlert("Error", "Please select a deck and fill both front and back fields!");
-                }
-            }
-        });
-    }
-
-    private void importFromCSV(File file, int deckId) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",", 2);
-                if (parts.length == 2) {
-                    String front = parts[0].trim();
-                    String back = parts[1].trim();
-                    if (!front.isEmpty() && !back.isEmpty()) {
-                        flashcardManager.addFlashcard(deckId, front, back);
-                    }
-                }
-            }
-        } catch (IOException e) {
-            showAlert("Error", "Failed to import flashcards: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    private void showFlashcards(TreeItem<String> selectedItem) {
-        HBox deckBox = (HBox) selectedItem.getGraphic();
-        String deckName = ((Label) deckBox.getChildren().get(0)).getText();
-        Deck selectedDeck = findDeckByName(deckName);
-        if (selectedDeck == null) return;
-
-        currentDeckId = selectedDeck.getId();
-        loadedFlashcardsOffset = 0;
-        currentFlashcards = databaseManager.getFlashcardsBatch(selectedDeck.getId(), loadedFlashcardsOffset, batchSize);
-        if (currentFlashcards.isEmpty()) {
-            showAlert("Info", "No flashcards in this deck.");
-            return;
-        }
-
-        currentFlashcardIndex = 0;
-        if (flashcardStage == null || !flashcardStage.isShowing()) {
-            flashcardStage = new Stage();
-            flashcardStage.setTitle("Flashcards - " + selectedDeck.getName());
-
-            VBox flashcardLayout = new VBox(20);
-            flashcardLayout.setPadding(new Insets(20));
-            flashcardLayout.setStyle("-fx-background-color: #FFFFFF;");
-            flashcardLayout.setAlignment(Pos.CENTER);
-
-            flashcardLabel = new Label(currentFlashcards.get(currentFlashcardIndex).getFront());
-            flashcardLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: black;");
-            flashcardLabel.setWrapText(true);
-
-            Button showBackButton = createModernButton("Show Back");
-            showBackButton.setOnAction(e -> showBack());
-
-            flashcardButtons = new HBox(10, showBackButton);
-            flashcardButtons.setAlignment(Pos.CENTER);
-            updateButtonStyles("#4682B4", "white");
-
-            flashcardLayout.getChildren().addAll(flashcardLabel, flashcardButtons);
-
-            Scene flashcardScene = new Scene(flashcardLayout, 400, 300);
-            flashcardStage.setScene(flashcardScene);
-            flashcardStage.show();
-        } else {
-            flashcardLabel.setText(currentFlashcards.get(currentFlashcardIndex).getFront());
-            flashcardButtons.getChildren().clear();
-            Button showBackButton = createModernButton("Show Back");
-            showBackButton.setOnAction(e -> showBack());
-            flashcardButtons.getChildren().add(showBackButton);
-            updateButtonStyles("#4682B4", "white");
-        }
-    }
-
-    private void showBack() {
-        flashcardLabel.setText(currentFlashcards.get(currentFlashcardIndex).getBack());
-        flashcardButtons.getChildren().clear();
-
-        Button showFrontButton = createModernButton("Show Front");
-        showFrontButton.setOnAction(e -> showFront());
-
-        Button nextFlashcardButton = createModernButton("Next Flashcard");
-        nextFlashcardButton.setOnAction(e -> nextFlashcard());
-
-        flashcardButtons.getChildren().addAll(showFrontButton, nextFlashcardButton);
-        updateButtonStyles("#4682B4", "white");
-    }
-
-    private void showFront() {
-        flashcardLabel.setText(currentFlashcards.get(currentFlashcardIndex).getFront());
-        flashcardButtons.getChildren().clear();
-
-        Button showBackButton = createModernButton("Show Back");
-        showBackButton.setOnAction(e -> showBack());
-
-        flashcardButtons.getChildren().add(showBackButton);
-        updateButtonStyles("#4682B4", "white");
-    }
-
-    private void nextFlashcard() {
-        currentFlashcardIndex++;
-        if (currentFlashcardIndex >= currentFlashcards.size()) {
-            loadNextFlashcardBatchIfNeeded();
-            if (currentFlashcardIndex >= currentFlashcards.size()) {
-                currentFlashcardIndex = 0;
-            }
-        }
-        flashcardLabel.setText(currentFlashcards.get(currentFlashcardIndex).getFront());
-        flashcardButtons.getChildren().clear();
-
-        Button showBackButton = createModernButton("Show Back");
-        showBackButton.setOnAction(e -> showBack());
-
-        flashcardButtons.getChildren().add(showBackButton);
-        updateButtonStyles("#4682B4", "white");
-    }
-
-    private void loadNextFlashcardBatchIfNeeded() {
-        if (currentFlashcardIndex >= currentFlashcards.size() - 10) {
-            loadedFlashcardsOffset += batchSize;
-            List<Flashcard> nextBatch = databaseManager.getFlashcardsBatch(currentDeckId, loadedFlashcardsOffset, batchSize);
-            if (!nextBatch.isEmpty()) {
-                currentFlashcards.addAll(nextBatch);
-            }
-        }
-    }
-
-    private void applyDialogStyle(Dialog<?> dialog) {
-        dialog.getDialogPane().setStyle(
-                "-fx-background-color: #FFFFFF;" +
-                        "-fx-text-fill: black;" +
-                        "-fx-font-size: 14px;" +
-                        "-fx-border-radius: 10px;"
-        );
-        for (ButtonType buttonType : dialog.getDialogPane().getButtonTypes()) {
-            Button button = (Button) dialog.getDialogPane().lookupButton(buttonType);
-            button.setStyle(
-                    "-fx-background-color: #4682B4;" +
-                            "-fx-text-fill: white;" +
-                            "-fx-font-size: 14px;" +
-                            "-fx-background-radius: 8px;"
-            );
-        }
-    }
-
-    private Deck findDeckByName(String name) {
-        for (Deck deck : databaseManager.getDeckHierarchy()) {
-            if (deck.getName().equals(name)) {
-                return deck;
-            }
-        }
-        return null;
-    }
-
-    private void updateDeckTree() {
-        deckTree.getRoot().getChildren().clear();
-        for (Deck deck : databaseManager.getDeckHierarchy()) {
-            int flashcardCount = databaseManager.getFlashcardCount(deck.getId());
-            HBox deckBox = new HBox(10);
-            deckBox.setAlignment(Pos.CENTER_LEFT);
-            Label nameLabel = new Label(deck.getName());
-            HBox.setHgrow(nameLabel, Priority.ALWAYS);
-            Label countLabel = new Label(String.valueOf(flashcardCount));
-            deckBox.getChildren().addAll(nameLabel, countLabel);
-
-            TreeItem<String> deckItem = new TreeItem<>("");
-            deckItem.setGraphic(deckBox);
-            deckTree.getRoot().getChildren().add(deckItem);
-        }
-    }
-
-    private void showAlert(String title, String message) {
-        Alert alert = new Alert(Alert.AlertType.INFORMATION);
-        alert.setTitle(title);
-        alert.setHeaderText(null);
-        alert.setContentText(message);
-        applyDialogStyle(alert);
-        alert.showAndWait();
-    }
+package com.example.learnit;
+
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import javafx.util.StringConverter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class GraphicManager {
+    private static final int SEARCH_RESULT_LIMIT = 50;
+    // wspolny arkusz stylow wszystkich okien i dialogow
+    static final String STYLESHEET = GraphicManager.class.getResource("learnit.css").toExternalForm();
+
+    private final Stage primaryStage;
+    private final DatabaseManager databaseManager;
+    // wszystkie zapisy i zapytania z interfejsu ida przez fasade, zeby nie blokowac watku JavaFX
+    private final AsyncDatabaseManager asyncDatabase;
+    private final FlashcardManager flashcardManager;
+    private final DeckManager deckManager;
+    private VBox mainLayout;
+    private HBox buttonBox;
+    private TreeView<Integer> deckTree;
+    private VBox treeContainer;
+    private StudySession studySession;
+    // okno nauki tworzone przy pierwszej sesji i uzywane ponownie
+    private StudyView studyView;
+    private int batchSize = 100;
+    private int studyWindowSize = 300;
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "learnit-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GraphicManager(Stage primaryStage, DatabaseManager databaseManager, FlashcardManager flashcardManager) {
+        this.primaryStage = primaryStage;
+        this.databaseManager = databaseManager;
+        this.asyncDatabase = new AsyncDatabaseManager(databaseManager);
+        this.flashcardManager = flashcardManager;
+        this.deckManager = new DeckManager(databaseManager);
+        if (flashcardManager.getJournal() != null) {
+            // fiszki z dziennika trafily do bazy - sesja nauki moze je juz pobrac
+            flashcardManager.getJournal().addFlushListener(deckIds ->
+                    Platform.runLater(() -> deckIds.forEach(this::onFlashcardsAdded)));
+        }
+
+        initializeUI();
+    }
+
+    public Scene getMainScene() {
+        Scene scene = new Scene(mainLayout, 800, 600);
+        scene.getStylesheets().add(STYLESHEET);
+        return scene;
+    }
+
+    /**
+     * Wczytuje decki w tle; do tego czasu zamiast drzewa widać napis, a przyciski są wyłączone.
+     * Future kończy się na wątku JavaFX, gdy drzewo jest gotowe, z wynikiem {@link DatabaseManager#loadDecks()}:
+     * false oznacza, że liczniki trzeba jeszcze wczytać przez {@link #loadFlashcardCounts()}.
+     */
+    public CompletableFuture<Boolean> loadDecks() {
+        treeContainer.getChildren().setAll(new Label("Loading decks..."));
+        buttonBox.setDisable(true);
+        return asyncDatabase.supply(databaseManager::loadDecks).whenComplete((countsLoaded, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                showAlert("Error", "Failed to load decks: " + cause.getMessage());
+                return;
+            }
+            deckManager.loadDeckHierarchy();
+            treeContainer.getChildren().setAll(deckTree);
+            buttonBox.setDisable(false);
+        });
+    }
+
+    /**
+     * Wczytuje liczniki fiszek w tle i odświeża widoczne wiersze drzewa.
+     */
+    public CompletableFuture<Void> loadFlashcardCounts() {
+        return asyncDatabase.refreshFlashcardCounts().whenComplete((ignored, error) -> {
+            if (error == null) {
+                deckTree.refresh();
+            }
+        });
+    }
+
+    /**
+     * Zamyka sesję nauki i czeka na zapis ocen, które jeszcze nie trafiły do bazy.
+     * Wywoływane przy zamykaniu aplikacji, przed zamknięciem {@link DatabaseManager}.
+     */
+    public void shutdown() {
+        if (studySession != null) {
+            studySession.close();
+        }
+        asyncDatabase.close();
+        prefetchExecutor.shutdown();
+        try {
+            prefetchExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void initializeUI() {
+        mainLayout = new VBox(10);
+        mainLayout.setPadding(new Insets(15));
+        mainLayout.getStyleClass().add("main-layout");
+
+        deckTree = deckManager.getDeckTree();
+        deckTree.setPrefHeight(500);
+        deckTree.getStyleClass().add("deck-tree");
+
+        treeContainer = new VBox(deckTree);
+        treeContainer.setPadding(new Insets(10));
+        treeContainer.getStyleClass().add("tree-container");
+
+        Button addDeckButton = createModernButton("Add Deck");
+        Button deleteDeckButton = createModernButton("Delete Deck");
+        Button editDeckButton = createModernButton("Edit Deck");
+        Button addFlashcardButton = createModernButton("Add Flashcard");
+        Button searchButton = createModernButton("Search");
+        Button exportButton = createModernButton("Export");
+        Button organizeButton = createModernButton("Copy/Move");
+
+        addDeckButton.setOnAction(e -> addDeck());
+        deleteDeckButton.setOnAction(e -> deleteDeck(deckTree));
+        editDeckButton.setOnAction(e -> editDeck(deckTree));
+        addFlashcardButton.setOnAction(e -> addFlashcard());
+        searchButton.setOnAction(e -> searchFlashcards());
+        exportButton.setOnAction(e -> exportDeck());
+        organizeButton.setOnAction(e -> organizeDeck());
+
+        buttonBox = new HBox(10, addDeckButton, deleteDeckButton, editDeckButton, addFlashcardButton, searchButton, exportButton, organizeButton);
+        buttonBox.setAlignment(Pos.CENTER);
+        buttonBox.setPadding(new Insets(10));
+        buttonBox.getStyleClass().add("button-bar");
+
+        mainLayout.getChildren().addAll(treeContainer, buttonBox);
+        VBox.setVgrow(treeContainer, Priority.ALWAYS);
+
+        deckTree.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
+            if (newSelection != null) {
+                showFlashcards(newSelection);
+            }
+        });
+    }
+
+    private Button createModernButton(String text) {
+        Button button = new Button(text);
+        button.getStyleClass().add("modern-button");
+        return button;
+    }
+
+    private void addDeck() {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Add Deck");
+        dialog.setHeaderText("Enter deck name:");
+
+        TextField nameField = new TextField();
+        nameField.setPromptText("Deck name");
+        // bez wybranego rodzica deck trafia na najwyzszy poziom
+        ComboBox<Deck> parentSelector = createDeckSelector(databaseManager.getDeckIndex());
+        parentSelector.setPromptText("None (top level)");
+        parentSelector.setValue(deckManager.getSelectedDeck());
+        Button topLevelButton = createModernButton("Top Level");
+        topLevelButton.setOnAction(e -> parentSelector.setValue(null));
+
+        VBox content = new VBox(15);
+        content.setPadding(new Insets(20));
+        content.getChildren().addAll(
+                new Label("Deck name:"), nameField,
+                new Label("Parent deck:"), new HBox(10, parentSelector, topLevelButton)
+        );
+        content.getStyleClass().add("dialog-content");
+
+        dialog.getDialogPane().setContent(content);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        applyDialogStyle(dialog);
+
+        dialog.showAndWait().ifPresent(result -> {
+            String name = nameField.getText().trim();
+            if (result == ButtonType.OK && !name.isEmpty()) {
+                Deck parent = parentSelector.getValue();
+                asyncDatabase.addDeck(name, parent == null ? null : parent.getId()).thenAccept(deck -> {
+                    if (deck != null) {
+                        deckManager.onDeckAdded(deck);
+                    } else {
+                        showAlert("Error", "Failed to add the deck. The parent may already contain a deck with this name.");
+                    }
+                });
+            }
+        });
+    }
+
+    private void deleteDeck(TreeView<Integer> deckTree) {
+        TreeItem<Integer> selectedItem = deckTree.getSelectionModel().getSelectedItem();
+        Deck deck = selectedItem == null ? null : databaseManager.getDeck(selectedItem.getValue());
+        if (deck != null) {
+            // poddrzewo liczymy przed usunieciem, bo potem zniknie z cache
+            List<Integer> removedIds = databaseManager.getDeckIndex().getSubtreeIds(deck.getId());
+            asyncDatabase.deleteDeck(deck.getId()).thenAccept(deleted -> {
+                if (deleted) {
+                    deckManager.onDecksRemoved(deck.getParentId(), removedIds);
+                } else {
+                    showAlert("Error", "Failed to delete the deck.");
+                }
+            });
+        } else {
+            showAlert("Error", "Please select a deck to delete.");
+        }
+    }
+
+    private void editDeck(TreeView<Integer> deckTree) {
+        TreeItem<Integer> selectedItem = deckTree.getSelectionModel().getSelectedItem();
+        if (selectedItem != null) {
+            int deckId = selectedItem.getValue();
+            Deck currentDeck = databaseManager.getDeck(deckId);
+            if (currentDeck == null) {
+                return;
+            }
+            TextInputDialog dialog = new TextInputDialog(currentDeck.getName());
+            dialog.setTitle("Edit Deck");
+            dialog.setHeaderText("Edit deck name:");
+            dialog.setContentText("New name:");
+            applyDialogStyle(dialog);
+
+            dialog.showAndWait().ifPresent(newName -> {
+                if (!newName.trim().isEmpty()) {
+                    asyncDatabase.updateDeck(deckId, newName.trim()).thenAccept(renamed -> {
+                        if (renamed) {
+                            deckManager.refreshDeck(deckId);
+                        } else {
+                            showAlert("Error", "Failed to rename the deck. The parent may already contain a deck with this name.");
+                        }
+                    });
+                }
+            });
+        } else {
+            showAlert("Error", "Please select a deck to edit.");
+        }
+    }
+
+    private void organizeDeck() {
+        Deck deck = deckManager.getSelectedDeck();
+        if (deck == null) {
+            showAlert("Error", "Please select a deck to copy or move.");
+            return;
+        }
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Copy/Move Deck");
+        dialog.setHeaderText("Copy, move or merge \"" + deck.getName() + "\" with its subdecks:");
+
+        ChoiceBox<String> operationSelector = new ChoiceBox<>();
+        operationSelector.getItems().addAll("Copy to", "Move to", "Merge into");
+        operationSelector.setValue("Copy to");
+        // bez wybranego decku kopia i przeniesienie trafiaja na najwyzszy poziom
+        ComboBox<Deck> targetSelector = createDeckSelector(databaseManager.getDeckIndex());
+        targetSelector.setPromptText("None (top level)");
+        Button topLevelButton = createModernButton("Top Level");
+        topLevelButton.setOnAction(e -> targetSelector.setValue(null));
+        TextField nameField = new TextField(deck.getName() + " (copy)");
+        nameField.disableProperty().bind(operationSelector.valueProperty().isNotEqualTo("Copy to"));
+
+        VBox content = new VBox(15);
+        content.setPadding(new Insets(20));
+        content.getChildren().addAll(
+                new Label("Operation:"), operationSelector,
+                new Label("Target deck:"), new HBox(10, targetSelector, topLevelButton),
+                new Label("Name of the copy:"), nameField
+        );
+        content.getStyleClass().add("dialog-content");
+
+        dialog.getDialogPane().setContent(content);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        applyDialogStyle(dialog);
+
+        dialog.showAndWait().filter(result -> result == ButtonType.OK).ifPresent(result -> {
+            Deck target = targetSelector.getValue();
+            Integer targetId = target == null ? null : target.getId();
+            // przeniesienie do wlasnego poddrzewa odrzucamy od razu, zanim cokolwiek trafi do bazy
+            if (targetId != null && !"Copy to".equals(operationSelector.getValue())
+                    && databaseManager.getDeckIndex().getSubtreeIds(deck.getId()).contains(targetId)) {
+                showAlert("Error", "A deck cannot be moved or merged into itself or its subdecks.");
+                return;
+            }
+            switch (operationSelector.getValue()) {
+                case "Copy to" -> {
+                    String name = nameField.getText().trim();
+                    if (name.isEmpty()) {
+                        showAlert("Error", "Please enter a name for the copy.");
+                        return;
+                    }
+                    asyncDatabase.cloneDeck(deck.getId(), targetId, name).thenAccept(copy -> {
+                        if (copy != null) {
+                            deckManager.onDeckAdded(copy);
+                            deckManager.refreshCounts(copy.getId());
+                        } else {
+                            showAlert("Error", "Failed to copy the deck.");
+                        }
+                    });
+                }
+                case "Move to" -> asyncDatabase.moveDeck(deck.getId(), targetId).thenAccept(moved -> {
+                    if (moved) {
+                        deckManager.onDeckSaved(databaseManager.getDeck(deck.getId()));
+                    } else {
+                        showAlert("Error", "Failed to move the deck. The target may already contain a deck with this name.");
+                    }
+                });
+                default -> {
+                    if (target == null) {
+                        showAlert("Error", "Please select a deck to merge into.");
+                        return;
+                    }
+                    List<Deck> children = databaseManager.getDeckIndex().getChildren(deck.getId());
+                    asyncDatabase.mergeDecks(deck.getId(), target.getId()).thenAccept(merged -> {
+                        if (merged) {
+                            for (Deck child : children) {
+                                deckManager.onDeckSaved(databaseManager.getDeck(child.getId()));
+                            }
+                            deckManager.onDeckDeleted(deck.getId(), deck.getParentId());
+                            onFlashcardsAdded(target.getId());
+                        } else {
+                            showAlert("Error", "Failed to merge the decks. The target may already contain a subdeck with the same name.");
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private void exportDeck() {
+        Deck deck = deckManager.getSelectedDeck();
+        if (deck == null) {
+            showAlert("Error", "Please select a deck to export.");
+            return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Deck");
+        fileChooser.setInitialFileName(deck.getName() + ".csv");
+        // format wynika z rozszerzenia: .lix - binarny z drzewem deckow, .gz - kompresja
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
+                new FileChooser.ExtensionFilter("Compressed CSV Files", "*.csv.gz"),
+                new FileChooser.ExtensionFilter("LearnIt Binary Files", "*.lix"),
+                new FileChooser.ExtensionFilter("Compressed LearnIt Binary Files", "*.lix.gz"));
+        File file = fileChooser.showSaveDialog(primaryStage);
+        if (file == null) {
+            return;
+        }
+        boolean includeSubdecks = false;
+        if (!databaseManager.getDeckIndex().getChildren(deck.getId()).isEmpty()) {
+            Alert question = new Alert(Alert.AlertType.CONFIRMATION, "Include subdecks of \"" + deck.getName() + "\"?",
+                    ButtonType.YES, ButtonType.NO);
+            question.setTitle("Export Deck");
+            question.setHeaderText(null);
+            applyDialogStyle(question);
+            includeSubdecks = question.showAndWait().orElse(ButtonType.NO) == ButtonType.YES;
+        }
+        boolean subtree = includeSubdecks;
+        asyncDatabase.supply(() -> exportToFile(file, deck.getId(), subtree)).whenComplete((exported, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                showAlert("Error", "Failed to export flashcards: " + cause.getMessage());
+            } else {
+                showAlert("Success", "Exported " + exported + " flashcards to " + file.getName() + ".");
+            }
+        });
+    }
+
+    /**
+     * Wywoływane poza wątkiem JavaFX.
+     * @throws UncheckedIOException gdy pliku nie da się zapisać
+     */
+    private long exportToFile(File file, int deckId, boolean includeSubdecks) {
+        long start = System.nanoTime();
+        try (FlashcardExporter exporter = FlashcardExporter.forFile(file.toPath())) {
+            long exported = databaseManager.exportFlashcards(deckId, includeSubdecks, exporter);
+            exporter.finish();
+            System.out.println("Export to " + file.getName() + ": " + exported + " flashcards in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return exported;
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void addFlashcard() {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Add Flashcard");
+        dialog.setHeaderText("Add or import flashcards:");
+
+        ComboBox<Deck> deckSelector = createDeckSelector(databaseManager.getDeckIndex());
+        deckSelector.setPromptText("Select a deck");
+        deckSelector.setPrefWidth(200);
+
+        TextField frontField = new TextField();
+        frontField.setPromptText("Enter front text");
+        TextField backField = new TextField();
+        backField.setPromptText("Enter back text");
+
+        Button importButton = createModernButton("Import from CSV");
+        importButton.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Select CSV File");
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+            File file = fileChooser.showOpenDialog(dialog.getDialogPane().getScene().getWindow());
+            if (file != null && deckSelector.getValue() != null) {
+                Deck selectedDeck = deckSelector.getValue();
+                if (selectedDeck != null) {
+                    int deckId = selectedDeck.getId();
+                    dialog.close();
+                    asyncDatabase.supply(() -> importFromCSV(file, deckId)).whenComplete((importResult, error) -> {
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                            showAlert("Error", "Failed to import flashcards: " + cause.getMessage());
+                        } else {
+                            showAlert("Success", "Imported " + importResult.getInserted() + " flashcards"
+                                    + (importResult.getRejected() > 0 ? ", rejected " + importResult.getRejected() + " invalid rows." : "."));
+                        }
+                        // czesc paczek mogla zostac zapisana przed bledem
+                        onFlashcardsAdded(deckId);
+                    });
+                }
+            } else {
+                showAlert("Error", "Please select a deck before importing!");
+            }
+        });
+
+        VBox content = new VBox(15);
+        content.setPadding(new Insets(20));
+        content.getChildren().addAll(
+                new Label("Deck:"), deckSelector,
+                new Label("Front:"), frontField,
+                new Label("Back:"), backField,
+                importButton
+        );
+        content.getStyleClass().add("dialog-content");
+
+        dialog.getDialogPane().setContent(content);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        applyDialogStyle(dialog);
+
+        dialog.showAndWait().ifPresent(result -> {
+            if (result == ButtonType.OK) {
+                Deck selectedDeck = deckSelector.getValue();
+                String frontText = frontField.getText().trim();
+                String backText = backField.getText().trim();
+                if (selectedDeck != null && !frontText.isEmpty() && !backText.isEmpty()) {
+                    int deckId = selectedDeck.getId();
+                    asyncDatabase.supply(() -> flashcardManager.addFlashcard(deckId, frontText, backText)).whenComplete((added, error) -> {
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                            showAlert("Error", "Failed to add the flashcard: " + cause.getMessage());
+                        } else if (!added) {
+                            showAlert("Error", "Failed to add the flashcard. The deck may have been deleted.");
+                        } else {
+                            showAlert("Success", "Flashcard added!");
+                            onFlashcardsAdded(deckId);
+                        }
+                    });
+                } else if (frontText.isEmpty() && backText.isEmpty()) {
+                    // Nic nie rób, jeśli pola są puste - import już obsłużony
+                } else {
+                    showAlert("Error", "Please select a deck and fill both front and back fields!");
+                }
+            }
+        });
+    }
+
+    private void searchFlashcards() {
+        // wyszukiwanie w poddrzewie decku zaznaczonego w chwili otwarcia okna
+        Deck selectedDeck = deckManager.getSelectedDeck();
+        Stage searchStage = new Stage();
+        searchStage.setTitle("Search Flashcards");
+
+        TextField queryField = new TextField();
+        queryField.setPromptText("Words or word beginnings");
+        CheckBox selectedDeckOnly = new CheckBox(selectedDeck == null
+                ? "Only selected deck"
+                : "Only in " + databaseManager.getDeckIndex().getPath(selectedDeck.getId()));
+        selectedDeckOnly.setDisable(selectedDeck == null);
+        Label statusLabel = new Label();
+        ListView<SearchResult> resultList = new ListView<>();
+        resultList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(SearchResult result, boolean empty) {
+                super.updateItem(result, empty);
+                setText(empty || result == null ? null
+                        : result.getFlashcard().getFront() + " - " + result.getFlashcard().getBack()
+                        + "\n" + databaseManager.getDeckIndex().getPath(result.getDeckId()));
+            }
+        });
+
+        Runnable runSearch = () -> {
+            String query = queryField.getText();
+            Integer deckId = selectedDeckOnly.isSelected() && selectedDeck != null ? selectedDeck.getId() : null;
+            // kazde nowe zapytanie anuluje wynik poprzedniego, wiec pisanie nie zalewa listy starymi wynikami
+            asyncDatabase.supplyLatest("search", () -> databaseManager.searchFlashcards(query, deckId, SEARCH_RESULT_LIMIT))
+                    .thenAccept(results -> {
+                        resultList.getItems().setAll(results);
+                        statusLabel.setText(results.size() + " result(s)"
+                                + (databaseManager.isSearchIndexReady() ? "" : " - search index is still being built"));
+                    });
+        };
+        queryField.textProperty().addListener((obs, oldQuery, newQuery) -> runSearch.run());
+        selectedDeckOnly.selectedProperty().addListener((obs, oldValue, newValue) -> runSearch.run());
+
+        VBox searchLayout = new VBox(10, queryField, selectedDeckOnly, resultList, statusLabel);
+        searchLayout.setPadding(new Insets(15));
+        VBox.setVgrow(resultList, Priority.ALWAYS);
+        Scene scene = new Scene(searchLayout, 500, 400);
+        scene.getStylesheets().add(STYLESHEET);
+        searchStage.setScene(scene);
+        searchStage.show();
+    }
+
+    private ComboBox<Deck> createDeckSelector(DeckIndex deckIndex) {
+        ComboBox<Deck> deckSelector = new ComboBox<>();
+        deckSelector.getItems().addAll(deckIndex.getDecks());
+        // nazwy nie sa unikalne miedzy roznymi rodzicami, wiec pokazujemy pelna sciezke
+        deckSelector.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Deck deck) {
+                return deck == null ? "" : deckIndex.getPath(deck.getId());
+            }
+
+            @Override
+            public Deck fromString(String path) {
+                return null;
+            }
+        });
+        return deckSelector;
+    }
+
+    /**
+     * Pokazuje zmiany innych instancji aplikacji, naniesione już na cache przez {@link ChangeFeedPoller}.
+     * Wywoływane w wątku JavaFX.
+     */
+    public void onRemoteChanges(List<DeckChange> changes) {
+        for (DeckChange change : changes) {
+            switch (change.getType()) {
+                case DECK_SAVED:
+                    Deck deck = databaseManager.getDeck(change.getDeckId());
+                    if (deck != null) {
+                        deckManager.onDeckSaved(deck);
+                    }
+                    break;
+                case DECK_DELETED:
+                case DECKS_MERGED:
+                    deckManager.onDeckDeleted(change.getDeckId(), change.getParentId());
+                    break;
+                case FLASHCARDS_ADDED:
+                    onFlashcardsAdded(change.getDeckId());
+                    break;
+                case RELOADED:
+                    deckManager.loadDeckHierarchy();
+                    break;
+            }
+        }
+    }
+
+    private void onFlashcardsAdded(int deckId) {
+        deckManager.refreshCounts(deckId);
+        if (studyView != null && studyView.isShowing() && studySession != null && studySession.getDeckId() == deckId) {
+            studySession.onCardsAdded();
+        }
+    }
+
+    /**
+     * Wywoływane poza wątkiem JavaFX.
+     * @throws UncheckedIOException gdy pliku nie da się odczytać
+     * @throws CompletionException z SQLException, gdy baza przestała odpowiadać w trakcie importu
+     */
+    private BulkInsertResult importFromCSV(File file, int deckId) {
+        try (Stream<Flashcard> flashcards = CsvFlashcardReader.read(file.toPath())) {
+            BulkInsertResult result = flashcardManager.addFlashcards(deckId, flashcards, BulkInsertListener.NONE);
+            System.out.println("CSV import from " + file.getName() + ": " + result);
+            return result;
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new CompletionException(e);
+        }
+    }
+
+    private void showFlashcards(TreeItem<Integer> selectedItem) {
+        Deck selectedDeck = databaseManager.getDeck(selectedItem.getValue());
+        if (selectedDeck == null) return;
+
+        if (studySession != null) {
+            studySession.close();
+        }
+        StudySession session = new StudySession(databaseManager, selectedDeck.getId(), batchSize, studyWindowSize, prefetchExecutor);
+        studySession = session;
+        // paczka doszla dopiero po ocenie fiszki - dokoncz przejscie na watku FX
+        session.setOnCardsAvailable(() -> Platform.runLater(() -> {
+            if (studySession == session && studyView != null) {
+                studyView.showCurrent();
+            }
+        }));
+        // pierwsza paczka laduje sie w tle; szybkie przelaczanie deckow anuluje poprzednie ladowanie
+        asyncDatabase.supplyLatest("study-session", session::start).whenComplete((hasCards, error) -> {
+            if (studySession != session) {
+                return;
+            }
+            if (hasCards != null && hasCards) {
+                if (studyView == null) {
+                    studyView = new StudyView(databaseManager.getMetrics());
+                }
+                studyView.show(selectedDeck, session);
+                return;
+            }
+            // okno pokazywaloby fiszki poprzedniego decku z juz zamknietej sesji
+            if (studyView != null) {
+                studyView.hide();
+            }
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                showAlert("Error", "Failed to load flashcards: " + cause.getMessage());
+            } else {
+                showAlert("Info", "Nothing to study in this deck.");
+            }
+        });
+    }
+
+    private void applyDialogStyle(Dialog<?> dialog) {
+        dialog.getDialogPane().getStylesheets().add(STYLESHEET);
+        dialog.getDialogPane().getStyleClass().add("learnit-dialog");
+    }
+
+    private void showAlert(String title, String message) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        applyDialogStyle(alert);
+        alert.showAndWait();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.example.learnit;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zdarzenie JFR obejmujące cały masowy import fiszek do jednego decku.
+ */
+@Name("com.example.learnit.Import")
+@Label("Flashcard Import")
+@Category({"LearnIt", "Database"})
+public class ImportEvent extends Event {
+    @Label("Deck ID")
+    public int deckId;
+
+    @Label("Processed")
+    public long processed;
+
+    @Label("Inserted")
+    public long inserted;
+
+    @Label("Rejected")
+    public long rejected;
+}
\ No newline at end of file
@@ -0,0 +1,249 @@
+package com.example.learnit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repozytorium mierzące każde wywołanie: czas i błędy trafiają do {@link MetricsRegistry}
+ * pod nazwą "db.&lt;metoda&gt;", a przy włączonym nagrywaniu JFR powstaje {@link DatabaseQueryEvent}.
+ * Samą pracę wykonuje opakowane repozytorium.
+ */
+public class InstrumentedFlashcardRepository implements FlashcardRepository {
+    private final FlashcardRepository delegate;
+    private final MetricsRegistry metrics;
+
+    public InstrumentedFlashcardRepository(FlashcardRepository delegate, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @FunctionalInterface
+    private interface SqlCall<T> {
+        T call() throws SQLException;
+    }
+
+    private <T> T timed(String operation, SqlCall<T> call) throws SQLException {
+        OperationStats stats = metrics.operation(operation);
+        DatabaseQueryEvent event = new DatabaseQueryEvent();
+        event.begin();
+        long start = System.nanoTime();
+        T result = null;
+        boolean failed = true;
+        try {
+            result = call.call();
+            failed = false;
+            return result;
+        } finally {
+            stats.record(System.nanoTime() - start, failed);
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.rows = rows(result);
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    private static int rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        return -1;
+    }
+
+    @Override
+    public void initializeSchema() throws SQLException {
+        timed("db.initializeSchema", () -> {
+            delegate.initializeSchema();
+            return null;
+        });
+    }
+
+    @Override
+    public List<Deck> findAllDecks() throws SQLException {
+        return timed("db.findAllDecks", delegate::findAllDecks);
+    }
+
+    @Override
+    public int insertDeck(String name, Integer parentId) throws SQLException {
+        return timed("db.insertDeck", () -> delegate.insertDeck(name, parentId));
+    }
+
+    @Override
+    public void deleteDeck(int id) throws SQLException {
+        timed("db.deleteDeck", () -> {
+            delegate.deleteDeck(id);
+            return null;
+        });
+    }
+
+    @Override
+    public void renameDeck(int id, String newName) throws SQLException {
+        timed("db.renameDeck", () -> {
+            delegate.renameDeck(id, newName);
+            return null;
+        });
+    }
+
+    @Override
+    public Map<Integer, Integer> cloneDecks(List<Deck> subtree, Integer targetParentId, String rootName) throws SQLException {
+        return timed("db.cloneDecks", () -> delegate.cloneDecks(subtree, targetParentId, rootName));
+    }
+
+    @Override
+    public void moveDeck(int id, Integer newParentId) throws SQLException {
+        timed("db.moveDeck", () -> {
+            delegate.moveDeck(id, newParentId);
+            return null;
+        });
+    }
+
+    @Override
+    public int mergeDecks(int sourceId, int targetId) throws SQLException {
+        return timed("db.mergeDecks", () -> delegate.mergeDecks(sourceId, targetId));
+    }
+
+    @Override
+    public int insertFlashcard(int deckId, String front, String back) throws SQLException {
+        return timed("db.insertFlashcard", () -> delegate.insertFlashcard(deckId, front, back));
+    }
+
+    @Override
+    public Map<Integer, String> insertFlashcards(int deckId, List<Flashcard> flashcards, int batchSize) throws SQLException {
+        return timed("db.insertFlashcards", () -> delegate.insertFlashcards(deckId, flashcards, batchSize));
+    }
+
+    @Override
+    public Map<Integer, String> insertJournaledFlashcards(String segmentKey, int deckId, List<Flashcard> flashcards,
+                                                          int batchSize) throws SQLException {
+        return timed("db.insertJournaledFlashcards", () -> delegate.insertJournaledFlashcards(segmentKey, deckId, flashcards, batchSize));
+    }
+
+    @Override
+    public void deleteJournalKeys(String segmentKey) throws SQLException {
+        timed("db.deleteJournalKeys", () -> {
+            delegate.deleteJournalKeys(segmentKey);
+            return segmentKey;
+        });
+    }
+
+    @Override
+    public Map<Integer, Integer> countFlashcardsByDeck() throws SQLException {
+        return timed("db.countFlashcardsByDeck", delegate::countFlashcardsByDeck);
+    }
+
+    @Override
+    public List<Flashcard> findFlashcardsAfter(int deckId, int afterId, int limit) throws SQLException {
+        return timed("db.findFlashcardsAfter", () -> delegate.findFlashcardsAfter(deckId, afterId, limit));
+    }
+
+    @Override
+    public List<Flashcard> findFlashcards(int deckId) throws SQLException {
+        return timed("db.findFlashcards", () -> delegate.findFlashcards(deckId));
+    }
+
+    @Override
+    public List<ScheduledCard> findDueCards(int deckId, long dueBefore, long afterDueAt, int afterId, int limit) throws SQLException {
+        return timed("db.findDueCards", () -> delegate.findDueCards(deckId, dueBefore, afterDueAt, afterId, limit));
+    }
+
+    @Override
+    public Map<Integer, List<Flashcard>> findAllFlashcardsAfter(int afterId, int limit) throws SQLException {
+        return timed("db.findAllFlashcardsAfter", () -> delegate.findAllFlashcardsAfter(afterId, limit));
+    }
+
+    @Override
+    public List<Flashcard> findFlashcardsByIds(List<Integer> ids) throws SQLException {
+        return timed("db.findFlashcardsByIds", () -> delegate.findFlashcardsByIds(ids));
+    }
+
+    @Override
+    public long streamFlashcards(int deckId, FlashcardRowHandler handler) throws SQLException, IOException {
+        try {
+            return timed("db.streamFlashcards", () -> {
+                try {
+                    return delegate.streamFlashcards(deckId, handler);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public List<Flashcard> findUnscheduledFlashcards(int deckId, int afterId, int limit) throws SQLException {
+        return timed("db.findUnscheduledFlashcards", () -> delegate.findUnscheduledFlashcards(deckId, afterId, limit));
+    }
+
+    @Override
+    public Map<Integer, CardSchedule> findSchedules(List<Integer> flashcardIds) throws SQLException {
+        return timed("db.findSchedules", () -> delegate.findSchedules(flashcardIds));
+    }
+
+    @Override
+    public void saveSchedules(List<CardSchedule> schedules) throws SQLException {
+        timed("db.saveSchedules", () -> {
+            delegate.saveSchedules(schedules);
+            return schedules;
+        });
+    }
+
+    @Override
+    public String getChangeOrigin() {
+        return delegate.getChangeOrigin();
+    }
+
+    @Override
+    public List<DeckChange> findChangesAfter(long afterId, int limit) throws SQLException {
+        return timed("db.findChangesAfter", () -> delegate.findChangesAfter(afterId, limit));
+    }
+
+    @Override
+    public long findOldestChangeId() throws SQLException {
+        return timed("db.findOldestChangeId", delegate::findOldestChangeId);
+    }
+
+    @Override
+    public long findLatestChangeId() throws SQLException {
+        return timed("db.findLatestChangeId", delegate::findLatestChangeId);
+    }
+
+    @Override
+    public int deleteChangesBefore(long createdBefore) throws SQLException {
+        return timed("db.deleteChangesBefore", () -> delegate.deleteChangesBefore(createdBefore));
+    }
+
+    @Override
+    public int countMismatchedSchedules() throws SQLException {
+        return timed("db.countMismatchedSchedules", delegate::countMismatchedSchedules);
+    }
+
+    @Override
+    public int repairMismatchedSchedules() throws SQLException {
+        return timed("db.repairMismatchedSchedules", delegate::repairMismatchedSchedules);
+    }
+
+    @Override
+    public long countBlankFlashcards() throws SQLException {
+        return timed("db.countBlankFlashcards", delegate::countBlankFlashcards);
+    }
+
+    @Override
+    public PoolStats getPoolStats() {
+        return delegate.getPoolStats();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
\ No newline at end of file
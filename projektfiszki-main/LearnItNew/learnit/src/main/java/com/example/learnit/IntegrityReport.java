@@ -0,0 +1,74 @@
+package com.example.learnit;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wynik sprawdzenia spójności danych ({@link DatabaseManager#checkIntegrity(boolean)}).
+ * Problemy, których nie blokują klucze obce: decki w cyklu (niedostępne z drzewa), decki
+ * najwyższego poziomu o tej samej nazwie (UNIQUE nie obejmuje NULL), harmonogram z deck_id
+ * innym niż fiszki i fiszki z pustą stroną.
+ */
+public class IntegrityReport {
+    private final int deckCount;
+    private final long flashcardCount;
+    private final List<Integer> unreachableDeckIds;
+    private final List<String> duplicateDeckPaths;
+    private final int mismatchedSchedules;
+    private final int repairedSchedules;
+    private final long blankFlashcards;
+
+    public IntegrityReport(int deckCount, long flashcardCount, List<Integer> unreachableDeckIds, List<String> duplicateDeckPaths,
+                           int mismatchedSchedules, int repairedSchedules, long blankFlashcards) {
+        this.deckCount = deckCount;
+        this.flashcardCount = flashcardCount;
+        this.unreachableDeckIds = Collections.unmodifiableList(unreachableDeckIds);
+        this.duplicateDeckPaths = Collections.unmodifiableList(duplicateDeckPaths);
+        this.mismatchedSchedules = mismatchedSchedules;
+        this.repairedSchedules = repairedSchedules;
+        this.blankFlashcards = blankFlashcards;
+    }
+
+    public int getDeckCount() {
+        return deckCount;
+    }
+
+    public long getFlashcardCount() {
+        return flashcardCount;
+    }
+
+    public List<Integer> getUnreachableDeckIds() {
+        return unreachableDeckIds;
+    }
+
+    public List<String> getDuplicateDeckPaths() {
+        return duplicateDeckPaths;
+    }
+
+    public int getMismatchedSchedules() {
+        return mismatchedSchedules;
+    }
+
+    public int getRepairedSchedules() {
+        return repairedSchedules;
+    }
+
+    public long getBlankFlashcards() {
+        return blankFlashcards;
+    }
+
+    /**
+     * Czy nie ma problemów; poprawione wpisy harmonogramu się nie liczą.
+     */
+    public boolean isClean() {
+        return unreachableDeckIds.isEmpty() && duplicateDeckPaths.isEmpty()
+                && mismatchedSchedules == repairedSchedules && blankFlashcards == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "decks=" + deckCount + ", flashcards=" + flashcardCount + ", unreachableDecks=" + unreachableDeckIds.size()
+                + ", duplicateDecks=" + duplicateDeckPaths.size() + ", mismatchedSchedules=" + mismatchedSchedules
+                + ", repairedSchedules=" + repairedSchedules + ", blankFlashcards=" + blankFlashcards;
+    }
+}
\ No newline at end of file
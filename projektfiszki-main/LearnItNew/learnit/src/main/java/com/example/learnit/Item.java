@@ -1,4 +1,4 @@
-package com.example.learnit;
-
-public class Item {
-}
+package com.example.learnit;
+
+public class Item {
+}
@@ -0,0 +1,841 @@
+package com.example.learnit;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Wspólna implementacja repozytorium na JDBC i puli połączeń. Podklasy dostarczają DDL
+ * i ustawienia specyficzne dla silnika bazy.
+ */
+public abstract class JdbcFlashcardRepository implements FlashcardRepository {
+    protected final ConnectionPool connectionPool;
+    // identyfikator tej instancji w dzienniku zmian
+    private final String changeOrigin = UUID.randomUUID().toString();
+
+    protected JdbcFlashcardRepository(DatabaseConfig config) {
+        this.connectionPool = new ConnectionPool(config);
+    }
+
+    /**
+     * Wersja schematu, której oczekuje ten kod; podnoszona razem z dopisaniem migracji w {@link #migrate}.
+     */
+    public static final int SCHEMA_VERSION = 2;
+
+    /**
+     * Instrukcje tworzące schemat; muszą być idempotentne (CREATE ... IF NOT EXISTS).
+     */
+    protected abstract List<String> schemaStatements();
+
+    /**
+     * Sprawdza wersję schematu jednym zapytaniem i uruchamia migracje tylko wtedy,
+     * gdy baza jest starsza niż kod (albo jeszcze nie ma tabeli schema_version).
+     */
+    @Override
+    public void initializeSchema() throws SQLException {
+        try (PooledConnection connection = connectionPool.borrow()) {
+            int version = readSchemaVersion(connection.getConnection());
+            if (version == SCHEMA_VERSION) {
+                return;
+            }
+            if (version > SCHEMA_VERSION) {
+                System.err.println("Database schema version " + version + " is newer than supported version " + SCHEMA_VERSION);
+                return;
+            }
+            long start = System.nanoTime();
+            try (Statement statement = connection.getConnection().createStatement()) {
+                migrate(statement, version);
+                statement.execute("CREATE TABLE IF NOT EXISTS schema_version (version INT NOT NULL)");
+                statement.execute("DELETE FROM schema_version");
+                statement.execute("INSERT INTO schema_version (version) VALUES (" + SCHEMA_VERSION + ")");
+            }
+            System.out.println("Database schema migrated from version " + version + " to " + SCHEMA_VERSION + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * @return wersja zapisana w bazie albo 0, gdy tabeli wersji jeszcze nie ma
+     */
+    private static int readSchemaVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        } catch (SQLException e) {
+            // brak tabeli - baza sprzed wersjonowania albo zupelnie nowa
+            return 0;
+        }
+    }
+
+    /**
+     * Doprowadza schemat z podanej wersji do {@link #SCHEMA_VERSION}; każdy krok musi być
+     * idempotentny, bo dwie instancje mogą migrować tę samą bazę jednocześnie.
+     */
+    protected void migrate(Statement statement, int fromVersion) throws SQLException {
+        if (fromVersion < 1) {
+            // wersja 1: tabele i indeksy jak w schemaStatements, rowniez dla baz sprzed wersjonowania
+            for (String sql : schemaStatements()) {
+                statement.execute(sql);
+            }
+            // tabele utworzone przed dodaniem indeksu trzeba uzupelnic recznie
+            if (!hasIndex(statement.getConnection(), "flashcards", "idx_flashcards_deck_id_id")) {
+                statement.execute("CREATE INDEX idx_flashcards_deck_id_id ON flashcards (deck_id, id)");
+            }
+        }
+        if (fromVersion < 2) {
+            // wersja 2: klucze paczek dziennika zapisanych do bazy, zeby powtorka segmentu po awarii nie dublowala fiszek
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS journal_applied (
+                        segment_key VARCHAR(64) NOT NULL,
+                        deck_id INT NOT NULL,
+                        applied_at BIGINT NOT NULL,
+                        PRIMARY KEY (segment_key, deck_id)
+                    )
+                    """);
+        }
+    }
+
+    protected static boolean hasIndex(Connection connection, String table, String indexName) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String tableName : new String[]{table, table.toUpperCase()}) {
+            try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, tableName, false, false)) {
+                while (indexes.next()) {
+                    if (indexName.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<Deck> findAllDecks() throws SQLException {
+        List<Deck> decks = new ArrayList<>();
+        String sql = "SELECT id, name, parent_id FROM decks";
+        try (PooledConnection connection = connectionPool.borrow();
+             ResultSet resultSet = connection.prepare(sql).executeQuery()) {
+            while (resultSet.next()) {
+                int id = resultSet.getInt("id");
+                String name = resultSet.getString("name");
+                Integer parentId = resultSet.getObject("parent_id") != null ? resultSet.getInt("parent_id") : null;
+                decks.add(new Deck(id, name, parentId));
+            }
+        }
+        return decks;
+    }
+
+    @Override
+    public int insertDeck(String name, Integer parentId) throws SQLException {
+        String insertSQL = "INSERT INTO decks (name, parent_id) VALUES (?, ?)";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            return inTransaction(connection, () -> {
+                PreparedStatement preparedStatement = connection.prepare(insertSQL, Statement.RETURN_GENERATED_KEYS);
+                preparedStatement.setString(1, name);
+                if (parentId != null) {
+                    preparedStatement.setInt(2, parentId);
+                } else {
+                    preparedStatement.setNull(2, Types.INTEGER);
+                }
+                preparedStatement.executeUpdate();
+                int id = generatedId(preparedStatement);
+                logChange(connection, DeckChange.Type.DECK_SAVED, id, parentId, name, 0);
+                return id;
+            });
+        }
+    }
+
+    @Override
+    public void deleteDeck(int id) throws SQLException {
+        String deleteSQL = "DELETE FROM decks WHERE id = ?";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            inTransaction(connection, () -> {
+                PreparedStatement preparedStatement = connection.prepare(deleteSQL);
+                preparedStatement.setInt(1, id);
+                preparedStatement.executeUpdate();
+                // poddecki usuwa kaskada, wiec w dzienniku wystarczy korzen poddrzewa
+                logChange(connection, DeckChange.Type.DECK_DELETED, id, null, null, 0);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void renameDeck(int id, String newName) throws SQLException {
+        String updateSQL = "UPDATE decks SET name = ? WHERE id = ?";
+        String selectParentSQL = "SELECT parent_id FROM decks WHERE id = ?";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            inTransaction(connection, () -> {
+                PreparedStatement preparedStatement = connection.prepare(updateSQL);
+                preparedStatement.setString(1, newName);
+                preparedStatement.setInt(2, id);
+                preparedStatement.executeUpdate();
+                PreparedStatement selectParent = connection.prepare(selectParentSQL);
+                selectParent.setInt(1, id);
+                try (ResultSet resultSet = selectParent.executeQuery()) {
+                    if (resultSet.next()) {
+                        Integer parentId = resultSet.getObject("parent_id") != null ? resultSet.getInt("parent_id") : null;
+                        logChange(connection, DeckChange.Type.DECK_SAVED, id, parentId, newName, 0);
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public Map<Integer, Integer> cloneDecks(List<Deck> subtree, Integer targetParentId, String rootName) throws SQLException {
+        String insertDeckSQL = "INSERT INTO decks (name, parent_id) VALUES (?, ?)";
+        String copyFlashcardsSQL = "INSERT INTO flashcards (deck_id, front, back) SELECT ?, front, back FROM flashcards WHERE deck_id = ? ORDER BY id";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            return inTransaction(connection, () -> {
+                Map<Integer, Integer> newIds = new HashMap<>();
+                Map<Integer, Integer> copiedCounts = new LinkedHashMap<>();
+                for (Deck deck : subtree) {
+                    Integer parentId = newIds.isEmpty() ? targetParentId : newIds.get(deck.getParentId());
+                    String name = newIds.isEmpty() ? rootName : deck.getName();
+                    PreparedStatement insertDeck = connection.prepare(insertDeckSQL, Statement.RETURN_GENERATED_KEYS);
+                    insertDeck.setString(1, name);
+                    if (parentId != null) {
+                        insertDeck.setInt(2, parentId);
+                    } else {
+                        insertDeck.setNull(2, Types.INTEGER);
+                    }
+                    insertDeck.executeUpdate();
+                    int newId = generatedId(insertDeck);
+                    newIds.put(deck.getId(), newId);
+                    logChange(connection, DeckChange.Type.DECK_SAVED, newId, parentId, name, 0);
+
+                    // fiszki calego decku jednym zapytaniem, bez przesylania ich przez aplikacje
+                    PreparedStatement copyFlashcards = connection.prepare(copyFlashcardsSQL);
+                    copyFlashcards.setInt(1, newId);
+                    copyFlashcards.setInt(2, deck.getId());
+                    int copied = copyFlashcards.executeUpdate();
+                    copiedCounts.put(newId, copied);
+                    if (copied > 0) {
+                        logChange(connection, DeckChange.Type.FLASHCARDS_ADDED, newId, null, null, copied);
+                    }
+                }
+                return copiedCounts;
+            });
+        }
+    }
+
+    @Override
+    public void moveDeck(int id, Integer newParentId) throws SQLException {
+        String updateSQL = "UPDATE decks SET parent_id = ? WHERE id = ?";
+        String selectNameSQL = "SELECT name FROM decks WHERE id = ?";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            inTransaction(connection, () -> {
+                PreparedStatement preparedStatement = connection.prepare(updateSQL);
+                if (newParentId != null) {
+                    preparedStatement.setInt(1, newParentId);
+                } else {
+                    preparedStatement.setNull(1, Types.INTEGER);
+                }
+                preparedStatement.setInt(2, id);
+                preparedStatement.executeUpdate();
+                PreparedStatement selectName = connection.prepare(selectNameSQL);
+                selectName.setInt(1, id);
+                try (ResultSet resultSet = selectName.executeQuery()) {
+                    if (resultSet.next()) {
+                        logChange(connection, DeckChange.Type.DECK_SAVED, id, newParentId, resultSet.getString(1), 0);
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public int mergeDecks(int sourceId, int targetId) throws SQLException {
+        String selectChildrenSQL = "SELECT id, name FROM decks WHERE parent_id = ?";
+        String moveChildrenSQL = "UPDATE decks SET parent_id = ? WHERE parent_id = ?";
+        String moveFlashcardsSQL = "UPDATE flashcards SET deck_id = ? WHERE deck_id = ?";
+        String moveSchedulesSQL = "UPDATE card_schedule SET deck_id = ? WHERE deck_id = ?";
+        String deleteSQL = "DELETE FROM decks WHERE id = ?";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            return inTransaction(connection, () -> {
+                PreparedStatement moveFlashcards = connection.prepare(moveFlashcardsSQL);
+                moveFlashcards.setInt(1, targetId);
+                moveFlashcards.setInt(2, sourceId);
+                int moved = moveFlashcards.executeUpdate();
+                PreparedStatement moveSchedules = connection.prepare(moveSchedulesSQL);
+                moveSchedules.setInt(1, targetId);
+                moveSchedules.setInt(2, sourceId);
+                moveSchedules.executeUpdate();
+                if (moved > 0) {
+                    logChange(connection, DeckChange.Type.FLASHCARDS_ADDED, targetId, null, null, moved);
+                }
+
+                // poddecki w dzienniku przed usunieciem zrodla, zeby inne instancje nie usunely ich z cache
+                PreparedStatement selectChildren = connection.prepare(selectChildrenSQL);
+                selectChildren.setInt(1, sourceId);
+                Map<Integer, String> children = new LinkedHashMap<>();
+                try (ResultSet resultSet = selectChildren.executeQuery()) {
+                    while (resultSet.next()) {
+                        children.put(resultSet.getInt("id"), resultSet.getString("name"));
+                    }
+                }
+                PreparedStatement moveChildren = connection.prepare(moveChildrenSQL);
+                moveChildren.setInt(1, targetId);
+                moveChildren.setInt(2, sourceId);
+                moveChildren.executeUpdate();
+                for (Map.Entry<Integer, String> child : children.entrySet()) {
+                    logChange(connection, DeckChange.Type.DECK_SAVED, child.getKey(), targetId, child.getValue(), 0);
+                }
+
+                PreparedStatement delete = connection.prepare(deleteSQL);
+                delete.setInt(1, sourceId);
+                delete.executeUpdate();
+                // osobny typ wpisu, zeby inne instancje przepisaly przeniesione fiszki w indeksie wyszukiwania
+                logChange(connection, DeckChange.Type.DECKS_MERGED, sourceId, targetId, null, 0);
+                return moved;
+            });
+        }
+    }
+
+    @Override
+    public int insertFlashcard(int deckId, String front, String back) throws SQLException {
+        String sql = "INSERT INTO flashcards (deck_id, front, back) VALUES (?, ?, ?)";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            return inTransaction(connection, () -> {
+                PreparedStatement preparedStatement = connection.prepare(sql, Statement.RETURN_GENERATED_KEYS);
+                preparedStatement.setInt(1, deckId);
+                preparedStatement.setString(2, front);
+                preparedStatement.setString(3, back);
+                preparedStatement.executeUpdate();
+                int id = generatedId(preparedStatement);
+                logChange(connection, DeckChange.Type.FLASHCARDS_ADDED, deckId, null, null, 1);
+                return id;
+            });
+        }
+    }
+
+    /**
+     * Partie JDBC po batchSize wierszy w jednej transakcji. Jeśli partia się nie powiedzie,
+     * transakcja jest wycofywana i paczka wstawiana ponownie wiersz po wierszu, żeby odrzucić
+     * tylko wadliwe fiszki.
+     */
+    @Override
+    public Map<Integer, String> insertFlashcards(int deckId, List<Flashcard> flashcards, int batchSize) throws SQLException {
+        return insertFlashcards(deckId, flashcards, batchSize, null);
+    }
+
+    @Override
+    public Map<Integer, String> insertJournaledFlashcards(String segmentKey, int deckId, List<Flashcard> flashcards,
+                                                          int batchSize) throws SQLException {
+        return insertFlashcards(deckId, flashcards, batchSize, segmentKey);
+    }
+
+    @Override
+    public void deleteJournalKeys(String segmentKey) throws SQLException {
+        try (PooledConnection connection = connectionPool.borrow()) {
+            PreparedStatement preparedStatement = connection.prepare("DELETE FROM journal_applied WHERE segment_key = ?");
+            preparedStatement.setString(1, segmentKey);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * @param segmentKey klucz paczki dziennika zapisywany w tej samej transakcji co fiszki; null - bez klucza
+     * @return null, gdy paczka o tym kluczu jest już w bazie
+     */
+    private Map<Integer, String> insertFlashcards(int deckId, List<Flashcard> flashcards, int batchSize, String segmentKey)
+            throws SQLException {
+        String sql = "INSERT INTO flashcards (deck_id, front, back) VALUES (?, ?, ?)";
+        Map<Integer, String> rejected = new HashMap<>();
+        try (PooledConnection connection = connectionPool.borrow()) {
+            Connection jdbc = connection.getConnection();
+            PreparedStatement preparedStatement = connection.prepare(sql);
+            jdbc.setAutoCommit(false);
+            try {
+                if (segmentKey != null && isJournalKeyApplied(connection, segmentKey, deckId)) {
+                    jdbc.rollback();
+                    return null;
+                }
+                int pending = 0;
+                for (Flashcard flashcard : flashcards) {
+                    preparedStatement.setInt(1, deckId);
+                    preparedStatement.setString(2, flashcard.getFront());
+                    preparedStatement.setString(3, flashcard.getBack());
+                    preparedStatement.addBatch();
+                    if (++pending == batchSize) {
+                        preparedStatement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    preparedStatement.executeBatch();
+                }
+                logChange(connection, DeckChange.Type.FLASHCARDS_ADDED, deckId, null, null, flashcards.size());
+                markJournalKeyApplied(connection, segmentKey, deckId);
+                jdbc.commit();
+            } catch (SQLException batchFailure) {
+                if (isConnectionFailure(batchFailure)) {
+                    // zerwane polaczenie nie wroci do puli, a ponawianie wiersz po wierszu nic nie da
+                    connection.invalidate();
+                    throw batchFailure;
+                }
+                preparedStatement.clearBatch();
+                jdbc.rollback();
+                try {
+                    for (int i = 0; i < flashcards.size(); i++) {
+                        Flashcard flashcard = flashcards.get(i);
+                        preparedStatement.setInt(1, deckId);
+                        preparedStatement.setString(2, flashcard.getFront());
+                        preparedStatement.setString(3, flashcard.getBack());
+                        Savepoint savepoint = jdbc.setSavepoint();
+                        try {
+                            preparedStatement.executeUpdate();
+                            jdbc.releaseSavepoint(savepoint);
+                        } catch (SQLException rowFailure) {
+                            if (isConnectionFailure(rowFailure)) {
+                                // nie wina wiersza - kolejne i tak by nie przeszly
+                                connection.invalidate();
+                                throw rowFailure;
+                            }
+                            jdbc.rollback(savepoint);
+                            rejected.put(i, rowFailure.getMessage());
+                        }
+                    }
+                    if (rejected.size() < flashcards.size()) {
+                        logChange(connection, DeckChange.Type.FLASHCARDS_ADDED, deckId, null, null, flashcards.size() - rejected.size());
+                    }
+                    // klucz zapisany rowniez wtedy, gdy baza odrzucila wszystkie wiersze - powtorka dalaby to samo
+                    markJournalKeyApplied(connection, segmentKey, deckId);
+                    jdbc.commit();
+                } catch (SQLException failure) {
+                    // polaczenie albo zatwierdzenie zawiodlo - nic z paczki nie moze zostac w bazie
+                    jdbc.rollback();
+                    throw failure;
+                }
+            } finally {
+                jdbc.setAutoCommit(true);
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Błąd połączenia (SQLSTATE klasy 08) w odróżnieniu od wiersza odrzuconego przez bazę.
+     */
+    private static boolean isConnectionFailure(SQLException e) {
+        return e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException
+                || (e.getSQLState() != null && e.getSQLState().startsWith("08"));
+    }
+
+    private static boolean isJournalKeyApplied(PooledConnection connection, String segmentKey, int deckId) throws SQLException {
+        PreparedStatement preparedStatement = connection.prepare("SELECT 1 FROM journal_applied WHERE segment_key = ? AND deck_id = ?");
+        preparedStatement.setString(1, segmentKey);
+        preparedStatement.setInt(2, deckId);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            return resultSet.next();
+        }
+    }
+
+    private static void markJournalKeyApplied(PooledConnection connection, String segmentKey, int deckId) throws SQLException {
+        if (segmentKey == null) {
+            return;
+        }
+        PreparedStatement preparedStatement = connection.prepare(
+                "INSERT INTO journal_applied (segment_key, deck_id, applied_at) VALUES (?, ?, ?)");
+        preparedStatement.setString(1, segmentKey);
+        preparedStatement.setInt(2, deckId);
+        preparedStatement.setLong(3, System.currentTimeMillis());
+        preparedStatement.executeUpdate();
+    }
+
+    @Override
+    public Map<Integer, Integer> countFlashcardsByDeck() throws SQLException {
+        String sql = "SELECT deck_id, COUNT(*) FROM flashcards GROUP BY deck_id";
+        Map<Integer, Integer> counts = new HashMap<>();
+        try (PooledConnection connection = connectionPool.borrow();
+             ResultSet resultSet = connection.prepare(sql).executeQuery()) {
+            while (resultSet.next()) {
+                counts.put(resultSet.getInt(1), resultSet.getInt(2));
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public List<Flashcard> findFlashcardsAfter(int deckId, int afterId, int limit) throws SQLException {
+        CompactFlashcardList flashcards = new CompactFlashcardList(limit);
+        // ORDER BY deck_id, id (a nie samo id), zeby planista rozpoznal, ze indeks juz zwraca wiersze posortowane
+        String sql = "SELECT id, front, back FROM flashcards WHERE deck_id = ? AND id > ? ORDER BY deck_id, id LIMIT ?";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            PreparedStatement preparedStatement = connection.prepare(sql);
+            preparedStatement.setInt(1, deckId);
+            preparedStatement.setInt(2, afterId);
+            preparedStatement.setInt(3, limit);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                readFlashcards(resultSet, flashcards);
+            }
+        }
+        return flashcards;
+    }
+
+    @Override
+    public List<Flashcard> findFlashcards(int deckId) throws SQLException {
+        CompactFlashcardList flashcards = new CompactFlashcardList();
+        String sql = "SELECT id, front, back FROM flashcards WHERE deck_id = ? ORDER BY deck_id, id";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            PreparedStatement preparedStatement = connection.prepare(sql);
+            preparedStatement.setInt(1, deckId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                readFlashcards(resultSet, flashcards);
+            }
+        }
+        flashcards.trimToSize();
+        return flashcards;
+    }
+
+    @Override
+    public List<ScheduledCard> findDueCards(int deckId, long dueBefore, long afterDueAt, int afterId, int limit) throws SQLException {
+        List<ScheduledCard> cards = new ArrayList<>(limit);
+        // teksty calej paczki w jednej zwartej liscie, karty w kolejce trzymaja tylko widoki
+        CompactFlashcardList flashcards = new CompactFlashcardList(limit);
+        // zakres po indeksie (deck_id, due_at, flashcard_id) - nie zalezy od liczby fiszek w decku
+        String sql = """
+                SELECT s.flashcard_id, s.repetitions, s.interval_days, s.ease_factor, s.due_at, f.front, f.back
+                FROM card_schedule s JOIN flashcards f ON f.id = s.flashcard_id
+                WHERE s.deck_id = ? AND s.due_at <= ? AND (s.due_at > ? OR (s.due_at = ? AND s.flashcard_id > ?))
+                ORDER BY s.deck_id, s.due_at, s.flashcard_id LIMIT ?
+                """;
+        try (PooledConnection connection = connectionPool.borrow()) {
+            PreparedStatement preparedStatement = connection.prepare(sql);
+            preparedStatement.setInt(1, deckId);
+            preparedStatement.setLong(2, dueBefore);
+            preparedStatement.setLong(3, afterDueAt);
+            preparedStatement.setLong(4, afterDueAt);
+            preparedStatement.setInt(5, afterId);
+            preparedStatement.setInt(6, limit);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    int id = resultSet.getInt("flashcard_id");
+                    CardSchedule schedule = new CardSchedule(id, deckId, resultSet.getInt("repetitions"),
+                            resultSet.getInt("interval_days"), resultSet.getDouble("ease_factor"), resultSet.getLong("due_at"));
+                    flashcards.add(id, resultSet.getString("front"), resultSet.getString("back"));
+                    cards.add(new ScheduledCard(flashcards.get(flashcards.size() - 1), schedule, schedule.getDueAt()));
+                }
+            }
+        }
+        return cards;
+    }
+
+    @Override
+    public Map<Integer, List<Flashcard>> findAllFlashcardsAfter(int afterId, int limit) throws SQLException {
+        Map<Integer, List<Flashcard>> flashcardsByDeck = new LinkedHashMap<>();
+        String sql = "SELECT id, deck_id, front, back FROM flashcards WHERE id > ? ORDER BY id LIMIT ?";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            PreparedStatement preparedStatement = connection.prepare(sql);
+            preparedStatement.setInt(1, afterId);
+            preparedStatement.setInt(2, limit);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    CompactFlashcardList flashcards = (CompactFlashcardList) flashcardsByDeck
+                            .computeIfAbsent(resultSet.getInt("deck_id"), deckId -> new CompactFlashcardList());
+                    flashcards.add(resultSet.getInt("id"), resultSet.getString("front"), resultSet.getString("back"));
+                }
+            }
+        }
+        return flashcardsByDeck;
+    }
+
+    @Override
+    public List<Flashcard> findFlashcardsByIds(List<Integer> ids) throws SQLException {
+        CompactFlashcardList flashcards = new CompactFlashcardList(ids.size());
+        if (ids.isEmpty()) {
+            return flashcards;
+        }
+        // liczba parametrow zaokraglona do potegi dwojki (dopelniona ostatnim ID), zeby w cache
+        // polaczenia bylo kilka wersji zapytania, a nie osobna dla kazdej dlugosci listy
+        int slots = ids.size() == 1 ? 1 : Integer.highestOneBit(ids.size() - 1) << 1;
+        String sql = "SELECT id, front, back FROM flashcards WHERE id IN ("
+                + String.join(", ", Collections.nCopies(slots, "?")) + ")";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            PreparedStatement preparedStatement = connection.prepare(sql);
+            for (int i = 0; i < slots; i++) {
+                preparedStatement.setInt(i + 1, ids.get(Math.min(i, ids.size() - 1)));
+            }
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                readFlashcards(resultSet, flashcards);
+            }
+        }
+        return flashcards;
+    }
+
+    /**
+     * Rozmiar paczki wierszy pobieranej przez kursor w {@link #streamFlashcards}.
+     */
+    protected int streamingFetchSize() {
+        return 1_000;
+    }
+
+    @Override
+    public long streamFlashcards(int deckId, FlashcardRowHandler handler) throws SQLException, IOException {
+        String sql = "SELECT id, front, back FROM flashcards WHERE deck_id = ? ORDER BY id";
+        long rows = 0;
+        // osobne zapytanie poza buforem polaczenia - ustawienia kursora nie moga trafic do innych odczytow
+        try (PooledConnection connection = connectionPool.borrow();
+             PreparedStatement preparedStatement = connection.getConnection()
+                     .prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            preparedStatement.setFetchSize(streamingFetchSize());
+            preparedStatement.setInt(1, deckId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    handler.onRow(resultSet.getInt(1), resultSet.getString(2), resultSet.getString(3));
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public List<Flashcard> findUnscheduledFlashcards(int deckId, int afterId, int limit) throws SQLException {
+        CompactFlashcardList flashcards = new CompactFlashcardList(limit);
+        String sql = """
+                SELECT f.id, f.front, f.back FROM flashcards f
+                WHERE f.deck_id = ? AND f.id > ?
+                AND NOT EXISTS (SELECT 1 FROM card_schedule s WHERE s.flashcard_id = f.id)
+                ORDER BY f.deck_id, f.id LIMIT ?
+                """;
+        try (PooledConnection connection = connectionPool.borrow()) {
+            PreparedStatement preparedStatement = connection.prepare(sql);
+            preparedStatement.setInt(1, deckId);
+            preparedStatement.setInt(2, afterId);
+            preparedStatement.setInt(3, limit);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                readFlashcards(resultSet, flashcards);
+            }
+        }
+        return flashcards;
+    }
+
+    @Override
+    public Map<Integer, CardSchedule> findSchedules(List<Integer> flashcardIds) throws SQLException {
+        Map<Integer, CardSchedule> schedules = new HashMap<>();
+        if (flashcardIds.isEmpty()) {
+            return schedules;
+        }
+        int slots = flashcardIds.size() == 1 ? 1 : Integer.highestOneBit(flashcardIds.size() - 1) << 1;
+        String sql = "SELECT f.id, f.deck_id, s.repetitions, s.interval_days, s.ease_factor, s.due_at"
+                + " FROM flashcards f LEFT JOIN card_schedule s ON s.flashcard_id = f.id WHERE f.id IN ("
+                + String.join(", ", Collections.nCopies(slots, "?")) + ")";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            PreparedStatement preparedStatement = connection.prepare(sql);
+            for (int i = 0; i < slots; i++) {
+                preparedStatement.setInt(i + 1, flashcardIds.get(Math.min(i, flashcardIds.size() - 1)));
+            }
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    int id = resultSet.getInt("id");
+                    int deckId = resultSet.getInt("deck_id");
+                    long dueAt = resultSet.getLong("due_at");
+                    // brak wiersza harmonogramu - fiszka jeszcze nie byla powtarzana
+                    schedules.put(id, resultSet.wasNull() ? CardSchedule.newCard(id, deckId)
+                            : new CardSchedule(id, deckId, resultSet.getInt("repetitions"), resultSet.getInt("interval_days"),
+                            resultSet.getDouble("ease_factor"), dueAt));
+                }
+            }
+        }
+        return schedules;
+    }
+
+    @Override
+    public void saveSchedules(List<CardSchedule> schedules) throws SQLException {
+        String sql = """
+                INSERT INTO card_schedule (flashcard_id, deck_id, repetitions, interval_days, ease_factor, due_at)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON DUPLICATE KEY UPDATE deck_id = VALUES(deck_id), repetitions = VALUES(repetitions),
+                interval_days = VALUES(interval_days), ease_factor = VALUES(ease_factor), due_at = VALUES(due_at)
+                """;
+        try (PooledConnection connection = connectionPool.borrow()) {
+            Connection jdbc = connection.getConnection();
+            PreparedStatement preparedStatement = connection.prepare(sql);
+            jdbc.setAutoCommit(false);
+            try {
+                for (CardSchedule schedule : schedules) {
+                    bindSchedule(preparedStatement, schedule);
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+                jdbc.commit();
+            } catch (SQLException batchFailure) {
+                // najczesciej fiszke usunieto w trakcie sesji - zapisujemy reszte wiersz po wierszu
+                preparedStatement.clearBatch();
+                jdbc.rollback();
+                for (CardSchedule schedule : schedules) {
+                    bindSchedule(preparedStatement, schedule);
+                    Savepoint savepoint = jdbc.setSavepoint();
+                    try {
+                        preparedStatement.executeUpdate();
+                        jdbc.releaseSavepoint(savepoint);
+                    } catch (SQLException rowFailure) {
+                        jdbc.rollback(savepoint);
+                    }
+                }
+                jdbc.commit();
+            } finally {
+                jdbc.setAutoCommit(true);
+            }
+        }
+    }
+
+    @Override
+    public String getChangeOrigin() {
+        return changeOrigin;
+    }
+
+    @Override
+    public List<DeckChange> findChangesAfter(long afterId, int limit) throws SQLException {
+        List<DeckChange> changes = new ArrayList<>();
+        String sql = "SELECT id, origin, change_type, deck_id, parent_id, name, count_delta FROM change_log WHERE id > ? ORDER BY id LIMIT ?";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            PreparedStatement preparedStatement = connection.prepare(sql);
+            preparedStatement.setLong(1, afterId);
+            preparedStatement.setInt(2, limit);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    Integer parentId = resultSet.getObject("parent_id") != null ? resultSet.getInt("parent_id") : null;
+                    changes.add(new DeckChange(resultSet.getLong("id"), resultSet.getString("origin"),
+                            DeckChange.Type.valueOf(resultSet.getString("change_type")), resultSet.getInt("deck_id"),
+                            parentId, resultSet.getString("name"), resultSet.getInt("count_delta")));
+                }
+            }
+        }
+        return changes;
+    }
+
+    @Override
+    public long findOldestChangeId() throws SQLException {
+        return queryLong("SELECT COALESCE(MIN(id), 0) FROM change_log");
+    }
+
+    @Override
+    public long findLatestChangeId() throws SQLException {
+        return queryLong("SELECT COALESCE(MAX(id), 0) FROM change_log");
+    }
+
+    @Override
+    public int deleteChangesBefore(long createdBefore) throws SQLException {
+        String sql = "DELETE FROM change_log WHERE created_at < ?";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            PreparedStatement preparedStatement = connection.prepare(sql);
+            preparedStatement.setLong(1, createdBefore);
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    @Override
+    public int countMismatchedSchedules() throws SQLException {
+        return (int) queryLong("SELECT COUNT(*) FROM card_schedule s JOIN flashcards f ON f.id = s.flashcard_id"
+                + " WHERE s.deck_id <> f.deck_id");
+    }
+
+    @Override
+    public int repairMismatchedSchedules() throws SQLException {
+        String sql = "UPDATE card_schedule SET deck_id = (SELECT f.deck_id FROM flashcards f WHERE f.id = card_schedule.flashcard_id)"
+                + " WHERE deck_id <> (SELECT f.deck_id FROM flashcards f WHERE f.id = card_schedule.flashcard_id)";
+        try (PooledConnection connection = connectionPool.borrow()) {
+            return connection.prepare(sql).executeUpdate();
+        }
+    }
+
+    @Override
+    public long countBlankFlashcards() throws SQLException {
+        return queryLong("SELECT COUNT(*) FROM flashcards WHERE TRIM(front) = '' OR TRIM(back) = ''");
+    }
+
+    @Override
+    public PoolStats getPoolStats() {
+        return connectionPool.getStats();
+    }
+
+    @Override
+    public void close() {
+        connectionPool.close();
+    }
+
+    private interface TransactionWork<T> {
+        T run() throws SQLException;
+    }
+
+    /**
+     * Wykonuje zmianę i jej wpis w dzienniku zmian w jednej transakcji.
+     */
+    private static <T> T inTransaction(PooledConnection connection, TransactionWork<T> work) throws SQLException {
+        Connection jdbc = connection.getConnection();
+        jdbc.setAutoCommit(false);
+        try {
+            T result = work.run();
+            jdbc.commit();
+            return result;
+        } catch (SQLException e) {
+            jdbc.rollback();
+            throw e;
+        } finally {
+            jdbc.setAutoCommit(true);
+        }
+    }
+
+    private void logChange(PooledConnection connection, DeckChange.Type type, int deckId, Integer parentId, String name,
+                           int countDelta) throws SQLException {
+        String sql = "INSERT INTO change_log (origin, change_type, deck_id, parent_id, name, count_delta, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        PreparedStatement preparedStatement = connection.prepare(sql);
+        preparedStatement.setString(1, changeOrigin);
+        preparedStatement.setString(2, type.name());
+        preparedStatement.setInt(3, deckId);
+        if (parentId != null) {
+            preparedStatement.setInt(4, parentId);
+        } else {
+            preparedStatement.setNull(4, Types.INTEGER);
+        }
+        preparedStatement.setString(5, name);
+        preparedStatement.setInt(6, countDelta);
+        preparedStatement.setLong(7, System.currentTimeMillis());
+        preparedStatement.executeUpdate();
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (PooledConnection connection = connectionPool.borrow();
+             ResultSet resultSet = connection.prepare(sql).executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    private static void readFlashcards(ResultSet resultSet, CompactFlashcardList flashcards) throws SQLException {
+        while (resultSet.next()) {
+            int id = resultSet.getInt("id");
+            String front = resultSet.getString("front");
+            String back = resultSet.getString("back");
+            flashcards.add(id, front, back);
+        }
+    }
+
+    private static void bindSchedule(PreparedStatement preparedStatement, CardSchedule schedule) throws SQLException {
+        preparedStatement.setInt(1, schedule.getFlashcardId());
+        preparedStatement.setInt(2, schedule.getDeckId());
+        preparedStatement.setInt(3, schedule.getRepetitions());
+        preparedStatement.setInt(4, schedule.getIntervalDays());
+        preparedStatement.setDouble(5, schedule.getEaseFactor());
+        preparedStatement.setLong(6, schedule.getDueAt());
+    }
+
+    private static int generatedId(PreparedStatement preparedStatement) throws SQLException {
+        try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+            if (generatedKeys.next()) {
+                return generatedKeys.getInt(1);
+            }
+        }
+        throw new SQLException("No generated key returned");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,249 @@
+package com.example.learnit;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Zapis JSON prosto do bajtów UTF-8 we własnym buforze, bez pośrednich obiektów String
+ * ani StringBuildera - liczby i znaki kodowane są ręcznie. Bufor rośnie w razie potrzeby
+ * i po {@link #reset()} jest używany ponownie, więc writer warto trzymać w puli.
+ * Przecinki między elementami wstawiane są automatycznie.
+ */
+public final class JsonWriter {
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final int MAX_DEPTH = 32;
+
+    private byte[] buffer;
+    private int size;
+    // na kazdym poziomie zagniezdzenia: czy przed nastepnym elementem trzeba wstawic przecinek
+    private final boolean[] needsComma = new boolean[MAX_DEPTH];
+    private int depth;
+    // po name() wartosc nie dostaje przecinka
+    private boolean afterName;
+
+    public JsonWriter(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    public JsonWriter reset() {
+        size = 0;
+        depth = 0;
+        afterName = false;
+        needsComma[0] = false;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    public JsonWriter beginObject() {
+        return open((byte) '{');
+    }
+
+    public JsonWriter endObject() {
+        return close((byte) '}');
+    }
+
+    public JsonWriter beginArray() {
+        return open((byte) '[');
+    }
+
+    public JsonWriter endArray() {
+        return close((byte) ']');
+    }
+
+    /**
+     * Nazwa pola; musi być czystym ASCII bez znaków wymagających escapowania.
+     */
+    public JsonWriter name(String name) {
+        separate();
+        int length = name.length();
+        ensureCapacity(length + 3);
+        buffer[size++] = '"';
+        for (int i = 0; i < length; i++) {
+            buffer[size++] = (byte) name.charAt(i);
+        }
+        buffer[size++] = '"';
+        buffer[size++] = ':';
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separate();
+        ensureCapacity(20);
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return raw("-9223372036854775808");
+            }
+            buffer[size++] = '-';
+            value = -value;
+        }
+        int start = size;
+        do {
+            buffer[size++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        // cyfry zapisane od konca
+        for (int i = start, j = size - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+        return this;
+    }
+
+    /**
+     * Liczba z dwoma miejscami po przecinku - wystarcza dla współczynnika łatwości.
+     */
+    public JsonWriter value(double value) {
+        long hundredths = Math.round(value * 100);
+        if (hundredths < 0) {
+            separate();
+            ensureCapacity(1);
+            buffer[size++] = '-';
+            afterName = true;
+            hundredths = -hundredths;
+        }
+        value(hundredths / 100);
+        ensureCapacity(3);
+        buffer[size++] = '.';
+        buffer[size++] = (byte) ('0' + hundredths / 10 % 10);
+        buffer[size++] = (byte) ('0' + hundredths % 10);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separate();
+        return raw(value ? "true" : "false");
+    }
+
+    public JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            return raw("null");
+        }
+        int length = value.length();
+        // najgorszy przypadek: kazdy znak jako \\uXXXX
+        ensureCapacity(length * 6 + 2);
+        buffer[size++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    buffer[size++] = '\\';
+                }
+                buffer[size++] = (byte) c;
+            } else if (c < 0x20) {
+                escapeControl(c);
+            } else if (c < 0x800) {
+                buffer[size++] = (byte) (0xC0 | c >> 6);
+                buffer[size++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[size++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[size++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[size++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[size++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // samotny surogat nie ma zapisu w UTF-8
+                buffer[size++] = '?';
+            } else {
+                buffer[size++] = (byte) (0xE0 | c >> 12);
+                buffer[size++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[size++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        buffer[size++] = '"';
+        return this;
+    }
+
+    public JsonWriter nullValue() {
+        separate();
+        return raw("null");
+    }
+
+    private void escapeControl(char c) {
+        buffer[size++] = '\\';
+        switch (c) {
+            case '\n':
+                buffer[size++] = 'n';
+                break;
+            case '\r':
+                buffer[size++] = 'r';
+                break;
+            case '\t':
+                buffer[size++] = 't';
+                break;
+            default:
+                buffer[size++] = 'u';
+                buffer[size++] = '0';
+                buffer[size++] = '0';
+                buffer[size++] = HEX[c >> 4];
+                buffer[size++] = HEX[c & 0xF];
+                break;
+        }
+    }
+
+    private JsonWriter open(byte bracket) {
+        separate();
+        if (depth + 1 >= MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested deeper than " + MAX_DEPTH);
+        }
+        ensureCapacity(1);
+        buffer[size++] = bracket;
+        needsComma[++depth] = false;
+        return this;
+    }
+
+    private JsonWriter close(byte bracket) {
+        if (depth == 0) {
+            throw new IllegalStateException("No open JSON object or array");
+        }
+        depth--;
+        ensureCapacity(1);
+        buffer[size++] = bracket;
+        return this;
+    }
+
+    private void separate() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (needsComma[depth]) {
+            ensureCapacity(1);
+            buffer[size++] = ',';
+        }
+        needsComma[depth] = true;
+    }
+
+    private JsonWriter raw(String ascii) {
+        int length = ascii.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buffer[size++] = (byte) ascii.charAt(i);
+        }
+        return this;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
\ No newline at end of file
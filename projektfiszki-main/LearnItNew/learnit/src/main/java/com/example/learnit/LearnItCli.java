@@ -0,0 +1,405 @@
+package com.example.learnit;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Tryb wsadowy bez interfejsu graficznego - nie dotyka klas JavaFX, więc działa na serwerze bez
+ * ekranu (i bez bibliotek JavaFX na classpath). Baza wybierana jest tak jak w aplikacji, właściwościami
+ * learnit.db.*. Przy starcie wczytywane są tylko decki; liczniki fiszek - dopiero gdy polecenie ich potrzebuje.
+ * <pre>
+ * java -cp ... com.example.learnit.LearnItCli &lt;polecenie&gt; [argumenty] [--metrics]
+ * </pre>
+ * Deck podaje się jako ID albo ścieżkę nazw oddzielonych "/", np. "Języki/Francuski"; "/" jako cel
+ * oznacza najwyższy poziom. Kod wyjścia: 0 - sukces, 1 - operacja się nie powiodła, 2 - złe wywołanie.
+ */
+public final class LearnItCli {
+    private static final String USAGE = """
+            Usage: LearnItCli <command> [arguments] [--metrics]
+              decks                                   list decks with flashcard counts
+              import <deck> <file.csv>... [--threads N] [--parser-threads N] [--batch N] [--transaction N]
+                                                      --threads: files imported at once (default 1)
+              export <deck> <file> [--subdecks]       .csv or .lix, .gz compresses
+              refresh-counts                          recount flashcards of all decks
+              check [--repair]                        check data integrity
+              add-deck <name> [--parent <deck>]
+              rename <deck> <new name>
+              delete <deck>
+              move <deck> <target deck|/>
+              clone <deck> <target deck|/> [--name <name>]
+              merge <source deck> <target deck>
+            A deck is an ID or a path of names separated by "/".""";
+    private static final Set<String> FLAGS = Set.of("--subdecks", "--repair", "--metrics");
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final DatabaseManager databaseManager;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    LearnItCli(DatabaseManager databaseManager, PrintStream out, PrintStream err) {
+        this.databaseManager = databaseManager;
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * @return kod wyjścia
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        long start = System.nanoTime();
+        List<String> positional = new ArrayList<>();
+        Map<String, String> options = new HashMap<>();
+        try {
+            parseArguments(args, positional, options);
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+        if (positional.isEmpty()) {
+            err.println(USAGE);
+            return 2;
+        }
+        // decki sa potrzebne kazdemu poleceniu, liczniki i indeks wyszukiwania nie
+        try (DatabaseManager databaseManager = new DatabaseManager(DatabaseConfig.fromSystemProperties(), false)) {
+            databaseManager.loadDecks();
+            long startupMillis = (System.nanoTime() - start) / 1_000_000;
+            LearnItCli cli = new LearnItCli(databaseManager, out, err);
+            int exitCode;
+            try {
+                exitCode = cli.execute(positional.get(0), positional.subList(1, positional.size()), options) ? 0 : 1;
+            } catch (IllegalArgumentException e) {
+                err.println("Error: " + e.getMessage());
+                exitCode = 2;
+            } catch (IOException e) {
+                err.println("Error: " + e.getMessage());
+                exitCode = 1;
+            }
+            if (options.containsKey("--metrics")) {
+                for (OperationStats operation : databaseManager.getMetrics().getOperations().values()) {
+                    err.println(operation);
+                }
+            }
+            err.println("Done in " + (System.nanoTime() - start) / 1_000_000 + " ms (startup " + startupMillis + " ms)");
+            return exitCode;
+        }
+    }
+
+    private static void parseArguments(String[] args, List<String> positional, Map<String, String> options) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                positional.add(arg);
+            } else if (FLAGS.contains(arg)) {
+                options.put(arg, "");
+            } else if (i + 1 < args.length) {
+                options.put(arg, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+        }
+    }
+
+    /**
+     * @return false, jeśli operacja się nie powiodła
+     * @throws IllegalArgumentException przy nieznanym poleceniu, złych argumentach albo nieznanym decku
+     */
+    boolean execute(String command, List<String> args, Map<String, String> options) throws IOException {
+        switch (command) {
+            case "decks":
+                expectArguments(args, 0);
+                return listDecks();
+            case "import":
+                if (args.size() < 2) {
+                    throw new IllegalArgumentException("import needs a deck and at least one file");
+                }
+                return importFiles(resolveDeck(args.get(0)), args.subList(1, args.size()), options);
+            case "export":
+                expectArguments(args, 2);
+                return export(resolveDeck(args.get(0)), Path.of(args.get(1)), options.containsKey("--subdecks"));
+            case "refresh-counts":
+                expectArguments(args, 0);
+                return refreshCounts();
+            case "check":
+                expectArguments(args, 0);
+                return check(options.containsKey("--repair"));
+            case "add-deck": {
+                expectArguments(args, 1);
+                String parent = options.get("--parent");
+                Deck deck = databaseManager.addDeck(args.get(0), parent == null ? null : resolveDeck(parent).getId());
+                if (deck != null) {
+                    out.println("Added deck " + deck.getId() + ": " + databaseManager.getDeckIndex().getPath(deck.getId()));
+                }
+                return deck != null;
+            }
+            case "rename": {
+                expectArguments(args, 2);
+                Deck deck = resolveDeck(args.get(0));
+                return databaseManager.updateDeck(deck.getId(), args.get(1));
+            }
+            case "delete": {
+                expectArguments(args, 1);
+                Deck deck = resolveDeck(args.get(0));
+                return databaseManager.deleteDeck(deck.getId());
+            }
+            case "move": {
+                expectArguments(args, 2);
+                return databaseManager.moveDeck(resolveDeck(args.get(0)).getId(), resolveTarget(args.get(1)));
+            }
+            case "clone": {
+                expectArguments(args, 2);
+                Deck source = resolveDeck(args.get(0));
+                long start = System.nanoTime();
+                Deck copy = databaseManager.cloneDeck(source.getId(), resolveTarget(args.get(1)),
+                        options.getOrDefault("--name", source.getName()));
+                if (copy != null) {
+                    out.println("Cloned to deck " + copy.getId() + ": " + databaseManager.getDeckIndex().getPath(copy.getId())
+                            + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                }
+                return copy != null;
+            }
+            case "merge": {
+                expectArguments(args, 2);
+                return databaseManager.mergeDecks(resolveDeck(args.get(0)).getId(), resolveDeck(args.get(1)).getId());
+            }
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    private boolean listDecks() {
+        databaseManager.refreshFlashcardCounts();
+        DeckIndex decks = databaseManager.getDeckIndex();
+        StringBuilder line = new StringBuilder();
+        for (Deck root : decks.getChildren(null)) {
+            printDeck(decks, root, 0, line);
+        }
+        return true;
+    }
+
+    private void printDeck(DeckIndex decks, Deck deck, int depth, StringBuilder line) {
+        line.setLength(0);
+        line.append(deck.getId()).append('\t');
+        for (int i = 0; i < depth; i++) {
+            line.append("  ");
+        }
+        line.append(deck.getName()).append(" (").append(databaseManager.getFlashcardCount(deck.getId()));
+        List<Deck> children = decks.getChildren(deck.getId());
+        if (!children.isEmpty()) {
+            line.append(" / ").append(databaseManager.getSubtreeFlashcardCount(deck.getId()));
+        }
+        out.println(line.append(')'));
+        for (Deck child : children) {
+            printDeck(decks, child, depth + 1, line);
+        }
+    }
+
+    /**
+     * Każdy plik parsuje kilka wątków, które pracują, gdy wątek pliku zapisuje poprzednie transakcje
+     * do bazy; z --threads większym niż 1 kilka plików importowanych jest naraz, każdy swoim połączeniem.
+     */
+    private boolean importFiles(Deck deck, List<String> files, Map<String, String> options) throws IOException {
+        // wbudowana baza H2 zapisuje i tak jednym watkiem - rownolegle pliki oplacaja sie na serwerze MySQL
+        int threads = intOption(options, "--threads", 1);
+        int parserThreads = intOption(options, "--parser-threads",
+                Math.max(1, Runtime.getRuntime().availableProcessors() / threads));
+        int batchSize = intOption(options, "--batch", FlashcardManager.DEFAULT_BATCH_SIZE);
+        int transactionSize = intOption(options, "--transaction", FlashcardManager.DEFAULT_TRANSACTION_SIZE);
+        List<Path> paths = new ArrayList<>(files.size());
+        long totalBytes = 0;
+        for (String file : files) {
+            Path path = Path.of(file);
+            if (!Files.isRegularFile(path)) {
+                throw new IllegalArgumentException("Not a file: " + file);
+            }
+            paths.add(path);
+            totalBytes += Files.size(path);
+        }
+
+        FlashcardManager flashcardManager = new FlashcardManager(databaseManager);
+        long start = System.nanoTime();
+        ExecutorService importers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "learnit-cli-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<BulkInsertResult>> results = new ArrayList<>(paths.size());
+        try {
+            for (Path path : paths) {
+                results.add(importers.submit(() -> importFile(flashcardManager, deck, path, parserThreads, batchSize, transactionSize)));
+            }
+            boolean success = true;
+            long inserted = 0;
+            long rejected = 0;
+            for (int i = 0; i < paths.size(); i++) {
+                try {
+                    BulkInsertResult result = results.get(i).get();
+                    inserted += result.getInserted();
+                    rejected += result.getRejected();
+                } catch (ExecutionException e) {
+                    err.println(paths.get(i) + ": " + e.getCause().getMessage());
+                    success = false;
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            out.println("Imported " + inserted + " flashcards (" + rejected + " rejected) from " + paths.size() + " files into "
+                    + databaseManager.getDeckIndex().getPath(deck.getId()) + ": " + throughput(inserted, totalBytes, nanos));
+            return success;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            importers.shutdownNow();
+        }
+    }
+
+    private BulkInsertResult importFile(FlashcardManager flashcardManager, Deck deck, Path file, int parserThreads,
+                                        int batchSize, int transactionSize) throws IOException, SQLException {
+        long start = System.nanoTime();
+        BulkInsertListener progress = new BulkInsertListener() {
+            private long lastReportNanos = start;
+
+            @Override
+            public void onProgress(long processed, long inserted, long rejected) {
+                long now = System.nanoTime();
+                if (now - lastReportNanos >= PROGRESS_INTERVAL_NANOS) {
+                    lastReportNanos = now;
+                    err.println(file.getFileName() + ": " + processed + " rows, "
+                            + processed * 1_000_000_000L / (now - start) + " rows/s");
+                }
+            }
+
+            @Override
+            public void onReject(RejectedFlashcard rejected) {
+                err.println(file.getFileName() + ": row " + rejected.getRowNumber() + " rejected: " + rejected.getReason());
+            }
+        };
+        try (Stream<Flashcard> flashcards = CsvFlashcardReader.read(file, CsvFlashcardReader.detectCharset(file), parserThreads)) {
+            BulkInsertResult result = flashcardManager.addFlashcards(deck.getId(), flashcards, batchSize, transactionSize, progress);
+            out.println(file + ": " + result.getInserted() + " inserted, " + result.getRejected() + " rejected, "
+                    + throughput(result.getInserted(), Files.size(file), System.nanoTime() - start));
+            return result;
+        }
+    }
+
+    private boolean export(Deck deck, Path file, boolean includeSubdecks) throws IOException {
+        long start = System.nanoTime();
+        long exported;
+        try (FlashcardExporter exporter = FlashcardExporter.forFile(file)) {
+            exported = databaseManager.exportFlashcards(deck.getId(), includeSubdecks, exporter);
+            exporter.finish();
+        }
+        out.println("Exported " + exported + " flashcards to " + file + ": "
+                + throughput(exported, Files.size(file), System.nanoTime() - start));
+        return true;
+    }
+
+    private boolean refreshCounts() {
+        long start = System.nanoTime();
+        databaseManager.refreshFlashcardCounts();
+        long total = 0;
+        for (int count : databaseManager.getFlashcardCounts().values()) {
+            total += count;
+        }
+        out.println("Counted " + total + " flashcards in " + databaseManager.getDeckIndex().size() + " decks in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return true;
+    }
+
+    private boolean check(boolean repair) {
+        IntegrityReport report = databaseManager.checkIntegrity(repair);
+        if (report == null) {
+            return false;
+        }
+        out.println(report);
+        for (int id : report.getUnreachableDeckIds()) {
+            out.println("Deck " + id + " is not reachable from the deck tree (parent cycle)");
+        }
+        for (String path : report.getDuplicateDeckPaths()) {
+            out.println("Duplicate deck name: " + path);
+        }
+        if (report.getMismatchedSchedules() > report.getRepairedSchedules()) {
+            out.println(report.getMismatchedSchedules() + " schedule entries point to the wrong deck (fix with --repair)");
+        }
+        if (report.getBlankFlashcards() > 0) {
+            out.println(report.getBlankFlashcards() + " flashcards have a blank front or back");
+        }
+        return report.isClean();
+    }
+
+    /**
+     * @throws IllegalArgumentException gdy decku nie ma
+     */
+    Deck resolveDeck(String reference) {
+        DeckIndex decks = databaseManager.getDeckIndex();
+        if (!reference.isEmpty() && reference.chars().allMatch(Character::isDigit)) {
+            Deck deck = decks.get(Integer.parseInt(reference));
+            if (deck != null) {
+                return deck;
+            }
+        }
+        Deck deck = null;
+        for (String name : reference.split("/")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            deck = decks.find(deck == null ? null : deck.getId(), name.trim());
+            if (deck == null) {
+                break;
+            }
+        }
+        if (deck == null) {
+            throw new IllegalArgumentException("Unknown deck: " + reference);
+        }
+        return deck;
+    }
+
+    private Integer resolveTarget(String reference) {
+        return "/".equals(reference) ? null : resolveDeck(reference).getId();
+    }
+
+    private static void expectArguments(List<String> args, int count) {
+        if (args.size() != count) {
+            throw new IllegalArgumentException("Expected " + count + " arguments, got " + args.size());
+        }
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // ponizej wspolny komunikat
+        }
+        throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+    }
+
+    private static String throughput(long rows, long bytes, long nanos) {
+        double seconds = Math.max(nanos, 1) / 1e9;
+        return String.format("%d ms, %.0f rows/s, %.1f MB/s", nanos / 1_000_000, rows / seconds, bytes / seconds / 1e6);
+    }
+}
\ No newline at end of file
@@ -1,27 +1,123 @@
-package com.example.learnit;
-
-import javafx.application.Application;
-import javafx.stage.Stage;
-
-public class Main extends Application {
-    @Override
-    public void start(Stage primaryStage) {
-        // Tworzenie instancji DatabaseManager
-        DatabaseManager databaseManager = new DatabaseManager();
-
-        // Tworzenie instancji FlashcardManager
-        FlashcardManager flashcardManager = new FlashcardManager(databaseManager);
-
-        // Tworzenie instancji GraphicManager
-        GraphicManager graphicManager = new GraphicManager(primaryStage, databaseManager, flashcardManager);
-
-        // Ustawienie sceny i uruchomienie aplikacji
-        primaryStage.setScene(graphicManager.getMainScene());
-        primaryStage.setTitle("Deck Manager");
-        primaryStage.show();
-    }
-
-    public static void main(String[] args) {
-        launch(args);
-    }
-}
+package com.example.learnit;
+
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+public class Main extends Application {
+    private DatabaseManager databaseManager;
+    private GraphicManager graphicManager;
+    private FxStallWatchdog fxStallWatchdog;
+    private MetricsSnapshotWriter metricsWriter;
+    private FlashcardJournal flashcardJournal;
+    private ChangeFeedPoller changeFeedPoller;
+
+    @Override
+    public void start(Stage primaryStage) {
+        // Tworzenie instancji DatabaseManager (konfiguracja z właściwości systemowych learnit.db.*);
+        // schemat, decki i liczniki wczytuja sie w tle dopiero po pokazaniu okna
+        DatabaseConfig databaseConfig = DatabaseConfig.fromSystemProperties();
+        databaseManager = new DatabaseManager(databaseConfig, false);
+        // Migawka deckow i licznikow z poprzedniego uruchomienia; z bazy doczytywane sa tylko pozniejsze zmiany
+        if (Boolean.parseBoolean(System.getProperty("learnit.snapshot", "true"))) {
+            databaseManager.setSnapshotFile(Path.of(System.getProperty("learnit.snapshot.file",
+                    Path.of(System.getProperty("user.home"), ".learnit", "decks.snapshot").toString())),
+                    databaseConfig.getUrl());
+        }
+        StartupTimer startupTimer = new StartupTimer(databaseManager.getMetrics(),
+                Long.getLong("learnit.startup.budgetMillis", 1_500));
+
+        // Metryki: wykrywanie zawieszen watku JavaFX i okresowy zapis migawki do pliku
+        fxStallWatchdog = new FxStallWatchdog(Thread.currentThread(),
+                Long.getLong("learnit.fx.stallThresholdMillis", 250), databaseManager.getMetrics());
+        fxStallWatchdog.start();
+        Path metricsFile = Path.of(System.getProperty("learnit.metrics.file",
+                Path.of(System.getProperty("user.home"), ".learnit", "metrics.json").toString()));
+        metricsWriter = new MetricsSnapshotWriter(databaseManager.getMetrics(), databaseManager::getPoolStats,
+                metricsFile, Long.getLong("learnit.metrics.intervalSeconds", 60) * 1_000);
+        metricsWriter.start();
+
+        // Opcjonalny zapis odroczony: fiszki dodawane recznie trafiaja najpierw do dziennika na dysku
+        if (Boolean.getBoolean("learnit.writeBehind")) {
+            Path journalDirectory = Path.of(System.getProperty("learnit.writeBehind.dir",
+                    Path.of(System.getProperty("user.home"), ".learnit", "journal").toString()));
+            flashcardJournal = new FlashcardJournal(databaseManager, journalDirectory,
+                    Integer.getInteger("learnit.writeBehind.flushSize", 50),
+                    Long.getLong("learnit.writeBehind.flushIntervalMillis", 2_000));
+        }
+
+        // Tworzenie instancji FlashcardManager
+        FlashcardManager flashcardManager = new FlashcardManager(databaseManager, flashcardJournal);
+
+        // Tworzenie instancji GraphicManager
+        graphicManager = new GraphicManager(primaryStage, databaseManager, flashcardManager);
+
+        // Ustawienie sceny i uruchomienie aplikacji
+        Scene scene = graphicManager.getMainScene();
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                // pierwszy puls po ulozeniu sceny - okno zaraz pokaze pierwsza klatke
+                scene.removePostLayoutPulseListener(this);
+                startupTimer.mark("firstFrame");
+            }
+        });
+        primaryStage.setScene(scene);
+        primaryStage.setTitle("Deck Manager");
+        primaryStage.show();
+
+        graphicManager.loadDecks().thenApply(countsLoaded -> {
+            startupTimer.mark("decksLoaded");
+
+            // Indeks wyszukiwania budowany w tle, gdy decki sa juz wczytane
+            databaseManager.startSearchIndexing();
+
+            // Odczyt zmian innych instancji pracujacych na tej samej bazie (0 wylacza);
+            // kursor dziennika ustawia dopiero wczytanie deckow
+            long changeFeedInterval = Long.getLong("learnit.changeFeed.intervalMillis", 2_000);
+            if (changeFeedInterval > 0) {
+                changeFeedPoller = new ChangeFeedPoller(databaseManager, changeFeedInterval,
+                        Long.getLong("learnit.changeFeed.retentionHours", 24) * 3_600_000);
+                changeFeedPoller.addListener(changes -> Platform.runLater(() -> graphicManager.onRemoteChanges(changes)));
+            }
+            return countsLoaded;
+        }).thenCompose(countsLoaded -> countsLoaded ? CompletableFuture.completedFuture(null) : graphicManager.loadFlashcardCounts())
+                .thenRun(() -> startupTimer.mark("countsLoaded"));
+    }
+
+    @Override
+    public void stop() {
+        if (changeFeedPoller != null) {
+            changeFeedPoller.close();
+        }
+        // Zapis ocen z trwającej sesji nauki, zanim baza zostanie zamknięta
+        if (graphicManager != null) {
+            graphicManager.shutdown();
+        }
+        // Zapis fiszek czekajacych w dzienniku
+        if (flashcardJournal != null) {
+            flashcardJournal.close();
+        }
+        if (fxStallWatchdog != null) {
+            fxStallWatchdog.close();
+        }
+        if (metricsWriter != null) {
+            metricsWriter.close();
+        }
+        // Zamknięcie puli połączeń i wypisanie statystyk pomocnych przy doborze jej rozmiaru
+        if (databaseManager != null) {
+            // Migawka deckow i licznikow dla nastepnego uruchomienia
+            databaseManager.saveSnapshot();
+            System.out.println("Connection pool: " + databaseManager.getPoolStats());
+            databaseManager.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
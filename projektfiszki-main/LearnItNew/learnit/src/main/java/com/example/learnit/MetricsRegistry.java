@@ -0,0 +1,24 @@
+package com.example.learnit;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statystyki operacji aplikacji (zapytania do bazy, importy, przestoje wątku JavaFX),
+ * zbierane po nazwie operacji.
+ */
+public class MetricsRegistry {
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    public OperationStats operation(String name) {
+        return operations.computeIfAbsent(name, OperationStats::new);
+    }
+
+    /**
+     * Wszystkie operacje posortowane po nazwie.
+     */
+    public Map<String, OperationStats> getOperations() {
+        return new TreeMap<>(operations);
+    }
+}
\ No newline at end of file
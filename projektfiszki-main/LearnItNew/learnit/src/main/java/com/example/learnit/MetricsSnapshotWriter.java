@@ -0,0 +1,102 @@
+package com.example.learnit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Okresowo zapisuje migawkę metryk do pliku JSON. Plik jest podmieniany w całości
+ * (zapis do pliku tymczasowego i przeniesienie), więc czytający nigdy nie widzi połowy migawki.
+ */
+public class MetricsSnapshotWriter implements AutoCloseable {
+    private final MetricsRegistry metrics;
+    private final Supplier<PoolStats> poolStats;
+    private final Path file;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    public MetricsSnapshotWriter(MetricsRegistry metrics, Supplier<PoolStats> poolStats, Path file, long intervalMillis) {
+        this.metrics = metrics;
+        this.poolStats = poolStats;
+        this.file = file;
+        this.intervalMillis = intervalMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "learnit-metrics-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::writeSnapshot, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void writeSnapshot() {
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "metrics", ".tmp");
+            Files.writeString(temporary, toJson(), StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Zatrzymuje zapisywanie i zapisuje ostatnią migawkę.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        writeSnapshot();
+    }
+
+    String toJson() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n  \"timestamp\": \"").append(Instant.now()).append("\",\n  \"operations\": {");
+        String separator = "\n";
+        for (Map.Entry<String, OperationStats> entry : metrics.getOperations().entrySet()) {
+            OperationStats stats = entry.getValue();
+            LatencyHistogram latency = stats.getLatency();
+            json.append(separator).append("    \"").append(escape(entry.getKey())).append("\": {")
+                    .append("\"count\": ").append(stats.getCount())
+                    .append(", \"errors\": ").append(stats.getErrors())
+                    .append(", \"errorRate\": ").append(String.format(Locale.ROOT, "%.4f", stats.getErrorRate()))
+                    .append(", \"meanMicros\": ").append(String.format(Locale.ROOT, "%.1f", latency.getMeanMicros()))
+                    .append(", \"p50Micros\": ").append(latency.getPercentileMicros(50))
+                    .append(", \"p99Micros\": ").append(latency.getPercentileMicros(99))
+                    .append(", \"maxMicros\": ").append(latency.getMaxMicros())
+                    .append('}');
+            separator = ",\n";
+        }
+        json.append("\n  }");
+        PoolStats pool = poolStats.get();
+        if (pool != null) {
+            json.append(",\n  \"pool\": {")
+                    .append("\"active\": ").append(pool.getActive())
+                    .append(", \"idle\": ").append(pool.getIdle())
+                    .append(", \"total\": ").append(pool.getTotal())
+                    .append(", \"maxSize\": ").append(pool.getMaxSize())
+                    .append(", \"waiting\": ").append(pool.getWaiting())
+                    .append(", \"borrows\": ").append(pool.getBorrowCount())
+                    .append(", \"averageWaitMillis\": ").append(String.format(Locale.ROOT, "%.3f", pool.getAverageWaitMillis()))
+                    .append(", \"maxWaitMillis\": ").append(String.format(Locale.ROOT, "%.3f", pool.getMaxWaitMillis()))
+                    .append('}');
+        }
+        return json.append("\n}\n").toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
\ No newline at end of file
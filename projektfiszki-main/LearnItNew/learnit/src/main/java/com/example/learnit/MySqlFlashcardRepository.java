@@ -0,0 +1,73 @@
+package com.example.learnit;
+
+import java.util.List;
+
+/**
+ * Repozytorium na współdzielonym serwerze MySQL.
+ */
+public class MySqlFlashcardRepository extends JdbcFlashcardRepository {
+
+    public MySqlFlashcardRepository(DatabaseConfig config) {
+        super(config);
+    }
+
+    @Override
+    protected int streamingFetchSize() {
+        // sterownik MySQL strumieniuje wiersze pojedynczo tylko przy tej wartosci
+        return Integer.MIN_VALUE;
+    }
+
+    @Override
+    protected List<String> schemaStatements() {
+        String createDecksTableSQL = """
+                CREATE TABLE IF NOT EXISTS decks (
+                    id INT AUTO_INCREMENT PRIMARY KEY,
+                    name VARCHAR(255) NOT NULL,
+                    parent_id INT DEFAULT NULL,
+                    UNIQUE (name, parent_id),
+                    FOREIGN KEY (parent_id) REFERENCES decks(id) ON DELETE CASCADE
+                );
+                """;
+
+        String createFlashcardsTableSQL = """
+                CREATE TABLE IF NOT EXISTS flashcards (
+                    id INT AUTO_INCREMENT PRIMARY KEY,
+                    deck_id INT NOT NULL,
+                    front TEXT NOT NULL,
+                    back TEXT NOT NULL,
+                    INDEX idx_flashcards_deck_id_id (deck_id, id),
+                    FOREIGN KEY (deck_id) REFERENCES decks(id) ON DELETE CASCADE
+                );
+                """;
+
+        // harmonogram powtorek; indeks (deck_id, due_at) wyznacza kolejke zaleglych fiszek decku
+        String createScheduleTableSQL = """
+                CREATE TABLE IF NOT EXISTS card_schedule (
+                    flashcard_id INT PRIMARY KEY,
+                    deck_id INT NOT NULL,
+                    repetitions INT NOT NULL,
+                    interval_days INT NOT NULL,
+                    ease_factor DOUBLE NOT NULL,
+                    due_at BIGINT NOT NULL,
+                    INDEX idx_card_schedule_deck_due (deck_id, due_at, flashcard_id),
+                    FOREIGN KEY (flashcard_id) REFERENCES flashcards(id) ON DELETE CASCADE
+                );
+                """;
+
+        // dziennik zmian dla innych instancji korzystajacych z tej samej bazy
+        String createChangeLogTableSQL = """
+                CREATE TABLE IF NOT EXISTS change_log (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    origin VARCHAR(36) NOT NULL,
+                    change_type VARCHAR(16) NOT NULL,
+                    deck_id INT NOT NULL,
+                    parent_id INT DEFAULT NULL,
+                    name VARCHAR(255) DEFAULT NULL,
+                    count_delta INT NOT NULL DEFAULT 0,
+                    created_at BIGINT NOT NULL
+                );
+                """;
+
+        return List.of(createDecksTableSQL, createFlashcardsTableSQL, createScheduleTableSQL, createChangeLogTableSQL);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.example.learnit;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Liczba wywołań, błędów i rozkład czasów jednej operacji.
+ */
+public class OperationStats {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos, boolean failed) {
+        latency.recordNanos(nanos);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public double getErrorRate() {
+        long count = latency.getCount();
+        return count == 0 ? 0 : (double) errors.sum() / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: count=%d, errors=%d, p50=%d us, p99=%d us, max=%d us",
+                name, getCount(), getErrors(), latency.getPercentileMicros(50), latency.getPercentileMicros(99),
+                latency.getMaxMicros());
+    }
+}
\ No newline at end of file
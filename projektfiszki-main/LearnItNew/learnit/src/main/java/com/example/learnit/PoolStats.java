@@ -0,0 +1,85 @@
+package com.example.learnit;
+
+/**
+ * Migawka stanu puli połączeń, pomocna przy dobieraniu jej rozmiaru.
+ */
+public class PoolStats {
+    private final int active;
+    private final int idle;
+    private final int total;
+    private final int maxSize;
+    private final int waiting;
+    private final long borrowCount;
+    private final long averageWaitNanos;
+    private final long maxWaitNanos;
+    private final long createdCount;
+    private final long evictedCount;
+    private final long validationFailures;
+
+    public PoolStats(int active, int idle, int total, int maxSize, int waiting, long borrowCount,
+                     long averageWaitNanos, long maxWaitNanos, long createdCount, long evictedCount,
+                     long validationFailures) {
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.maxSize = maxSize;
+        this.waiting = waiting;
+        this.borrowCount = borrowCount;
+        this.averageWaitNanos = averageWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.createdCount = createdCount;
+        this.evictedCount = evictedCount;
+        this.validationFailures = validationFailures;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public double getAverageWaitMillis() {
+        return averageWaitNanos / 1_000_000.0;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos / 1_000_000.0;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    public long getValidationFailures() {
+        return validationFailures;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d, idle=%d, total=%d/%d, waiting=%d, borrows=%d, avgWait=%.3f ms, maxWait=%.3f ms, created=%d, evicted=%d, validationFailures=%d",
+                active, idle, total, maxSize, waiting, borrowCount,
+                getAverageWaitMillis(), getMaxWaitMillis(), createdCount, evictedCount, validationFailures);
+    }
+}
\ No newline at end of file
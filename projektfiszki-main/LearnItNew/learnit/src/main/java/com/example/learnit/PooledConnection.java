@@ -0,0 +1,113 @@
+package com.example.learnit;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Połączenie wypożyczone z {@link ConnectionPool}. Zamknięcie (close) oddaje je do puli
+ * zamiast zrywać sesję z serwerem. Przygotowane zapytania są buforowane per połączenie,
+ * więc nie wolno ich zamykać po stronie wywołującego - zamykamy tylko ResultSety.
+ */
+public class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statementCache;
+    private final AtomicBoolean released = new AtomicBoolean();
+    // czytany takze przez watek usuwajacy bezczynne polaczenia
+    private volatile long lastUsedNanos;
+    private boolean broken;
+
+    PooledConnection(ConnectionPool pool, Connection connection, int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > statementCacheSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.lastUsedNanos = System.nanoTime();
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        PreparedStatement statement = statementCache.get(key);
+        if (statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(sql, autoGeneratedKeys);
+            statementCache.put(key, statement);
+        } else {
+            statement.clearParameters();
+        }
+        return statement;
+    }
+
+    /**
+     * Oznacza połączenie jako uszkodzone - przy zwrocie zostanie zamknięte, a nie odłożone do puli.
+     */
+    public void invalidate() {
+        broken = true;
+    }
+
+    /**
+     * Oddaje połączenie do puli; kolejne wywołania aż do ponownego wypożyczenia nic nie robią.
+     */
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            pool.release(this);
+        }
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    void markBorrowed() {
+        released.set(false);
+    }
+
+    void touch() {
+        lastUsedNanos = System.nanoTime();
+    }
+
+    void closePhysically() {
+        for (PreparedStatement statement : statementCache.values()) {
+            closeQuietly(statement);
+        }
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // polaczenie i tak jest zamykane lub statement wypada z cache
+        }
+    }
+}
\ No newline at end of file
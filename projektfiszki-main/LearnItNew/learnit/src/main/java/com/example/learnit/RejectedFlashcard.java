@@ -0,0 +1,33 @@
+package com.example.learnit;
+
+public class RejectedFlashcard {
+    private final long rowNumber;
+    private final Flashcard flashcard;
+    private final String reason;
+
+    public RejectedFlashcard(long rowNumber, Flashcard flashcard, String reason) {
+        this.rowNumber = rowNumber;
+        this.flashcard = flashcard;
+        this.reason = reason;
+    }
+
+    /**
+     * Numer wiersza w strumieniu wejściowym, liczony od 1.
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    public Flashcard getFlashcard() {
+        return flashcard;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "row " + rowNumber + ": " + reason;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.example.learnit;
+
+/**
+ * Fiszka w kolejce sesji nauki razem z harmonogramem. queueAt to moment, od którego karta
+ * może być pokazana w tej sesji - zwykle termin z harmonogramu, a dla zapomnianej fiszki
+ * krótki odstęp, żeby wróciła jeszcze przed końcem sesji.
+ */
+public class ScheduledCard implements Comparable<ScheduledCard> {
+    private final Flashcard flashcard;
+    private final CardSchedule schedule;
+    private final long queueAt;
+
+    public ScheduledCard(Flashcard flashcard, CardSchedule schedule, long queueAt) {
+        this.flashcard = flashcard;
+        this.schedule = schedule;
+        this.queueAt = queueAt;
+    }
+
+    public Flashcard getFlashcard() {
+        return flashcard;
+    }
+
+    public CardSchedule getSchedule() {
+        return schedule;
+    }
+
+    public long getQueueAt() {
+        return queueAt;
+    }
+
+    @Override
+    public int compareTo(ScheduledCard other) {
+        int byTime = Long.compare(queueAt, other.queueAt);
+        return byTime != 0 ? byTime : Integer.compare(flashcard.getId(), other.flashcard.getId());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.learnit;
+
+/**
+ * Wynik wyszukiwania fiszek. Z indeksu wychodzi bez tekstu (flashcard == null),
+ * {@link DatabaseManager#searchFlashcards} dociąga treść fiszek z bazy.
+ */
+public class SearchResult {
+    private final int flashcardId;
+    private final int deckId;
+    private final double score;
+    private final Flashcard flashcard;
+
+    public SearchResult(int flashcardId, int deckId, double score) {
+        this(flashcardId, deckId, score, null);
+    }
+
+    public SearchResult(int flashcardId, int deckId, double score, Flashcard flashcard) {
+        this.flashcardId = flashcardId;
+        this.deckId = deckId;
+        this.score = score;
+        this.flashcard = flashcard;
+    }
+
+    public int getFlashcardId() {
+        return flashcardId;
+    }
+
+    public int getDeckId() {
+        return deckId;
+    }
+
+    /**
+     * Trafność - im większa, tym wyżej w wynikach.
+     */
+    public double getScore() {
+        return score;
+    }
+
+    public Flashcard getFlashcard() {
+        return flashcard;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.example.learnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Algorytm SM-2: na podstawie oceny odpowiedzi (0-5) wylicza nowy odstęp, współczynnik
+ * łatwości i termin następnej powtórki. Ocena poniżej 3 oznacza zapomnianą fiszkę -
+ * seria powtórek zaczyna się od nowa.
+ */
+public final class Sm2Scheduler {
+    public static final int GRADE_AGAIN = 1;
+    public static final int GRADE_HARD = 3;
+    public static final int GRADE_GOOD = 4;
+    public static final int GRADE_EASY = 5;
+
+    private static final double MIN_EASE_FACTOR = 1.3;
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private Sm2Scheduler() {
+    }
+
+    public static CardSchedule review(CardSchedule schedule, int grade, long nowMillis) {
+        if (grade < 0 || grade > 5) {
+            throw new IllegalArgumentException("Grade must be between 0 and 5: " + grade);
+        }
+        int repetitions;
+        int intervalDays;
+        if (grade < 3) {
+            repetitions = 0;
+            intervalDays = 1;
+        } else {
+            repetitions = schedule.getRepetitions() + 1;
+            if (repetitions == 1) {
+                intervalDays = 1;
+            } else if (repetitions == 2) {
+                intervalDays = 6;
+            } else {
+                intervalDays = (int) Math.round(schedule.getIntervalDays() * schedule.getEaseFactor());
+            }
+        }
+        int penalty = 5 - grade;
+        double easeFactor = Math.max(MIN_EASE_FACTOR,
+                schedule.getEaseFactor() + 0.1 - penalty * (0.08 + penalty * 0.02));
+        return new CardSchedule(schedule.getFlashcardId(), schedule.getDeckId(), repetitions, intervalDays,
+                easeFactor, nowMillis + intervalDays * DAY_MILLIS);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.example.learnit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mierzy etapy uruchamiania aplikacji od startu procesu JVM (a gdy system go nie podaje -
+ * od utworzenia timera): pierwszą klatkę okna, wczytanie decków i liczników. Czas każdego etapu
+ * trafia do metryki "startup.&lt;etap&gt;"; etap po przekroczeniu budżetu jest liczony jako błąd
+ * i wypisywany jako ostrzeżenie.
+ */
+public class StartupTimer {
+    private final MetricsRegistry metrics;
+    private final long budgetNanos;
+    private final long originNanos;
+
+    public StartupTimer(MetricsRegistry metrics, long budgetMillis) {
+        this.metrics = metrics;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        // start procesu przeliczony na zegar nanoTime; bez niego liczymy od teraz
+        long now = System.nanoTime();
+        long sinceProcessStart = ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()).toNanos())
+                .filter(nanos -> nanos >= 0)
+                .orElse(0L);
+        this.originNanos = now - sinceProcessStart;
+    }
+
+    /**
+     * Zapisuje czas od startu do zakończenia etapu.
+     * @return czas w milisekundach
+     */
+    public long mark(String phase) {
+        long elapsed = System.nanoTime() - originNanos;
+        boolean overBudget = elapsed > budgetNanos;
+        metrics.operation("startup." + phase).record(elapsed, overBudget);
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        if (overBudget) {
+            System.err.println("Startup phase " + phase + " took " + millis + " ms (budget "
+                    + TimeUnit.NANOSECONDS.toMillis(budgetNanos) + " ms)");
+        } else {
+            System.out.println("Startup phase " + phase + ": " + millis + " ms");
+        }
+        return millis;
+    }
+}
\ No newline at end of file
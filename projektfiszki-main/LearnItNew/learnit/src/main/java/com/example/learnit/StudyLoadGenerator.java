@@ -0,0 +1,282 @@
+package com.example.learnit;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generator obciążenia dla {@link StudyServer}: każdy klient to wątek wirtualny, który w pętli
+ * przegląda drzewo decków, stronicuje fiszki i powtarza zaległe fiszki z oceną. Bez --url startuje
+ * serwer w tym samym procesie na lokalnej bazie H2, zakładając w pustej bazie decki z fiszkami.
+ * Klienci czekają na odpowiedź przed kolejnym żądaniem (pętla zamknięta), więc przy przeciążeniu
+ * spada przepustowość, a opóźnienia ogona rosną mniej, niż odczułby je użytkownik.
+ * <pre>
+ * java -cp ... com.example.learnit.StudyLoadGenerator [--url http://host:port] [--database plik]
+ *      [--decks N] [--cards N] [--clients N] [--duration s] [--warmup s]
+ * </pre>
+ */
+public final class StudyLoadGenerator {
+    private static final String USAGE = """
+            Usage: StudyLoadGenerator [options]
+              --url <http://host:port>    server to test; without it a local server is started
+              --database <file>           local H2 database (default: learnit-load in the temp directory)
+              --decks <N>                 decks created in an empty local database (default 20)
+              --cards <N>                 flashcards per created deck (default 2000)
+              --clients <N>               concurrent learners (default 200)
+              --duration <seconds>        measured time (default 30)
+              --warmup <seconds>          time before measuring (default 5)""";
+    private static final String[] OPERATIONS = {"decks", "cards", "due", "reviews"};
+    private static final int SEED_BATCH_SIZE = 1_000;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<Integer> deckIds;
+    // zapis tylko po rozgrzewce; osobne statystyki dla kazdego typu zadania
+    private final MetricsRegistry results = new MetricsRegistry();
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    private StudyLoadGenerator(HttpClient client, String baseUrl, List<Integer> deckIds) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.deckIds = deckIds;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        int clients;
+        int durationSeconds;
+        int warmupSeconds;
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+                }
+                options.put(args[i], args[i + 1]);
+            }
+            clients = intOption(options, "--clients", 200);
+            durationSeconds = intOption(options, "--duration", 30);
+            warmupSeconds = intOption(options, "--warmup", 5);
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+
+        DatabaseManager databaseManager = null;
+        StudyServer server = null;
+        ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            String baseUrl = options.get("--url");
+            if (baseUrl == null) {
+                Path database = Path.of(options.getOrDefault("--database",
+                        Path.of(System.getProperty("java.io.tmpdir"), "learnit-load").toString()));
+                databaseManager = new DatabaseManager(DatabaseConfig.embedded(database), false);
+                databaseManager.loadDecks();
+                databaseManager.refreshFlashcardCounts();
+                if (databaseManager.getDeckIndex().size() == 0) {
+                    seed(databaseManager, intOption(options, "--decks", 20), intOption(options, "--cards", 2_000), out);
+                }
+                server = new StudyServer(databaseManager, new InetSocketAddress("localhost", 0), 1_024);
+                server.start();
+                baseUrl = "http://localhost:" + server.getPort();
+                out.println("Local server on " + baseUrl + " (" + database.toAbsolutePath() + ")");
+            }
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(clientThreads)
+                    .build();
+            HttpResponse<String> decks = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/decks")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            List<Integer> deckIds = extractInts(decks.body(), "id");
+            if (decks.statusCode() != 200 || deckIds.isEmpty()) {
+                err.println("Error: no decks at " + baseUrl + " (HTTP " + decks.statusCode() + ")");
+                return 1;
+            }
+            StudyLoadGenerator generator = new StudyLoadGenerator(client, baseUrl, deckIds);
+            out.println("Running " + clients + " clients against " + deckIds.size() + " decks: "
+                    + warmupSeconds + " s warmup, " + durationSeconds + " s measured");
+            for (int i = 0; i < clients; i++) {
+                clientThreads.submit(generator::runClient);
+            }
+            TimeUnit.SECONDS.sleep(warmupSeconds);
+            generator.measuring = true;
+            long start = System.nanoTime();
+            TimeUnit.SECONDS.sleep(durationSeconds);
+            generator.measuring = false;
+            long elapsed = System.nanoTime() - start;
+            generator.running = false;
+            generator.report(out, elapsed);
+            if (databaseManager != null) {
+                out.println("Server side:");
+                for (OperationStats operation : databaseManager.getMetrics().getOperations().values()) {
+                    if (operation.getName().startsWith("http.")) {
+                        out.println("  " + operation);
+                    }
+                }
+                out.println("  " + databaseManager.getPoolStats());
+            }
+            return 0;
+        } finally {
+            clientThreads.shutdownNow();
+            clientThreads.awaitTermination(10, TimeUnit.SECONDS);
+            if (server != null) {
+                server.close();
+            }
+            if (databaseManager != null) {
+                databaseManager.close();
+            }
+        }
+    }
+
+    private static void seed(DatabaseManager databaseManager, int decks, int cardsPerDeck, PrintStream out)
+            throws SQLException {
+        long start = System.nanoTime();
+        for (int d = 0; d < decks; d++) {
+            Deck deck = databaseManager.addDeck("Load deck " + (d + 1), null);
+            for (int offset = 0; offset < cardsPerDeck; offset += SEED_BATCH_SIZE) {
+                List<Flashcard> batch = new ArrayList<>(SEED_BATCH_SIZE);
+                for (int i = offset; i < Math.min(cardsPerDeck, offset + SEED_BATCH_SIZE); i++) {
+                    batch.add(new Flashcard("Question " + (i + 1) + " of deck " + (d + 1), "Answer " + (i + 1)));
+                }
+                databaseManager.addFlashcardsChunk(deck.getId(), batch, SEED_BATCH_SIZE);
+            }
+        }
+        out.println("Created " + decks + " decks with " + cardsPerDeck + " flashcards each in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Jeden uczący się: co dziesiąte żądanie to drzewo decków, reszta po równo przeglądanie
+     * fiszek i powtórka (pobranie zaległych i ocena jednej z nich).
+     */
+    private void runClient() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int nextCardId = 0;
+        while (running) {
+            int deckId = deckIds.get(random.nextInt(deckIds.size()));
+            int choice = random.nextInt(10);
+            if (choice == 0) {
+                get("decks", "/decks");
+            } else if (choice <= 4) {
+                String page = get("cards", "/decks/" + deckId + "/cards?after=" + nextCardId + "&limit=" + StudyServer.DEFAULT_PAGE_SIZE);
+                List<Integer> next = page == null ? List.of() : extractInts(page, "next");
+                nextCardId = next.isEmpty() ? 0 : next.get(0);
+            } else {
+                String due = get("due", "/decks/" + deckId + "/due?limit=10");
+                List<Integer> cardIds = due == null ? List.of() : extractInts(due, "id");
+                if (!cardIds.isEmpty()) {
+                    int cardId = cardIds.get(random.nextInt(cardIds.size()));
+                    post("reviews", "/reviews", "{\"flashcardId\":" + cardId + ",\"grade\":" + random.nextInt(1, 6) + "}");
+                }
+            }
+        }
+    }
+
+    private String get(String operation, String path) {
+        return send(operation, HttpRequest.newBuilder(URI.create(baseUrl + path)).build());
+    }
+
+    private String post(String operation, String path, String json) {
+        return send(operation, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build());
+    }
+
+    /**
+     * @return treść odpowiedzi 200 albo null przy błędzie
+     */
+    private String send(String operation, HttpRequest request) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            failed = response.statusCode() != 200;
+            return failed ? null : response.body();
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return null;
+        } finally {
+            if (measuring) {
+                results.operation(operation).record(System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    private void report(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long total = 0;
+        out.printf("%-8s %10s %8s %10s %8s %8s %8s %8s%n", "request", "count", "errors", "req/s", "p50 us", "p99 us", "p99.9 us", "max us");
+        for (String name : OPERATIONS) {
+            OperationStats operation = results.operation(name);
+            LatencyHistogram latency = operation.getLatency();
+            total += operation.getCount();
+            out.printf("%-8s %10d %8d %10.0f %8d %8d %8d %8d%n", name, operation.getCount(), operation.getErrors(),
+                    operation.getCount() / seconds, latency.getPercentileMicros(50), latency.getPercentileMicros(99),
+                    latency.getPercentileMicros(99.9), latency.getMaxMicros());
+        }
+        out.printf("Total: %d requests in %.1f s, %.0f req/s%n", total, seconds, total / seconds);
+    }
+
+    /**
+     * Wartości liczbowe wszystkich pól o danej nazwie - wystarcza do odpowiedzi {@link StudyServer},
+     * bez parsowania całego JSON-a.
+     */
+    private static List<Integer> extractInts(String json, String field) {
+        List<Integer> values = new ArrayList<>();
+        String key = "\"" + field + "\":";
+        int index = json.indexOf(key);
+        while (index >= 0) {
+            int position = index + key.length();
+            int end = position;
+            while (end < json.length() && Character.isDigit(json.charAt(end))) {
+                end++;
+            }
+            if (end > position) {
+                values.add(Integer.parseInt(json, position, end, 10));
+            }
+            index = json.indexOf(key, end);
+        }
+        return values;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // ponizej wspolny komunikat
+        }
+        throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+    }
+}
\ No newline at end of file
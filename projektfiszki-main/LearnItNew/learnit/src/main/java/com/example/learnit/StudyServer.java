@@ -0,0 +1,560 @@
+package com.example.learnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serwer HTTP/JSON udostępniający decki wielu uczącym się naraz. Każde żądanie obsługuje osobny
+ * wątek wirtualny, więc czekanie na bazę nie blokuje wątków systemowych - liczbę równoległych
+ * zapytań ogranicza tylko pula połączeń. Wszystkie żądania korzystają z jednego {@link DatabaseManager}
+ * i jego cache decków oraz liczników; drzewo decków jest serializowane raz na zmianę liczników
+ * albo decków, a pozostałe odpowiedzi powstają w buforach {@link JsonWriter} branych z puli.
+ * <pre>
+ * GET  /decks                          decki w kolejności drzewa z licznikami fiszek
+ * GET  /decks/{id}/cards?after=&amp;limit=  strona fiszek decku (stronicowanie po ID)
+ * GET  /decks/{id}/due?limit=          fiszki do powtórki: najpierw zaległe, potem nowe
+ * POST /reviews                        {"flashcardId":1,"grade":4} albo tablica takich obiektów
+ * </pre>
+ * Harmonogram powtórek jest jeden na fiszkę, tak jak w aplikacji - oceny różnych osób dla tej
+ * samej fiszki są nanoszone po kolei.
+ */
+public class StudyServer implements AutoCloseable {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_REVIEWS = 500;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int WRITER_POOL_SIZE = 256;
+    private static final int WRITER_INITIAL_BYTES = 16 * 1024;
+    // wiekszych buforow nie trzymamy w puli, zeby pojedyncza duza odpowiedz nie zostawala w pamieci
+    private static final int MAX_POOLED_WRITER_BYTES = 256 * 1024;
+    private static final int REVIEW_LOCK_STRIPES = 64;
+
+    private final DatabaseManager databaseManager;
+    private final MetricsRegistry metrics;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final BlockingQueue<JsonWriter> writers = new ArrayBlockingQueue<>(WRITER_POOL_SIZE);
+    // odczyt i zapis harmonogramu jednej fiszki nie moze sie przeplatac z inna ocena tej fiszki
+    private final ReentrantLock[] reviewLocks = new ReentrantLock[REVIEW_LOCK_STRIPES];
+    private final ReentrantLock deckTreeLock = new ReentrantLock();
+    private volatile DeckTreeResponse deckTree;
+
+    /**
+     * @param databaseManager z wczytanymi deckami i licznikami fiszek
+     * @param address port 0 - dowolny wolny
+     */
+    public StudyServer(DatabaseManager databaseManager, InetSocketAddress address, int backlog) throws IOException {
+        this.databaseManager = databaseManager;
+        this.metrics = databaseManager.getMetrics();
+        for (int i = 0; i < reviewLocks.length; i++) {
+            reviewLocks[i] = new ReentrantLock();
+        }
+        // naglowki i tresc ida osobnymi zapisami - bez TCP_NODELAY druga czesc czeka na opoznione ACK klienta;
+        // ustawienie czytane jest przy pierwszym utworzeniu serwera w procesie
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(address, backlog);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Przestaje przyjmować połączenia i czeka do sekundy na trwające żądania.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Uruchamia serwer na bazie wskazanej właściwościami learnit.db.*; port z learnit.server.port.
+     */
+    public static void main(String[] args) throws IOException {
+        DatabaseManager databaseManager = new DatabaseManager(DatabaseConfig.fromSystemProperties(), false);
+        databaseManager.loadDecks();
+        databaseManager.refreshFlashcardCounts();
+        ChangeFeedPoller changeFeedPoller = null;
+        long changeFeedInterval = Long.getLong("learnit.changeFeed.intervalMillis", 2_000);
+        if (changeFeedInterval > 0) {
+            changeFeedPoller = new ChangeFeedPoller(databaseManager, changeFeedInterval,
+                    Long.getLong("learnit.changeFeed.retentionHours", 24) * 3_600_000);
+        }
+        StudyServer studyServer = new StudyServer(databaseManager,
+                new InetSocketAddress(Integer.getInteger("learnit.server.port", 8080)),
+                Integer.getInteger("learnit.server.backlog", 1_024));
+        ChangeFeedPoller poller = changeFeedPoller;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            studyServer.close();
+            if (poller != null) {
+                poller.close();
+            }
+            databaseManager.close();
+        }, "learnit-server-shutdown"));
+        studyServer.start();
+        System.out.println("Study server listening on port " + studyServer.getPort() + " ("
+                + databaseManager.getDeckIndex().size() + " decks)");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String operation = "http.unknown";
+        // zostaje, gdy wymiane przerwie IOException - liczymy ja jako blad
+        int status = 500;
+        JsonWriter writer = borrowWriter();
+        try (exchange) {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+            try {
+                // path[0] to pusty napis przed pierwszym "/"
+                if (path.length == 2 && "decks".equals(path[1])) {
+                    operation = "http.decks";
+                    status = "GET".equals(method) ? sendDeckTree(exchange) : sendError(exchange, writer, 405, "Use GET");
+                } else if (path.length == 4 && "decks".equals(path[1]) && "cards".equals(path[3])) {
+                    operation = "http.cards";
+                    status = "GET".equals(method) ? sendCards(exchange, writer, parseId(path[2]))
+                            : sendError(exchange, writer, 405, "Use GET");
+                } else if (path.length == 4 && "decks".equals(path[1]) && "due".equals(path[3])) {
+                    operation = "http.due";
+                    status = "GET".equals(method) ? sendDueCards(exchange, writer, parseId(path[2]))
+                            : sendError(exchange, writer, 405, "Use GET");
+                } else if (path.length == 2 && "reviews".equals(path[1])) {
+                    operation = "http.reviews";
+                    status = "POST".equals(method) ? submitReviews(exchange, writer) : sendError(exchange, writer, 405, "Use POST");
+                } else {
+                    status = sendError(exchange, writer, 404, "Unknown resource");
+                }
+            } catch (IllegalArgumentException e) {
+                status = sendErrorIfNotStarted(exchange, writer, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                status = sendErrorIfNotStarted(exchange, writer, 500, "Internal error");
+            }
+        } finally {
+            releaseWriter(writer);
+            metrics.operation(operation).record(System.nanoTime() - start, status >= 500);
+        }
+    }
+
+    /**
+     * Odpowiedź z błędem, o ile nagłówki odpowiedzi nie zostały jeszcze wysłane - wtedy klient
+     * dostał już inny status i zostaje tylko zamknięcie wymiany.
+     */
+    private int sendErrorIfNotStarted(HttpExchange exchange, JsonWriter writer, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            return status;
+        }
+        return sendError(exchange, writer.reset(), status, message);
+    }
+
+    private int sendDeckTree(HttpExchange exchange) throws IOException {
+        byte[] json = deckTreeJson();
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, json.length);
+        exchange.getResponseBody().write(json);
+        return 200;
+    }
+
+    /**
+     * Drzewo decków zserializowane dla bieżącej migawki decków i wersji liczników; po zmianie
+     * serializuje je tylko jeden wątek, pozostałe czekają na gotowy wynik.
+     */
+    private byte[] deckTreeJson() {
+        DeckTreeResponse cached = deckTree;
+        if (cached != null && cached.isCurrent(databaseManager)) {
+            return cached.json;
+        }
+        deckTreeLock.lock();
+        try {
+            cached = deckTree;
+            if (cached != null && cached.isCurrent(databaseManager)) {
+                return cached.json;
+            }
+            // wersja odczytana przed serializacja - zmiana w trakcie wymusi kolejna
+            DeckIndex index = databaseManager.getDeckIndex();
+            long countsVersion = databaseManager.getCountsVersion();
+            JsonWriter writer = new JsonWriter(Math.max(1_024, index.size() * 64));
+            writer.beginObject().name("decks").beginArray();
+            for (Deck deck : DeckSnapshot.inTreeOrder(index)) {
+                writer.beginObject()
+                        .name("id").value(deck.getId())
+                        .name("name").value(deck.getName())
+                        .name("parentId");
+                if (deck.getParentId() == null) {
+                    writer.nullValue();
+                } else {
+                    writer.value(deck.getParentId());
+                }
+                writer.name("count").value(databaseManager.getFlashcardCount(deck.getId()))
+                        .name("subtreeCount").value(databaseManager.getSubtreeFlashcardCount(deck.getId()))
+                        .endObject();
+            }
+            writer.endArray().endObject();
+            cached = new DeckTreeResponse(index, countsVersion, writer.toByteArray());
+            deckTree = cached;
+            return cached.json;
+        } finally {
+            deckTreeLock.unlock();
+        }
+    }
+
+    private int sendCards(HttpExchange exchange, JsonWriter writer, int deckId) throws IOException {
+        if (databaseManager.getDeck(deckId) == null) {
+            return sendError(exchange, writer, 404, "Deck not found: " + deckId);
+        }
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int afterId = intParameter(query, "after", 0, 0);
+        int limit = Math.min(intParameter(query, "limit", DEFAULT_PAGE_SIZE, 1), MAX_PAGE_SIZE);
+        List<Flashcard> flashcards = databaseManager.getFlashcardsAfter(deckId, afterId, limit);
+        writer.beginObject().name("cards").beginArray();
+        for (Flashcard flashcard : flashcards) {
+            writer.beginObject()
+                    .name("id").value(flashcard.getId())
+                    .name("front").value(flashcard.getFront())
+                    .name("back").value(flashcard.getBack())
+                    .endObject();
+        }
+        writer.endArray().name("next");
+        // pelna strona - moze byc nastepna; kursorem jest ID ostatniej fiszki
+        if (flashcards.size() == limit) {
+            writer.value(flashcards.get(flashcards.size() - 1).getId());
+        } else {
+            writer.nullValue();
+        }
+        writer.endObject();
+        return send(exchange, writer, 200);
+    }
+
+    private int sendDueCards(HttpExchange exchange, JsonWriter writer, int deckId) throws IOException {
+        if (databaseManager.getDeck(deckId) == null) {
+            return sendError(exchange, writer, 404, "Deck not found: " + deckId);
+        }
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int limit = Math.min(intParameter(query, "limit", DEFAULT_PAGE_SIZE, 1), MAX_PAGE_SIZE);
+        List<ScheduledCard> due = databaseManager.getDueCards(deckId, System.currentTimeMillis(), Long.MIN_VALUE, 0, limit);
+        List<Flashcard> newFlashcards = due == null || due.size() == limit
+                ? List.of()
+                : databaseManager.getNewFlashcards(deckId, 0, limit - due.size());
+        if (due == null || newFlashcards == null) {
+            return sendError(exchange, writer, 500, "Could not read flashcards of deck " + deckId);
+        }
+        writer.beginObject().name("cards").beginArray();
+        for (ScheduledCard card : due) {
+            writeCard(writer, card.getFlashcard(), false, card.getSchedule().getDueAt());
+        }
+        for (Flashcard flashcard : newFlashcards) {
+            writeCard(writer, flashcard, true, 0);
+        }
+        writer.endArray().endObject();
+        return send(exchange, writer, 200);
+    }
+
+    private static void writeCard(JsonWriter writer, Flashcard flashcard, boolean isNew, long dueAt) {
+        writer.beginObject()
+                .name("id").value(flashcard.getId())
+                .name("front").value(flashcard.getFront())
+                .name("back").value(flashcard.getBack())
+                .name("new").value(isNew)
+                .name("dueAt").value(dueAt)
+                .endObject();
+    }
+
+    /**
+     * Ocenia fiszki według SM-2 i zapisuje wszystkie nowe harmonogramy jedną transakcją.
+     * Nieznana fiszka odrzuca całe żądanie, zanim cokolwiek zostanie zapisane.
+     */
+    private int submitReviews(HttpExchange exchange, JsonWriter writer) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (body.length > MAX_BODY_BYTES) {
+            return sendError(exchange, writer, 413, "Request body larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        List<int[]> reviews = new ReviewParser(body).parse();
+        List<Integer> flashcardIds = new ArrayList<>(reviews.size());
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (int[] review : reviews) {
+            if (review[1] < 0 || review[1] > 5) {
+                throw new IllegalArgumentException("Grade must be between 0 and 5: " + review[1]);
+            }
+            flashcardIds.add(review[0]);
+            stripes.add(Math.floorMod(review[0], REVIEW_LOCK_STRIPES));
+        }
+        List<CardSchedule> updated = new ArrayList<>(reviews.size());
+        // blokady zawsze w rosnacej kolejnosci, wiec dwie paczki nie zakleszcza sie nawzajem
+        for (int stripe : stripes) {
+            reviewLocks[stripe].lock();
+        }
+        try {
+            Map<Integer, CardSchedule> schedules = databaseManager.getSchedules(flashcardIds);
+            if (schedules == null) {
+                return sendError(exchange, writer, 500, "Could not read schedules");
+            }
+            long now = System.currentTimeMillis();
+            for (int[] review : reviews) {
+                CardSchedule schedule = schedules.get(review[0]);
+                if (schedule == null) {
+                    return sendError(exchange, writer, 404, "Flashcard not found: " + review[0]);
+                }
+                // kolejna ocena tej samej fiszki w paczce liczy sie od poprzedniej
+                CardSchedule next = Sm2Scheduler.review(schedule, review[1], now);
+                schedules.put(review[0], next);
+                updated.add(next);
+            }
+            if (!databaseManager.saveSchedules(updated)) {
+                return sendError(exchange, writer, 500, "Could not save reviews");
+            }
+        } finally {
+            for (int stripe : stripes.descendingSet()) {
+                reviewLocks[stripe].unlock();
+            }
+        }
+        writer.beginObject().name("reviews").beginArray();
+        for (CardSchedule schedule : updated) {
+            writer.beginObject()
+                    .name("flashcardId").value(schedule.getFlashcardId())
+                    .name("repetitions").value(schedule.getRepetitions())
+                    .name("intervalDays").value(schedule.getIntervalDays())
+                    .name("easeFactor").value(schedule.getEaseFactor())
+                    .name("dueAt").value(schedule.getDueAt())
+                    .endObject();
+        }
+        writer.endArray().endObject();
+        return send(exchange, writer, 200);
+    }
+
+    private static int send(HttpExchange exchange, JsonWriter writer, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, writer.size());
+        writer.writeTo(exchange.getResponseBody());
+        return status;
+    }
+
+    private static int sendError(HttpExchange exchange, JsonWriter writer, int status, String message) throws IOException {
+        writer.beginObject().name("error").value(message).endObject();
+        return send(exchange, writer, status);
+    }
+
+    private JsonWriter borrowWriter() {
+        JsonWriter writer = writers.poll();
+        return writer != null ? writer.reset() : new JsonWriter(WRITER_INITIAL_BYTES);
+    }
+
+    private void releaseWriter(JsonWriter writer) {
+        if (writer.capacity() <= MAX_POOLED_WRITER_BYTES) {
+            writers.offer(writer);
+        }
+    }
+
+    private static int parseId(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid deck ID: " + value);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(pair.substring(0, separator), pair.substring(separator + 1));
+            }
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue, int min) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= min) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // ponizej wspolny komunikat
+        }
+        throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+    }
+
+    /**
+     * Zserializowane drzewo decków razem z migawką i wersją liczników, z których powstało.
+     */
+    private static final class DeckTreeResponse {
+        private final DeckIndex index;
+        private final long countsVersion;
+        private final byte[] json;
+
+        private DeckTreeResponse(DeckIndex index, long countsVersion, byte[] json) {
+            this.index = index;
+            this.countsVersion = countsVersion;
+            this.json = json;
+        }
+
+        private boolean isCurrent(DatabaseManager databaseManager) {
+            return index == databaseManager.getDeckIndex() && countsVersion == databaseManager.getCountsVersion();
+        }
+    }
+
+    /**
+     * Czyta treść POST /reviews: obiekt {"flashcardId":..,"grade":..} albo ich tablicę.
+     * Obsługuje tylko te dwa pola z wartościami całkowitymi - nic więcej tu nie przychodzi.
+     */
+    private static final class ReviewParser {
+        private final byte[] json;
+        private int position;
+
+        private ReviewParser(byte[] json) {
+            this.json = json;
+        }
+
+        /**
+         * @return pary {ID fiszki, ocena} w kolejności z żądania
+         */
+        private List<int[]> parse() {
+            List<int[]> reviews = new ArrayList<>();
+            if (peek() == '[') {
+                position++;
+                if (peek() == ']') {
+                    position++;
+                } else {
+                    do {
+                        reviews.add(readReview());
+                        if (reviews.size() > MAX_REVIEWS) {
+                            throw new IllegalArgumentException("More than " + MAX_REVIEWS + " reviews in one request");
+                        }
+                    } while (consume(','));
+                    expect(']');
+                }
+            } else {
+                reviews.add(readReview());
+            }
+            if (peek() != -1) {
+                throw new IllegalArgumentException("Unexpected content after reviews at byte " + position);
+            }
+            if (reviews.isEmpty()) {
+                throw new IllegalArgumentException("No reviews in request");
+            }
+            return reviews;
+        }
+
+        private int[] readReview() {
+            expect('{');
+            Integer flashcardId = null;
+            Integer grade = null;
+            do {
+                String name = readName();
+                expect(':');
+                int value = readInt();
+                switch (name) {
+                    case "flashcardId":
+                        flashcardId = value;
+                        break;
+                    case "grade":
+                        grade = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown review field: " + name);
+                }
+            } while (consume(','));
+            expect('}');
+            if (flashcardId == null || grade == null) {
+                throw new IllegalArgumentException("Review needs flashcardId and grade");
+            }
+            return new int[]{flashcardId, grade};
+        }
+
+        private String readName() {
+            expect('"');
+            int start = position;
+            while (position < json.length && json[position] != '"') {
+                if (json[position] == '\\') {
+                    throw new IllegalArgumentException("Escaped field names are not supported");
+                }
+                position++;
+            }
+            if (position == json.length) {
+                throw new IllegalArgumentException("Unterminated field name");
+            }
+            return new String(json, start, position++ - start, StandardCharsets.US_ASCII);
+        }
+
+        private int readInt() {
+            peek();
+            boolean negative = position < json.length && json[position] == '-';
+            if (negative) {
+                position++;
+            }
+            long value = 0;
+            int digits = 0;
+            while (position < json.length && json[position] >= '0' && json[position] <= '9' && digits < 10) {
+                value = value * 10 + (json[position++] - '0');
+                digits++;
+            }
+            value = negative ? -value : value;
+            if (digits == 0 || value > Integer.MAX_VALUE || value < Integer.MIN_VALUE
+                    || (position < json.length && json[position] >= '0' && json[position] <= '9')) {
+                throw new IllegalArgumentException("Expected an integer at byte " + position);
+            }
+            return (int) value;
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw new IllegalArgumentException("Expected '" + c + "' at byte " + position);
+            }
+        }
+
+        /**
+         * Pomija odstępy i zwraca następny bajt bez przesuwania pozycji; -1 na końcu.
+         */
+        private int peek() {
+            while (position < json.length && (json[position] == ' ' || json[position] == '\n'
+                    || json[position] == '\r' || json[position] == '\t')) {
+                position++;
+            }
+            return position < json.length ? json[position] : -1;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,273 @@
+package com.example.learnit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sesja nauki jednego decku według harmonogramu SM-2. Najpierw podaje fiszki zaległe
+ * (termin minął przed startem sesji) w kolejności terminów, potem nowe, jeszcze niepowtarzane.
+ * Karty czekają w kolejce priorytetowej ograniczonej do ok. windowSize pozycji, a kolejne paczki
+ * są dociągane w tle z indeksu (deck_id, due_at), więc koszt następnej karty to O(log n)
+ * niezależnie od rozmiaru decku. Oceny trafiają do bazy paczkami, a nie po każdej odpowiedzi.
+ */
+public class StudySession implements AutoCloseable {
+    // zapomniana fiszka wraca w tej samej sesji po krotkiej przerwie
+    private static final long RELEARN_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int REVIEW_FLUSH_SIZE = 50;
+
+    private final DatabaseManager databaseManager;
+    private final int deckId;
+    private final int batchSize;
+    private final int windowSize;
+    private final Executor fetchExecutor;
+    private final long sessionStart;
+    private final PriorityQueue<ScheduledCard> queue;
+    private final List<CardSchedule> pendingReviews = new ArrayList<>();
+    private ScheduledCard current;
+    // pozycja stronicowania po kluczu: (due_at, id) dla zaleglych, id dla nowych
+    private long lastDueAt = Long.MIN_VALUE;
+    private int lastDueId;
+    private int lastNewId;
+    private boolean dueExhausted;
+    private boolean newExhausted;
+    private boolean fetchInFlight;
+    private boolean waitingForCards;
+    private boolean loadFailed;
+    private boolean closed;
+    private Runnable onCardsAvailable = () -> {
+    };
+
+    public StudySession(DatabaseManager databaseManager, int deckId, int batchSize, int windowSize, Executor fetchExecutor) {
+        if (batchSize <= 0 || windowSize < batchSize) {
+            throw new IllegalArgumentException("Window must hold at least one batch: batchSize=" + batchSize + ", windowSize=" + windowSize);
+        }
+        this.databaseManager = databaseManager;
+        this.deckId = deckId;
+        this.batchSize = batchSize;
+        this.windowSize = windowSize;
+        this.fetchExecutor = fetchExecutor;
+        this.sessionStart = System.currentTimeMillis();
+        this.queue = new PriorityQueue<>(windowSize);
+    }
+
+    public int getDeckId() {
+        return deckId;
+    }
+
+    /**
+     * Synchronicznie wczytuje pierwszą paczkę i ustawia pierwszą fiszkę.
+     * @return false, jeśli w decku nie ma nic do powtórki
+     * @throws IllegalStateException gdy fiszek nie udało się wczytać z bazy - to nie to samo co pusty deck
+     */
+    public boolean start() {
+        while (true) {
+            boolean due;
+            long afterDueAt;
+            int afterId;
+            synchronized (this) {
+                if (!queue.isEmpty() || (dueExhausted && newExhausted)) {
+                    current = queue.poll();
+                    prefetchIfNeeded();
+                    return current != null;
+                }
+                due = !dueExhausted;
+                afterDueAt = lastDueAt;
+                afterId = due ? lastDueId : lastNewId;
+            }
+            List<ScheduledCard> batch = loadBatch(due, afterDueAt, afterId);
+            if (batch == null) {
+                throw new IllegalStateException("Cannot load flashcards of deck " + deckId);
+            }
+            synchronized (this) {
+                acceptBatch(due, batch);
+            }
+        }
+    }
+
+    public synchronized Flashcard getCurrent() {
+        return current == null ? null : current.getFlashcard();
+    }
+
+    /**
+     * Zapisuje ocenę bieżącej fiszki (0-5, patrz {@link Sm2Scheduler}) i przechodzi do następnej.
+     * @return nowa bieżąca fiszka albo null - wtedy albo sesja się skończyła ({@link #isFinished()}),
+     * albo paczka jeszcze nie dotarła i po jej nadejściu zostanie wywołany callback
+     * z {@link #setOnCardsAvailable(Runnable)}
+     */
+    public synchronized Flashcard grade(int grade) {
+        if (current == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        CardSchedule updated = Sm2Scheduler.review(current.getSchedule(), grade, now);
+        pendingReviews.add(updated);
+        if (grade < 3) {
+            queue.add(new ScheduledCard(current.getFlashcard(), updated, now + RELEARN_DELAY_MILLIS));
+        }
+        if (pendingReviews.size() >= REVIEW_FLUSH_SIZE) {
+            flushReviews();
+        }
+        current = null;
+        return advance();
+    }
+
+    /**
+     * @return true, gdy wszystkie zaległe i nowe fiszki zostały już ocenione
+     */
+    public synchronized boolean isFinished() {
+        return current == null && queue.isEmpty() && dueExhausted && newExhausted && !fetchInFlight;
+    }
+
+    /**
+     * @return true, gdy ostatniej paczki nie udało się wczytać z bazy; kolejna próba idzie
+     * przy następnej ocenie albo po {@link #onCardsAdded()}
+     */
+    public synchronized boolean isLoadFailed() {
+        return loadFailed;
+    }
+
+    /**
+     * Callback wywoływany z wątku pobierającego, gdy {@link #grade(int)} zwróciło null, a paczka
+     * dotarła - bieżąca fiszka jest już wtedy ustawiona (albo okazało się, że sesja się skończyła).
+     */
+    public synchronized void setOnCardsAvailable(Runnable onCardsAvailable) {
+        this.onCardsAvailable = onCardsAvailable;
+    }
+
+    /**
+     * Informuje sesję, że do decku dopisano fiszki (np. import), więc mogą się pojawić nowe karty.
+     */
+    public synchronized void onCardsAdded() {
+        newExhausted = false;
+        // sesja, ktora juz sie skonczyla, pokaze dopisane karty przez callback
+        waitingForCards = current == null;
+        prefetchIfNeeded();
+    }
+
+    public synchronized int getBufferedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Kończy sesję i wysyła do zapisu oceny, które jeszcze czekały na pełną paczkę.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        queue.clear();
+        flushReviews();
+    }
+
+    private Flashcard advance() {
+        current = queue.poll();
+        if (current == null) {
+            waitingForCards = !(dueExhausted && newExhausted);
+            prefetchIfNeeded();
+            return null;
+        }
+        prefetchIfNeeded();
+        return current.getFlashcard();
+    }
+
+    private void flushReviews() {
+        if (pendingReviews.isEmpty()) {
+            return;
+        }
+        List<CardSchedule> reviews = new ArrayList<>(pendingReviews);
+        pendingReviews.clear();
+        try {
+            fetchExecutor.execute(() -> databaseManager.saveSchedules(reviews));
+        } catch (RejectedExecutionException e) {
+            databaseManager.saveSchedules(reviews);
+        }
+    }
+
+    private void prefetchIfNeeded() {
+        // nowa paczka musi sie zmiescic w oknie, wiec pobieramy dopiero gdy zwolni sie na nia miejsce
+        if (closed || fetchInFlight || (dueExhausted && newExhausted) || queue.size() > windowSize - batchSize) {
+            return;
+        }
+        fetchInFlight = true;
+        boolean due = !dueExhausted;
+        long afterDueAt = lastDueAt;
+        int afterId = due ? lastDueId : lastNewId;
+        try {
+            fetchExecutor.execute(() -> onBatchLoaded(due, loadBatch(due, afterDueAt, afterId)));
+        } catch (RejectedExecutionException e) {
+            fetchInFlight = false;
+        }
+    }
+
+    /**
+     * @return paczka albo null, gdy zapytanie się nie powiodło
+     */
+    private List<ScheduledCard> loadBatch(boolean due, long afterDueAt, int afterId) {
+        if (due) {
+            return databaseManager.getDueCards(deckId, sessionStart, afterDueAt, afterId, batchSize);
+        }
+        List<Flashcard> flashcards = databaseManager.getNewFlashcards(deckId, afterId, batchSize);
+        if (flashcards == null) {
+            return null;
+        }
+        List<ScheduledCard> cards = new ArrayList<>(batchSize);
+        for (Flashcard flashcard : flashcards) {
+            // nowe fiszki ustawiamy za zaleglymi, ktorych termin minal przed startem sesji
+            cards.add(new ScheduledCard(flashcard, CardSchedule.newCard(flashcard.getId(), deckId), sessionStart));
+        }
+        return cards;
+    }
+
+    private void onBatchLoaded(boolean due, List<ScheduledCard> batch) {
+        Runnable callback = null;
+        synchronized (this) {
+            fetchInFlight = false;
+            if (closed) {
+                return;
+            }
+            loadFailed = batch == null;
+            if (loadFailed) {
+                // bez ponawiania w petli - widok czekajacy na karty pokaze blad
+                if (waitingForCards) {
+                    waitingForCards = false;
+                    callback = onCardsAvailable;
+                }
+            } else {
+                acceptBatch(due, batch);
+                if (waitingForCards && !queue.isEmpty()) {
+                    current = queue.poll();
+                }
+                prefetchIfNeeded();
+                if (waitingForCards && (current != null || (dueExhausted && newExhausted && !fetchInFlight))) {
+                    waitingForCards = false;
+                    callback = onCardsAvailable;
+                }
+            }
+        }
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    private void acceptBatch(boolean due, List<ScheduledCard> batch) {
+        queue.addAll(batch);
+        if (due) {
+            dueExhausted = batch.size() < batchSize;
+        } else {
+            newExhausted = batch.size() < batchSize;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        ScheduledCard last = batch.get(batch.size() - 1);
+        if (due) {
+            lastDueAt = last.getSchedule().getDueAt();
+            lastDueId = last.getFlashcard().getId();
+        } else {
+            lastNewId = last.getFlashcard().getId();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,229 @@
+package com.example.learnit;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Okno nauki tworzone raz i używane dla kolejnych sesji. Wszystkie kontrolki i ich obsługa
+ * powstają w konstruktorze; odwrócenie fiszki zmienia tylko tekst etykiety i to, który z dwóch
+ * stałych rzędów przycisków jest widoczny, a wygląd pochodzi ze wspólnego arkusza stylów -
+ * przejście do kolejnej fiszki nie tworzy węzłów ani nie parsuje CSS.
+ * <p>
+ * Skróty: spacja albo Enter odwraca fiszkę, 1-4 oceniają odsłoniętą fiszkę (Again, Hard, Good, Easy),
+ * Escape zamyka okno. Czas od odwrócenia do ułożenia sceny trafia do metryki "study.flip";
+ * przejście dłuższe niż klatka (16 ms) liczone jest jako błąd.
+ */
+public final class StudyView {
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+
+    private final Stage stage;
+    private final Label cardText;
+    private final HBox frontControls;
+    private final HBox backControls;
+    private final OperationStats flips;
+    private StudySession session;
+    private boolean backShown;
+    // moment odwrocenia czekajacego na najblizszy puls; 0 gdy nic nie czeka
+    private long flipStartedNanos;
+
+    public StudyView(MetricsRegistry metrics) {
+        this.flips = metrics.operation("study.flip");
+
+        cardText = new Label();
+        cardText.getStyleClass().add("card-text");
+        cardText.setWrapText(true);
+
+        Button showBackButton = createButton("Show Back");
+        showBackButton.setOnAction(e -> showBack());
+        frontControls = new HBox(10, showBackButton);
+        frontControls.setAlignment(Pos.CENTER);
+
+        Button showFrontButton = createButton("Show Front");
+        showFrontButton.setOnAction(e -> showFront());
+        backControls = new HBox(10, showFrontButton,
+                createGradeButton("Again (1)", Sm2Scheduler.GRADE_AGAIN),
+                createGradeButton("Hard (2)", Sm2Scheduler.GRADE_HARD),
+                createGradeButton("Good (3)", Sm2Scheduler.GRADE_GOOD),
+                createGradeButton("Easy (4)", Sm2Scheduler.GRADE_EASY));
+        backControls.setAlignment(Pos.CENTER);
+
+        // oba rzedy leza na sobie - przelaczanie widocznosci nie zmienia ukladu reszty okna
+        StackPane controls = new StackPane(frontControls, backControls);
+
+        VBox layout = new VBox(20, cardText, controls);
+        layout.setPadding(new Insets(20));
+        layout.setAlignment(Pos.CENTER);
+        layout.getStyleClass().add("study-view");
+
+        Scene scene = new Scene(layout, 600, 300);
+        scene.getStylesheets().add(GraphicManager.STYLESHEET);
+        // filtr przed przyciskami, zeby spacja nie klikala przycisku z fokusem
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, this::onKeyPressed);
+        scene.addPostLayoutPulseListener(this::onPulse);
+
+        stage = new Stage();
+        stage.setScene(scene);
+        // zamkniecie okna konczy sesje, zeby oceny czekajace na paczke trafily do bazy
+        stage.setOnHidden(e -> {
+            if (session != null) {
+                session.close();
+            }
+        });
+    }
+
+    private Button createButton(String text) {
+        Button button = new Button(text);
+        button.getStyleClass().add("modern-button");
+        return button;
+    }
+
+    private Button createGradeButton(String text, int grade) {
+        Button button = createButton(text);
+        button.setOnAction(e -> grade(grade));
+        return button;
+    }
+
+    /**
+     * Pokazuje okno z bieżącą fiszką sesji, która ma już wczytaną pierwszą paczkę.
+     */
+    public void show(Deck deck, StudySession session) {
+        this.session = session;
+        stage.setTitle("Flashcards - " + deck.getName());
+        showCurrent();
+        if (!stage.isShowing()) {
+            stage.show();
+        }
+    }
+
+    /**
+     * Chowa okno i odpina sesję, np. gdy nowo wybrany deck nie ma nic do nauki, a pokazywana
+     * dotąd sesja została już zamknięta.
+     */
+    public void hide() {
+        stage.hide();
+        session = null;
+    }
+
+    public boolean isShowing() {
+        return stage.isShowing();
+    }
+
+    /**
+     * Pokazuje przód bieżącej fiszki, a po ostatniej - komunikat o końcu sesji. Gdy kolejna
+     * paczka jeszcze się wczytuje, nic nie zmienia - sesja wywoła to ponownie.
+     */
+    public void showCurrent() {
+        if (session == null) {
+            return;
+        }
+        Flashcard current = session.getCurrent();
+        if (current == null) {
+            if (session.isLoadFailed()) {
+                cardText.setText("Could not load more flashcards from the database.");
+                setControls(false, false);
+            } else if (session.isFinished()) {
+                cardText.setText("All due flashcards reviewed.");
+                setControls(false, false);
+            }
+            return;
+        }
+        startFlip();
+        cardText.setText(current.getFront());
+        backShown = false;
+        setControls(true, false);
+    }
+
+    private void showBack() {
+        Flashcard current = session.getCurrent();
+        if (current == null) {
+            return;
+        }
+        startFlip();
+        cardText.setText(current.getBack());
+        backShown = true;
+        setControls(false, true);
+    }
+
+    private void showFront() {
+        Flashcard current = session.getCurrent();
+        if (current == null) {
+            return;
+        }
+        startFlip();
+        cardText.setText(current.getFront());
+        backShown = false;
+        setControls(true, false);
+    }
+
+    private void grade(int grade) {
+        if (!backShown || session.getCurrent() == null) {
+            return;
+        }
+        session.grade(grade);
+        showCurrent();
+    }
+
+    private void setControls(boolean front, boolean back) {
+        frontControls.setVisible(front);
+        backControls.setVisible(back);
+    }
+
+    private void onKeyPressed(KeyEvent event) {
+        switch (event.getCode()) {
+            case SPACE:
+            case ENTER:
+                if (backShown) {
+                    showFront();
+                } else {
+                    showBack();
+                }
+                break;
+            case DIGIT1:
+            case NUMPAD1:
+                grade(Sm2Scheduler.GRADE_AGAIN);
+                break;
+            case DIGIT2:
+            case NUMPAD2:
+                grade(Sm2Scheduler.GRADE_HARD);
+                break;
+            case DIGIT3:
+            case NUMPAD3:
+                grade(Sm2Scheduler.GRADE_GOOD);
+                break;
+            case DIGIT4:
+            case NUMPAD4:
+                grade(Sm2Scheduler.GRADE_EASY);
+                break;
+            case ESCAPE:
+                stage.hide();
+                break;
+            default:
+                return;
+        }
+        event.consume();
+    }
+
+    private void startFlip() {
+        if (flipStartedNanos == 0) {
+            flipStartedNanos = System.nanoTime();
+        }
+    }
+
+    private void onPulse() {
+        if (flipStartedNanos != 0) {
+            long elapsed = System.nanoTime() - flipStartedNanos;
+            flipStartedNanos = 0;
+            flips.record(elapsed, elapsed > FRAME_NANOS);
+        }
+    }
+}
\ No newline at end of file
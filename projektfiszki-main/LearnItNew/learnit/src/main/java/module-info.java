@@ -1,9 +1,12 @@
-module com.example.learnit {
-    requires javafx.controls;
-    requires javafx.fxml;
-    requires java.sql;
-
-
-    opens com.example.learnit to javafx.fxml;
-    exports com.example.learnit;
+module com.example.learnit {
+    requires javafx.controls;
+    requires javafx.fxml;
+    requires java.sql;
+    requires jdk.jfr;
+    requires jdk.httpserver;
+    requires java.net.http;
+
+
+    opens com.example.learnit to javafx.fxml;
+    exports com.example.learnit;
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.example.learnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeFeedTest {
+    @TempDir
+    Path directory;
+
+    // dwie instancje aplikacji na tej samej bazie
+    private DatabaseManager local;
+    private DatabaseManager remote;
+
+    @BeforeEach
+    void openDatabases() {
+        local = new DatabaseManager(DatabaseConfig.embedded(directory.resolve("db")), false);
+        local.loadDecks();
+        remote = new DatabaseManager(DatabaseConfig.embedded(directory.resolve("db")), false);
+        remote.loadDecks();
+    }
+
+    @AfterEach
+    void closeDatabases() {
+        remote.close();
+        local.close();
+    }
+
+    @Test
+    void remoteInstanceAppliesDeckChangesAndCounts() {
+        Deck parent = local.addDeck("Languages", null);
+        Deck child = local.addDeck("Spanish", parent.getId());
+        local.addFlashcard(child.getId(), "hola", "hello");
+        local.updateDeck(parent.getId(), "Foreign languages");
+
+        List<DeckChange> changes = remote.pollChanges();
+
+        assertEquals(4, changes.size());
+        assertEquals("Foreign languages", remote.getDeck(parent.getId()).getName());
+        assertEquals(parent.getId(), remote.getDeck(child.getId()).getParentId());
+        assertEquals(1, remote.getFlashcardCount(child.getId()));
+        assertEquals(1, remote.getSubtreeFlashcardCount(parent.getId()));
+        // wlasne zmiany sa juz w cache
+        assertTrue(local.pollChanges().isEmpty());
+    }
+
+    @Test
+    void remoteInstanceAppliesDeleteWithSubtree() {
+        Deck parent = local.addDeck("Old", null);
+        Deck child = local.addDeck("Older", parent.getId());
+        remote.pollChanges();
+
+        local.deleteDeck(parent.getId());
+        List<DeckChange> changes = remote.pollChanges();
+
+        assertEquals(1, changes.size());
+        assertEquals(DeckChange.Type.DECK_DELETED, changes.get(0).getType());
+        assertNull(remote.getDeck(parent.getId()));
+        assertNull(remote.getDeck(child.getId()));
+    }
+
+    @Test
+    void remoteMergeMovesSubdecksCountsAndSearchIndex() throws InterruptedException {
+        Deck root = local.addDeck("Root", null);
+        Deck source = local.addDeck("Source", root.getId());
+        Deck subdeck = local.addDeck("Subdeck", source.getId());
+        Deck target = local.addDeck("Target", null);
+        local.addFlashcard(source.getId(), "apple", "jablko");
+        local.addFlashcard(target.getId(), "pear", "gruszka");
+        remote.pollChanges();
+        remote.startSearchIndexing();
+        assertEquals(source.getId(), awaitSearch(remote, "apple").getDeckId());
+
+        assertTrue(local.mergeDecks(source.getId(), target.getId()));
+        List<DeckChange> changes = remote.pollChanges();
+
+        DeckChange merged = changes.get(changes.size() - 1);
+        assertEquals(DeckChange.Type.DECKS_MERGED, merged.getType());
+        assertEquals(source.getId(), merged.getDeckId());
+        // jak przy usunieciu: rodzic scalonego decku, zeby widok mogl go usunac z drzewa
+        assertEquals(root.getId(), merged.getParentId());
+        assertNull(remote.getDeck(source.getId()));
+        assertEquals(target.getId(), remote.getDeck(subdeck.getId()).getParentId());
+        assertEquals(2, remote.getFlashcardCount(target.getId()));
+        assertEquals(0, remote.getSubtreeFlashcardCount(root.getId()));
+
+        List<SearchResult> results = remote.searchFlashcards("apple", target.getId(), 10);
+        assertEquals(1, results.size());
+        assertEquals(target.getId(), results.get(0).getDeckId());
+    }
+
+    /**
+     * Indeks wyszukiwania buduje się w tle - czeka na pierwszy wynik.
+     */
+    private static SearchResult awaitSearch(DatabaseManager databaseManager, String query) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            List<SearchResult> results = databaseManager.searchFlashcards(query, null, 10);
+            if (!results.isEmpty()) {
+                return results.get(0);
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("No search results for " + query);
+    }
+}
\ No newline at end of file
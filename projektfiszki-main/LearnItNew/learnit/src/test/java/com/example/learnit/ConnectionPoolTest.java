@@ -0,0 +1,63 @@
+package com.example.learnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ConnectionPoolTest {
+    @TempDir
+    Path directory;
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void openPool() {
+        pool = new ConnectionPool(DatabaseConfig.embedded(directory.resolve("db")));
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void secondCloseDoesNotReturnConnectionTwice() throws SQLException {
+        PooledConnection connection = pool.borrow();
+        connection.close();
+        connection.close();
+
+        PoolStats stats = pool.getStats();
+        assertEquals(0, stats.getActive());
+        assertEquals(1, stats.getIdle());
+
+        // ta sama fizyczna sesja nie moze trafic do dwoch wypozyczajacych naraz
+        PooledConnection first = pool.borrow();
+        PooledConnection second = pool.borrow();
+        assertSame(connection, first);
+        assertNotSame(first, second);
+        assertEquals(2, pool.getStats().getActive());
+        second.close();
+        first.close();
+    }
+
+    @Test
+    void connectionCanBeReturnedAgainAfterNextBorrow() throws SQLException {
+        PooledConnection connection = pool.borrow();
+        connection.close();
+
+        PooledConnection again = pool.borrow();
+        assertSame(connection, again);
+        again.close();
+
+        assertEquals(0, pool.getStats().getActive());
+        assertEquals(1, pool.getStats().getIdle());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.example.learnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvFlashcardReaderTest {
+    private static final String SAMPLE = "\uFEFFplain,card\r\n"
+            + "\"quoted, with comma\",\"say \"\"hi\"\"\"\r\n"
+            + "\r\n"
+            + "\"two\nlines\",\"crlf\r\ninside\"\n"
+            + "front,back,with,extra fields\n"
+            + "\n"
+            + "only front\n"
+            + "zażółć,gęślą jaźń";
+    private static final List<String> EXPECTED = List.of(
+            "plain|card",
+            "quoted, with comma|say \"hi\"",
+            "two\nlines|crlf\r\ninside",
+            "front|back,with,extra fields",
+            "only front|",
+            "zażółć|gęślą jaźń");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readerFollowsRfc4180() {
+        try (Stream<Flashcard> flashcards = CsvFlashcardReader.read(new BufferedReader(new StringReader(SAMPLE)))) {
+            assertEquals(EXPECTED, texts(flashcards));
+        }
+    }
+
+    @Test
+    void fileParserMatchesReader() throws IOException {
+        Path file = directory.resolve("sample.csv");
+        Files.writeString(file, SAMPLE, StandardCharsets.UTF_8);
+
+        try (Stream<Flashcard> flashcards = CsvFlashcardReader.read(file, StandardCharsets.UTF_8, 4)) {
+            assertEquals(EXPECTED, texts(flashcards));
+        }
+    }
+
+    @Test
+    void chunksAreCutOnRecordBoundariesOnly() throws IOException {
+        // kilka megabajtow, zeby plik podzielil sie na kawalki; co trzeci rekord ma koniec wiersza w cudzyslowie
+        StringBuilder csv = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 60_000; i++) {
+            String front = "front " + i + (i % 3 == 0 ? "\nsecond line, still front" : "");
+            String back = "back \"" + i + "\" " + "x".repeat(i % 50);
+            csv.append('"').append(front).append("\",\"").append(back.replace("\"", "\"\"")).append("\"\r\n");
+            expected.add(front + "|" + back);
+        }
+        Path file = directory.resolve("large.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        try (Stream<Flashcard> flashcards = CsvFlashcardReader.read(file, StandardCharsets.UTF_8, 4)) {
+            assertEquals(expected, texts(flashcards));
+        }
+        try (Stream<Flashcard> flashcards = CsvFlashcardReader.read(Files.newBufferedReader(file))) {
+            assertEquals(expected, texts(flashcards));
+        }
+    }
+
+    @Test
+    void detectsCharsetFromBomOrContent() throws IOException {
+        Path utf8Bom = directory.resolve("bom.csv");
+        Files.write(utf8Bom, new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'a', ',', 'b'});
+        assertEquals(StandardCharsets.UTF_8, CsvFlashcardReader.detectCharset(utf8Bom));
+
+        Path utf16 = directory.resolve("utf16.csv");
+        Files.writeString(utf16, "a,b", StandardCharsets.UTF_16);
+        assertEquals(StandardCharsets.UTF_16, CsvFlashcardReader.detectCharset(utf16));
+
+        Path utf8 = directory.resolve("utf8.csv");
+        Files.writeString(utf8, "zażółć,gęślą", StandardCharsets.UTF_8);
+        assertEquals(StandardCharsets.UTF_8, CsvFlashcardReader.detectCharset(utf8));
+
+        // 0xB3 to "ł" w windows-1250, ale nie poprawny UTF-8
+        Path legacy = directory.resolve("legacy.csv");
+        Files.write(legacy, new byte[]{'a', (byte) 0xB3, ',', 'b'});
+        Charset nativeCharset = Charset.forName(System.getProperty("native.encoding", Charset.defaultCharset().name()));
+        assertEquals(nativeCharset, CsvFlashcardReader.detectCharset(legacy));
+    }
+
+    private static List<String> texts(Stream<Flashcard> flashcards) {
+        return flashcards.map(flashcard -> flashcard.getFront() + "|" + flashcard.getBack()).toList();
+    }
+}
\ No newline at end of file
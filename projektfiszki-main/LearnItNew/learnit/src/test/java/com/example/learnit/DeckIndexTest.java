@@ -0,0 +1,102 @@
+package com.example.learnit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeckIndexTest {
+    @Test
+    void buildsTreeRegardlessOfOrder() {
+        DeckIndex index = DeckIndex.of(List.of(
+                new Deck(3, "Verbs", 2),
+                new Deck(2, "Spanish", 1),
+                new Deck(1, "Languages", null),
+                new Deck(4, "Nouns", 2)));
+
+        assertEquals(List.of(1, 2, 3, 4), index.getSubtreeIds(1));
+        assertEquals(List.of(2, 1), index.getAncestorIds(3));
+        assertEquals("Languages / Spanish / Verbs", index.getPath(3));
+        assertEquals(4, index.find(2, "Nouns").getId());
+        assertEquals(List.of(1), ids(index.getChildren(null)));
+    }
+
+    @Test
+    void deckWithMissingParentIsShownAtTopLevel() {
+        DeckIndex index = DeckIndex.of(List.of(new Deck(1, "Root", null), new Deck(2, "Lost", 99)));
+
+        assertEquals(List.of(1, 2), ids(index.getChildren(null)));
+        assertTrue(index.getAncestorIds(2).isEmpty());
+    }
+
+    @Test
+    void withDeckKeepsPositionOnRenameAndMovesOnReparent() {
+        DeckIndex index = DeckIndex.of(List.of(
+                new Deck(1, "A", null), new Deck(2, "B", null), new Deck(3, "C", null)));
+
+        DeckIndex renamed = index.withDeck(new Deck(2, "B2", null));
+        assertEquals(List.of(1, 2, 3), ids(renamed.getChildren(null)));
+        assertNull(renamed.find(null, "B"));
+        assertEquals(2, renamed.find(null, "B2").getId());
+
+        DeckIndex moved = renamed.withDeck(new Deck(2, "B2", 3));
+        assertEquals(List.of(1, 3), ids(moved.getChildren(null)));
+        assertEquals(List.of(2), ids(moved.getChildren(3)));
+        assertEquals(List.of(3), moved.getAncestorIds(2));
+    }
+
+    @Test
+    void changesLeavePreviousSnapshotUntouched() {
+        DeckIndex index = DeckIndex.of(List.of(new Deck(1, "A", null), new Deck(2, "B", 1)));
+
+        DeckIndex changed = index.withDeck(new Deck(3, "C", null)).withoutSubtree(1);
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(1), ids(index.getChildren(null)));
+        assertEquals(List.of(3), ids(changed.getChildren(null)));
+        assertFalse(changed.contains(2));
+        // listy rodzicow, ktorych zmiana nie dotyczy, sa wspoldzielone
+        assertSame(index.getChildren(1), index.withDeck(new Deck(3, "C", null)).getChildren(1));
+    }
+
+    @Test
+    void deckAddedBeforeParentIsRelinkedWhenParentArrives() {
+        DeckIndex index = DeckIndex.empty()
+                .withDeck(new Deck(1, "Root", null))
+                .withDeck(new Deck(3, "Child", 2))
+                .withDeck(new Deck(4, "Grandchild", 3));
+        assertEquals(List.of(1, 3), ids(index.getChildren(null)));
+
+        index = index.withDeck(new Deck(2, "Parent", 1));
+
+        assertEquals(List.of(1), ids(index.getChildren(null)));
+        assertEquals(List.of(3), ids(index.getChildren(2)));
+        assertEquals(3, index.find(2, "Child").getId());
+        assertNull(index.find(null, "Child"));
+        assertEquals(List.of(3, 2, 1), index.getAncestorIds(4));
+        assertEquals(List.of(1, 2, 3, 4), index.getSubtreeIds(1));
+    }
+
+    @Test
+    void sumsValuesOverSubtrees() {
+        DeckIndex index = DeckIndex.of(List.of(
+                new Deck(1, "A", null), new Deck(2, "B", 1), new Deck(3, "C", 2), new Deck(4, "D", 1)));
+
+        Map<Integer, Integer> sums = index.sumOverSubtrees(id -> id * 10);
+
+        assertEquals(100, sums.get(1));
+        assertEquals(50, sums.get(2));
+        assertEquals(30, sums.get(3));
+        assertEquals(40, sums.get(4));
+    }
+
+    private static List<Integer> ids(List<Deck> decks) {
+        return decks.stream().map(Deck::getId).toList();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+package com.example.learnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class FlashcardExporterTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void finishedCsvExportReplacesTarget() throws IOException {
+        Path file = directory.resolve("deck.csv");
+        Files.writeString(file, "old export");
+
+        try (FlashcardExporter exporter = FlashcardExporter.forFile(file)) {
+            exporter.beginDeck(new Deck(1, "Deck", null));
+            exporter.onRow(1, "plain", "card");
+            exporter.onRow(2, "with, comma", "say \"hi\"");
+            exporter.finish();
+        }
+
+        assertEquals("plain,card\r\n\"with, comma\",\"say \"\"hi\"\"\"\r\n", Files.readString(file));
+        assertEquals(List.of(file), files());
+    }
+
+    @Test
+    void finishedBinaryExportEndsWithCounts() throws IOException {
+        Path file = directory.resolve("deck.lix.gz");
+
+        try (FlashcardExporter exporter = FlashcardExporter.forFile(file)) {
+            exporter.beginDeck(new Deck(5, "Root", 2));
+            exporter.onRow(1, "front", "back");
+            exporter.beginDeck(new Deck(6, "Child", 5));
+            exporter.onRow(2, "zażółć", "gęślą");
+            exporter.finish();
+        }
+
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(file)))) {
+            assertArrayEquals(FlashcardExporter.BINARY_MAGIC, in.readNBytes(4));
+            assertEquals(FlashcardExporter.BINARY_VERSION, in.readByte());
+            assertEquals(FlashcardExporter.DECK_RECORD, in.readByte());
+            assertEquals(5, in.readInt());
+            // korzen eksportu zapisywany jest bez rodzica
+            assertEquals(0, in.readInt());
+            assertEquals("Root", readText(in));
+            assertEquals(FlashcardExporter.FLASHCARD_RECORD, in.readByte());
+            assertEquals(1, in.readInt());
+            assertEquals("front", readText(in));
+            assertEquals("back", readText(in));
+            assertEquals(FlashcardExporter.DECK_RECORD, in.readByte());
+            assertEquals(6, in.readInt());
+            assertEquals(5, in.readInt());
+            assertEquals("Child", readText(in));
+            assertEquals(FlashcardExporter.FLASHCARD_RECORD, in.readByte());
+            assertEquals(2, in.readInt());
+            assertEquals("zażółć", readText(in));
+            assertEquals("gęślą", readText(in));
+            assertEquals(FlashcardExporter.END_RECORD, in.readByte());
+            assertEquals(2, in.readInt());
+            assertEquals(2, in.readLong());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void exportClosedWithoutFinishLeavesNoFile() throws IOException {
+        Path file = directory.resolve("deck.lix");
+
+        // blad w trakcie eksportu - try-with-resources zamyka eksporter bez finish()
+        try (FlashcardExporter exporter = FlashcardExporter.forFile(file)) {
+            exporter.beginDeck(new Deck(1, "Deck", null));
+            for (int i = 0; i < 20_000; i++) {
+                exporter.onRow(i, "front " + i, "back " + i);
+            }
+        }
+
+        assertFalse(Files.exists(file));
+        assertEquals(List.of(), files());
+    }
+
+    @Test
+    void abortedExportKeepsPreviousFile() throws IOException {
+        Path file = directory.resolve("deck.csv");
+        Files.writeString(file, "previous,export\r\n");
+
+        try (FlashcardExporter exporter = FlashcardExporter.forFile(file)) {
+            exporter.onRow(1, "partial", "row");
+        }
+
+        assertEquals("previous,export\r\n", Files.readString(file));
+        assertEquals(List.of(file), files());
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+}
\ No newline at end of file
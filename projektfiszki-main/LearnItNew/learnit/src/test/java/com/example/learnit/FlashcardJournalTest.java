@@ -0,0 +1,222 @@
+package com.example.learnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlashcardJournalTest {
+    @TempDir
+    Path directory;
+
+    private FaultyRepository repository;
+    private DatabaseManager databaseManager;
+    private Path journalDirectory;
+    private int deckId;
+
+    @BeforeEach
+    void openDatabase() {
+        repository = new FaultyRepository(DatabaseConfig.embedded(directory.resolve("db")));
+        databaseManager = new DatabaseManager(repository, false);
+        databaseManager.loadDecks();
+        deckId = databaseManager.addDeck("Journal", null).getId();
+        journalDirectory = directory.resolve("journal");
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        databaseManager.close();
+    }
+
+    @Test
+    void flushWritesJournaledFlashcardsAndDeletesSegments() throws IOException {
+        FlashcardJournal journal = new FlashcardJournal(databaseManager, journalDirectory, 100, 60_000);
+        journal.append(deckId, "front\twith tab", "back\nwith newline");
+        journal.append(deckId, "second", "card");
+        assertEquals(2, databaseManager.getFlashcardCount(deckId));
+
+        journal.close();
+
+        List<Flashcard> stored = databaseManager.getFlashcardsAfter(deckId, 0, 10);
+        assertEquals(2, stored.size());
+        assertEquals("front\twith tab", stored.get(0).getFront());
+        assertEquals("back\nwith newline", stored.get(0).getBack());
+        assertEquals(2, databaseManager.getFlashcardCount(deckId));
+        assertEquals(0, segmentFiles().size());
+    }
+
+    @Test
+    void rejectedRowIsQuarantinedAndDoesNotBlockOtherSegments() throws IOException {
+        FlashcardJournal journal = new FlashcardJournal(databaseManager, journalDirectory, 100, 60_000);
+        journal.append(deckId, "before", "ok");
+        journal.append(deckId, "REJECT me", "too long");
+        journal.append(deckId, "after", "ok");
+
+        journal.close();
+
+        assertEquals(2, databaseManager.getFlashcardsAfter(deckId, 0, 10).size());
+        assertEquals(2, databaseManager.getFlashcardCount(deckId));
+        assertEquals(0, segmentFiles().size());
+        List<String> quarantined = Files.readAllLines(journalDirectory.resolve("rejected.log"), StandardCharsets.UTF_8);
+        assertEquals(1, quarantined.size());
+        assertTrue(quarantined.get(0).startsWith(deckId + "\tREJECT me\ttoo long\t"));
+
+        // kolejny dziennik zapisuje dalej, zamiast w nieskonczonosc powtarzac odrzucona paczke
+        FlashcardJournal next = new FlashcardJournal(databaseManager, journalDirectory, 100, 60_000);
+        next.append(deckId, "later", "ok");
+        next.close();
+        assertEquals(3, databaseManager.getFlashcardsAfter(deckId, 0, 10).size());
+    }
+
+    @Test
+    void segmentReplayedAfterCrashDoesNotDuplicateFlashcards() throws Exception {
+        String segmentKey = "0000000000000000007-crashed";
+        List<Flashcard> flashcards = List.of(new Flashcard("one", "1"), new Flashcard("two", "2"));
+        // awaria po zatwierdzeniu w bazie, a przed skasowaniem segmentu
+        databaseManager.addJournaledFlashcards(segmentKey, deckId, flashcards, 50);
+        Files.createDirectories(journalDirectory);
+        Files.writeString(journalDirectory.resolve("journal-" + segmentKey + ".log"),
+                deckId + "\tone\t1\n" + deckId + "\ttwo\t2\n", StandardCharsets.UTF_8);
+
+        FlashcardJournal journal = new FlashcardJournal(databaseManager, journalDirectory, 100, 60_000);
+        journal.close();
+
+        assertEquals(2, databaseManager.getFlashcardsAfter(deckId, 0, 10).size());
+        assertEquals(2, databaseManager.getFlashcardCount(deckId));
+        assertEquals(0, segmentFiles().size());
+    }
+
+    @Test
+    void unterminatedLastRecordIsNotReplayed() throws IOException {
+        Files.createDirectories(journalDirectory);
+        // awaria w trakcie dopisywania ostatniego wpisu - trzy pola, ale bez konca linii
+        Files.writeString(journalDirectory.resolve("journal-0000000000000000003-crashed.log"),
+                deckId + "\tcomplete\tcard\n" + deckId + "\tfront\tba", StandardCharsets.UTF_8);
+
+        FlashcardJournal journal = new FlashcardJournal(databaseManager, journalDirectory, 100, 60_000);
+        journal.close();
+
+        List<Flashcard> stored = databaseManager.getFlashcardsAfter(deckId, 0, 10);
+        assertEquals(1, stored.size());
+        assertEquals("complete", stored.get(0).getFront());
+        assertEquals(1, databaseManager.getFlashcardCount(deckId));
+        List<String> quarantined = Files.readAllLines(journalDirectory.resolve("rejected.log"), StandardCharsets.UTF_8);
+        assertEquals(1, quarantined.size());
+        assertTrue(quarantined.get(0).startsWith(deckId + "\tfront\tba\t"));
+    }
+
+    @Test
+    void failingListenerDoesNotStopBackgroundFlush() throws InterruptedException {
+        FlashcardJournal journal = new FlashcardJournal(databaseManager, journalDirectory, 100, 20);
+        journal.addFlushListener(decks -> {
+            throw new IllegalStateException("listener failed");
+        });
+        journal.append(deckId, "first", "card");
+        awaitPending(journal);
+        journal.append(deckId, "second", "card");
+        awaitPending(journal);
+
+        assertEquals(2, databaseManager.getFlashcardsAfter(deckId, 0, 10).size());
+        journal.close();
+    }
+
+    @Test
+    void unavailableDatabaseKeepsSegmentForRetry() throws IOException {
+        // przed dopisaniem, bo pierwszy zrzut dziennika startuje od razu w tle
+        repository.unavailable = true;
+        FlashcardJournal journal = new FlashcardJournal(databaseManager, journalDirectory, 100, 60_000);
+        journal.append(deckId, "waiting", "card");
+        journal.close();
+
+        assertEquals(0, databaseManager.getFlashcardsAfter(deckId, 0, 10).size());
+        assertEquals(1, segmentFiles().size());
+        assertTrue(Files.notExists(journalDirectory.resolve("rejected.log")));
+
+        repository.unavailable = false;
+        new FlashcardJournal(databaseManager, journalDirectory, 100, 60_000).close();
+        assertEquals(1, databaseManager.getFlashcardsAfter(deckId, 0, 10).size());
+        assertEquals(0, segmentFiles().size());
+    }
+
+    @Test
+    void flashcardsOfDeletedDeckAreQuarantined() throws IOException {
+        databaseManager.deleteDeck(deckId);
+        FlashcardJournal journal = new FlashcardJournal(databaseManager, journalDirectory, 100, 60_000);
+        journal.append(deckId, "orphan", "card");
+
+        journal.close();
+
+        assertEquals(0, databaseManager.getFlashcardsAfter(deckId, 0, 10).size());
+        assertEquals(0, databaseManager.getFlashcardCount(deckId));
+        assertEquals(1, Files.readAllLines(journalDirectory.resolve("rejected.log")).size());
+    }
+
+    /**
+     * Baza H2, która odrzuca fiszki z przodem zaczynającym się od "REJECT" i na żądanie udaje awarię połączenia.
+     */
+    private static class FaultyRepository extends EmbeddedFlashcardRepository {
+        private volatile boolean unavailable;
+
+        FaultyRepository(DatabaseConfig config) {
+            super(config);
+        }
+
+        @Override
+        public Map<Integer, String> insertJournaledFlashcards(String segmentKey, int deckId, List<Flashcard> flashcards,
+                                                              int batchSize) throws SQLException {
+            if (unavailable) {
+                throw new SQLException("Connection refused");
+            }
+            List<Flashcard> accepted = new ArrayList<>();
+            List<Integer> acceptedPositions = new ArrayList<>();
+            Map<Integer, String> rejected = new HashMap<>();
+            for (int i = 0; i < flashcards.size(); i++) {
+                if (flashcards.get(i).getFront().startsWith("REJECT")) {
+                    rejected.put(i, flashcards.get(i).getBack());
+                } else {
+                    accepted.add(flashcards.get(i));
+                    acceptedPositions.add(i);
+                }
+            }
+            Map<Integer, String> result = super.insertJournaledFlashcards(segmentKey, deckId, accepted, batchSize);
+            if (result == null) {
+                return null;
+            }
+            result.forEach((position, reason) -> rejected.put(acceptedPositions.get(position), reason));
+            return rejected;
+        }
+    }
+
+    /**
+     * Czeka, aż zapis w tle opróżni dziennik.
+     */
+    private static void awaitPending(FlashcardJournal journal) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (journal.getPendingCount() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Journal still has " + journal.getPendingCount() + " pending flashcards");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-")).toList();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.example.learnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlashcardManagerTest {
+    @TempDir
+    Path directory;
+
+    private FailingRepository repository;
+    private DatabaseManager databaseManager;
+    private FlashcardManager flashcardManager;
+    private int deckId;
+
+    @BeforeEach
+    void openDatabase() {
+        repository = new FailingRepository(DatabaseConfig.embedded(directory.resolve("db")));
+        databaseManager = new DatabaseManager(repository, false);
+        databaseManager.loadDecks();
+        flashcardManager = new FlashcardManager(databaseManager);
+        deckId = databaseManager.addDeck("Import", null).getId();
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        databaseManager.close();
+    }
+
+    @Test
+    void invalidRowsAreRejectedAndImportContinues() throws SQLException {
+        Stream<Flashcard> flashcards = Stream.of(
+                new Flashcard("one", "1"), new Flashcard(" ", "blank front"), new Flashcard("two ", " 2"));
+
+        BulkInsertResult result = flashcardManager.addFlashcards(deckId, flashcards, 2, 2, BulkInsertListener.NONE);
+
+        assertEquals(3, result.getProcessed());
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getRejected());
+        assertEquals(2, result.getRejects().get(0).getRowNumber());
+        List<Flashcard> stored = databaseManager.getFlashcardsAfter(deckId, 0, 10);
+        assertEquals("two", stored.get(1).getFront());
+        assertEquals("2", stored.get(1).getBack());
+    }
+
+    @Test
+    void lostConnectionStopsImportInsteadOfRejectingEveryRow() {
+        repository.failAfterChunks = 1;
+        AtomicInteger read = new AtomicInteger();
+        Stream<Flashcard> flashcards = Stream.iterate(1, i -> i + 1).limit(100_000)
+                .map(i -> {
+                    read.incrementAndGet();
+                    return new Flashcard("front " + i, "back " + i);
+                });
+
+        SQLException error = assertThrows(SQLException.class,
+                () -> flashcardManager.addFlashcards(deckId, flashcards, 10, 100, BulkInsertListener.NONE));
+
+        assertTrue(error.getMessage().contains("row 101 after 100 flashcards"), error.getMessage());
+        // reszta pliku nie jest juz czytana
+        assertEquals(200, read.get());
+        assertEquals(100, databaseManager.getFlashcardsAfter(deckId, 0, 1_000).size());
+        assertEquals(100, databaseManager.getFlashcardCount(deckId));
+        assertEquals(1, databaseManager.getMetrics().operation("import").getErrors());
+    }
+
+    /**
+     * Baza H2, która po zadanej liczbie paczek udaje zerwane połączenie.
+     */
+    private static class FailingRepository extends EmbeddedFlashcardRepository {
+        private int failAfterChunks = Integer.MAX_VALUE;
+        private int chunks;
+
+        FailingRepository(DatabaseConfig config) {
+            super(config);
+        }
+
+        @Override
+        public Map<Integer, String> insertFlashcards(int deckId, List<Flashcard> flashcards, int batchSize)
+                throws SQLException {
+            if (chunks++ >= failAfterChunks) {
+                throw new SQLException("Connection refused", "08001");
+            }
+            return super.insertFlashcards(deckId, flashcards, batchSize);
+        }
+    }
+}
\ No newline at end of file
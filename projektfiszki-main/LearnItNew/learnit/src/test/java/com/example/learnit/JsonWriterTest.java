@@ -0,0 +1,91 @@
+package com.example.learnit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonWriterTest {
+    @Test
+    void insertsCommasBetweenNestedElements() {
+        JsonWriter writer = new JsonWriter(16);
+        writer.beginObject()
+                .name("decks").beginArray()
+                .beginObject().name("id").value(1).name("parentId").nullValue().endObject()
+                .beginObject().name("id").value(2).name("tags").beginArray().value("a").value("b").endArray().endObject()
+                .endArray()
+                .name("empty").beginArray().endArray()
+                .name("done").value(true)
+                .endObject();
+
+        assertEquals("{\"decks\":[{\"id\":1,\"parentId\":null},{\"id\":2,\"tags\":[\"a\",\"b\"]}],\"empty\":[],\"done\":true}",
+                text(writer));
+    }
+
+    @Test
+    void writesIntegersIncludingExtremes() {
+        JsonWriter writer = new JsonWriter(4);
+        writer.beginArray().value(0).value(-7).value(1234567890123L).value(Long.MAX_VALUE).value(Long.MIN_VALUE).endArray();
+
+        assertEquals("[0,-7,1234567890123,9223372036854775807,-9223372036854775808]", text(writer));
+    }
+
+    @Test
+    void writesDoublesWithTwoDecimals() {
+        JsonWriter writer = new JsonWriter(4);
+        writer.beginArray().value(2.5).value(1.234).value(1.3).value(-0.5).value(0.0).endArray();
+
+        assertEquals("[2.50,1.23,1.30,-0.50,0.00]", text(writer));
+    }
+
+    @Test
+    void escapesStringsAndEncodesUtf8() {
+        JsonWriter writer = new JsonWriter(4);
+        writer.beginArray()
+                .value("quote \" backslash \\ tab \t newline \n return \r bell \u0007")
+                .value("zażółć €")
+                .value("emoji \uD83D\uDE00")
+                .value("lone \uD800 surrogate")
+                .value((String) null)
+                .endArray();
+
+        String expected = "[\"quote \\\" backslash \\\\ tab \\t newline \\n return \\r bell \\u0007\","
+                + "\"zażółć €\",\"emoji \uD83D\uDE00\",\"lone ? surrogate\",null]";
+        assertEquals(expected, text(writer));
+    }
+
+    @Test
+    void resetReusesGrownBuffer() throws IOException {
+        JsonWriter writer = new JsonWriter(2);
+        writer.beginArray();
+        for (int i = 0; i < 1_000; i++) {
+            writer.value("card " + i);
+        }
+        writer.endArray();
+        int grownCapacity = writer.capacity();
+        assertTrue(grownCapacity >= writer.size());
+
+        writer.reset().beginObject().name("a").value(1).endObject();
+
+        assertEquals(grownCapacity, writer.capacity());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        assertEquals("{\"a\":1}", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void rejectsUnbalancedClose() {
+        JsonWriter writer = new JsonWriter(8);
+
+        assertThrows(IllegalStateException.class, writer::endObject);
+    }
+
+    private static String text(JsonWriter writer) {
+        return new String(writer.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.example.learnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetPagingTest {
+    @TempDir
+    Path directory;
+
+    private DatabaseManager databaseManager;
+    private Deck deck;
+    private Deck other;
+
+    @BeforeEach
+    void openDatabase() {
+        databaseManager = new DatabaseManager(DatabaseConfig.embedded(directory.resolve("db")), false);
+        databaseManager.loadDecks();
+        deck = databaseManager.addDeck("Spanish", null);
+        other = databaseManager.addDeck("German", null);
+        // fiszki dwoch deckow przeplatane, zeby ID jednego decku nie byly ciagle
+        for (int i = 1; i <= 25; i++) {
+            databaseManager.addFlashcard(deck.getId(), "word " + i, "słowo " + i);
+            databaseManager.addFlashcard(other.getId(), "Wort " + i, "słowo " + i);
+        }
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        databaseManager.close();
+    }
+
+    @Test
+    void pagesCoverDeckOnceInIdOrder() {
+        List<Flashcard> all = new ArrayList<>();
+        int afterId = 0;
+        List<Flashcard> page;
+        do {
+            page = databaseManager.getFlashcardsAfter(deck.getId(), afterId, 10);
+            assertTrue(page.size() <= 10);
+            all.addAll(page);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 10);
+
+        assertEquals(25, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals("word " + (i + 1), all.get(i).getFront());
+        }
+    }
+
+    @Test
+    void nextPageIsStableWhenCardsAreAdded() {
+        List<Flashcard> first = databaseManager.getFlashcardsAfter(deck.getId(), 0, 10);
+        int afterId = first.get(first.size() - 1).getId();
+
+        databaseManager.addFlashcard(deck.getId(), "late", "card");
+        List<Flashcard> second = databaseManager.getFlashcardsAfter(deck.getId(), afterId, 10);
+
+        assertEquals("word 11", second.get(0).getFront());
+        assertEquals("word 20", second.get(9).getFront());
+    }
+
+    @Test
+    void pageAfterLastCardIsEmpty() {
+        List<Flashcard> all = databaseManager.getFlashcardsAfter(deck.getId(), 0, 100);
+
+        assertEquals(25, all.size());
+        assertTrue(databaseManager.getFlashcardsAfter(deck.getId(), all.get(24).getId(), 10).isEmpty());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.example.learnit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Sm2SchedulerTest {
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @Test
+    void intervalsGrowOneSixThenByEaseFactor() {
+        CardSchedule schedule = CardSchedule.newCard(7, 3);
+
+        schedule = Sm2Scheduler.review(schedule, Sm2Scheduler.GRADE_GOOD, NOW);
+        assertEquals(1, schedule.getRepetitions());
+        assertEquals(1, schedule.getIntervalDays());
+        assertEquals(NOW + DAY, schedule.getDueAt());
+
+        schedule = Sm2Scheduler.review(schedule, Sm2Scheduler.GRADE_GOOD, NOW);
+        assertEquals(6, schedule.getIntervalDays());
+
+        schedule = Sm2Scheduler.review(schedule, Sm2Scheduler.GRADE_GOOD, NOW);
+        assertEquals(3, schedule.getRepetitions());
+        assertEquals(15, schedule.getIntervalDays());
+        assertEquals(NOW + 15 * DAY, schedule.getDueAt());
+        assertEquals(7, schedule.getFlashcardId());
+        assertEquals(3, schedule.getDeckId());
+    }
+
+    @Test
+    void easeFactorFollowsGrade() {
+        CardSchedule schedule = CardSchedule.newCard(1, 1);
+
+        assertEquals(2.6, Sm2Scheduler.review(schedule, Sm2Scheduler.GRADE_EASY, NOW).getEaseFactor(), 1e-9);
+        assertEquals(2.5, Sm2Scheduler.review(schedule, Sm2Scheduler.GRADE_GOOD, NOW).getEaseFactor(), 1e-9);
+        assertEquals(2.36, Sm2Scheduler.review(schedule, Sm2Scheduler.GRADE_HARD, NOW).getEaseFactor(), 1e-9);
+    }
+
+    @Test
+    void forgottenCardStartsOver() {
+        CardSchedule learned = new CardSchedule(1, 1, 5, 40, 2.5, NOW);
+
+        CardSchedule forgotten = Sm2Scheduler.review(learned, Sm2Scheduler.GRADE_AGAIN, NOW);
+
+        assertEquals(0, forgotten.getRepetitions());
+        assertEquals(1, forgotten.getIntervalDays());
+        assertEquals(NOW + DAY, forgotten.getDueAt());
+        assertEquals(1.96, forgotten.getEaseFactor(), 1e-9);
+    }
+
+    @Test
+    void easeFactorNeverDropsBelowMinimum() {
+        CardSchedule schedule = new CardSchedule(1, 1, 0, 1, 1.4, NOW);
+
+        for (int i = 0; i < 3; i++) {
+            schedule = Sm2Scheduler.review(schedule, 0, NOW);
+        }
+
+        assertEquals(1.3, schedule.getEaseFactor(), 1e-9);
+    }
+
+    @Test
+    void rejectsGradeOutsideRange() {
+        CardSchedule schedule = CardSchedule.newCard(1, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> Sm2Scheduler.review(schedule, -1, NOW));
+        assertThrows(IllegalArgumentException.class, () -> Sm2Scheduler.review(schedule, 6, NOW));
+    }
+}
\ No newline at end of file
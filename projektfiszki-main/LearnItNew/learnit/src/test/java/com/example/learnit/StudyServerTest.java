@@ -0,0 +1,152 @@
+package com.example.learnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudyServerTest {
+    @TempDir
+    Path directory;
+
+    private DatabaseManager databaseManager;
+    private StudyServer server;
+    private HttpClient client;
+    private Deck parent;
+    private Deck deck;
+    private List<Integer> flashcardIds;
+
+    @BeforeEach
+    void startServer() throws IOException, SQLException {
+        databaseManager = new DatabaseManager(DatabaseConfig.embedded(directory.resolve("db")), false);
+        databaseManager.loadDecks();
+        parent = databaseManager.addDeck("Languages", null);
+        deck = databaseManager.addDeck("Spanish \"basics\"", parent.getId());
+        List<Flashcard> flashcards = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            flashcards.add(new Flashcard("word " + i, "słowo " + i));
+        }
+        databaseManager.addFlashcardsChunk(deck.getId(), flashcards, 10);
+        flashcardIds = new ArrayList<>();
+        for (Flashcard flashcard : databaseManager.getFlashcardsAfter(deck.getId(), 0, 10)) {
+            flashcardIds.add(flashcard.getId());
+        }
+        server = new StudyServer(databaseManager, new InetSocketAddress("localhost", 0), 16);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+        databaseManager.close();
+    }
+
+    @Test
+    void deckTreeListsDecksWithCounts() throws Exception {
+        HttpResponse<String> response = get("/decks");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"decks\":["
+                + "{\"id\":" + parent.getId() + ",\"name\":\"Languages\",\"parentId\":null,\"count\":0,\"subtreeCount\":5},"
+                + "{\"id\":" + deck.getId() + ",\"name\":\"Spanish \\\"basics\\\"\",\"parentId\":" + parent.getId()
+                + ",\"count\":5,\"subtreeCount\":5}]}", response.body());
+    }
+
+    @Test
+    void deckTreeFollowsCountChanges() throws Exception {
+        get("/decks");
+        databaseManager.addFlashcard(parent.getId(), "new", "card");
+
+        String body = get("/decks").body();
+
+        assertTrue(body.contains("\"count\":1,\"subtreeCount\":6"), body);
+    }
+
+    @Test
+    void cardsArePagedByLastId() throws Exception {
+        String first = get("/decks/" + deck.getId() + "/cards?limit=2").body();
+        assertTrue(first.contains("\"id\":" + flashcardIds.get(1) + ","), first);
+        assertTrue(first.endsWith("\"next\":" + flashcardIds.get(1) + "}"), first);
+
+        String last = get("/decks/" + deck.getId() + "/cards?after=" + flashcardIds.get(3) + "&limit=2").body();
+        assertTrue(last.contains("\"front\":\"word 5\",\"back\":\"słowo 5\""), last);
+        assertTrue(last.endsWith("\"next\":null}"), last);
+    }
+
+    @Test
+    void dueListsNewCardsUntilReviewed() throws Exception {
+        String before = get("/decks/" + deck.getId() + "/due?limit=10").body();
+        assertTrue(before.contains("\"id\":" + flashcardIds.get(0) + ",\"front\":\"word 1\",\"back\":\"słowo 1\",\"new\":true"), before);
+
+        HttpResponse<String> review = post("/reviews",
+                "[{\"flashcardId\":" + flashcardIds.get(0) + ",\"grade\":4},{\"flashcardId\":" + flashcardIds.get(1) + ",\"grade\":5}]");
+        assertEquals(200, review.statusCode(), review.body());
+        assertTrue(review.body().contains("\"flashcardId\":" + flashcardIds.get(0) + ",\"repetitions\":1,\"intervalDays\":1"),
+                review.body());
+
+        String after = get("/decks/" + deck.getId() + "/due?limit=10").body();
+        assertFalse(after.contains("\"id\":" + flashcardIds.get(0) + ","), after);
+        assertFalse(after.contains("\"id\":" + flashcardIds.get(1) + ","), after);
+        assertTrue(after.contains("\"id\":" + flashcardIds.get(2) + ","), after);
+    }
+
+    @Test
+    void invalidRequestsGetErrorStatuses() throws Exception {
+        assertEquals(404, get("/decks/9999/cards").statusCode());
+        assertEquals(404, get("/nothing").statusCode());
+        assertEquals(400, get("/decks/abc/cards").statusCode());
+        assertEquals(405, post("/decks", "{}").statusCode());
+        assertEquals(400, post("/reviews", "{\"flashcardId\":" + flashcardIds.get(0) + ",\"grade\":9}").statusCode());
+        assertEquals(400, post("/reviews", "{\"flashcardId\":").statusCode());
+        HttpResponse<String> unknown = post("/reviews", "{\"flashcardId\":9999,\"grade\":3}");
+        assertEquals(404, unknown.statusCode());
+        assertEquals("{\"error\":\"Flashcard not found: 9999\"}", unknown.body());
+    }
+
+    @Test
+    void everyRequestIsRecordedInMetrics() throws Exception {
+        get("/decks");
+        get("/decks/9999/cards");
+        get("/decks/" + deck.getId() + "/cards");
+
+        // metryka zapisywana jest po zamknieciu wymiany, wiec moze dojsc chwile po odpowiedzi
+        OperationStats cards = databaseManager.getMetrics().operation("http.cards");
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (cards.getCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, cards.getCount());
+        assertEquals(0, cards.getErrors());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}
\ No newline at end of file
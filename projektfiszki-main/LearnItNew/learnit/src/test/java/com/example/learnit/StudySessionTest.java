@@ -0,0 +1,163 @@
+package com.example.learnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StudySessionTest {
+    // paczki wczytywane od razu w watku wywolujacym, zeby kolejnosc byla powtarzalna
+    private static final Executor DIRECT = Runnable::run;
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @TempDir
+    Path directory;
+
+    private DatabaseManager databaseManager;
+    private Deck deck;
+    private List<Integer> flashcardIds;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        databaseManager = new DatabaseManager(DatabaseConfig.embedded(directory.resolve("db")), false);
+        databaseManager.loadDecks();
+        deck = databaseManager.addDeck("Spanish", null);
+        List<Flashcard> flashcards = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            flashcards.add(new Flashcard("word " + i, "słowo " + i));
+        }
+        databaseManager.addFlashcardsChunk(deck.getId(), flashcards, 10);
+        flashcardIds = new ArrayList<>();
+        for (Flashcard flashcard : databaseManager.getFlashcardsAfter(deck.getId(), 0, 10)) {
+            flashcardIds.add(flashcard.getId());
+        }
+    }
+
+    @AfterEach
+    void closeDatabase() {
+        databaseManager.close();
+    }
+
+    @Test
+    void newCardsComeInOrderThroughSmallWindow() {
+        StudySession session = new StudySession(databaseManager, deck.getId(), 2, 4, DIRECT);
+        assertTrue(session.start());
+
+        List<Integer> seen = new ArrayList<>();
+        while (session.getCurrent() != null) {
+            assertTrue(session.getBufferedCount() <= 4);
+            seen.add(session.getCurrent().getId());
+            session.grade(Sm2Scheduler.GRADE_GOOD);
+        }
+
+        assertEquals(flashcardIds, seen);
+        assertTrue(session.isFinished());
+    }
+
+    @Test
+    void dueCardsComeBeforeNewOnesByDueDate() {
+        long now = System.currentTimeMillis();
+        databaseManager.saveSchedules(List.of(
+                new CardSchedule(flashcardIds.get(5), deck.getId(), 1, 1, 2.5, now - DAY),
+                new CardSchedule(flashcardIds.get(2), deck.getId(), 1, 1, 2.5, now - 2 * DAY),
+                // jeszcze niezalegla - nie pojawi sie w tej sesji
+                new CardSchedule(flashcardIds.get(0), deck.getId(), 1, 1, 2.5, now + DAY)));
+
+        StudySession session = new StudySession(databaseManager, deck.getId(), 3, 6, DIRECT);
+        assertTrue(session.start());
+
+        assertEquals(flashcardIds.get(2), session.getCurrent().getId());
+        assertEquals(flashcardIds.get(5), session.grade(Sm2Scheduler.GRADE_GOOD).getId());
+        assertEquals(flashcardIds.get(1), session.grade(Sm2Scheduler.GRADE_GOOD).getId());
+        int remaining = 0;
+        while (session.grade(Sm2Scheduler.GRADE_GOOD) != null) {
+            assertNotEquals(flashcardIds.get(0), session.getCurrent().getId());
+            remaining++;
+        }
+        assertEquals(6, remaining);
+    }
+
+    @Test
+    void forgottenCardReturnsAtTheEndOfSession() {
+        StudySession session = new StudySession(databaseManager, deck.getId(), 5, 10, DIRECT);
+        session.start();
+
+        session.grade(Sm2Scheduler.GRADE_AGAIN);
+        List<Integer> seen = new ArrayList<>();
+        while (session.getCurrent() != null) {
+            seen.add(session.getCurrent().getId());
+            session.grade(Sm2Scheduler.GRADE_GOOD);
+        }
+
+        assertEquals(10, seen.size());
+        assertEquals(flashcardIds.get(0), seen.get(seen.size() - 1));
+    }
+
+    @Test
+    void reviewsAreSavedOnClose() {
+        StudySession session = new StudySession(databaseManager, deck.getId(), 5, 10, DIRECT);
+        session.start();
+        session.grade(Sm2Scheduler.GRADE_GOOD);
+        session.grade(Sm2Scheduler.GRADE_EASY);
+        // oceny czekaja na pelna paczke
+        assertTrue(databaseManager.getSchedules(List.of(flashcardIds.get(0))).get(flashcardIds.get(0)).isNew());
+
+        session.close();
+
+        Map<Integer, CardSchedule> schedules = databaseManager.getSchedules(flashcardIds.subList(0, 3));
+        assertEquals(1, schedules.get(flashcardIds.get(0)).getRepetitions());
+        assertEquals(2.6, schedules.get(flashcardIds.get(1)).getEaseFactor(), 1e-9);
+        assertTrue(schedules.get(flashcardIds.get(2)).isNew());
+        StudySession next = new StudySession(databaseManager, deck.getId(), 5, 10, DIRECT);
+        assertTrue(next.start());
+        assertEquals(flashcardIds.get(2), next.getCurrent().getId());
+    }
+
+    @Test
+    void finishedSessionPicksUpAddedCards() {
+        Deck empty = databaseManager.addDeck("Empty", null);
+        StudySession session = new StudySession(databaseManager, empty.getId(), 5, 10, DIRECT);
+        assertFalse(session.start());
+        assertTrue(session.isFinished());
+
+        AtomicInteger callbacks = new AtomicInteger();
+        session.setOnCardsAvailable(callbacks::incrementAndGet);
+        databaseManager.addFlashcard(empty.getId(), "late", "card");
+        session.onCardsAdded();
+
+        assertEquals(1, callbacks.get());
+        assertEquals("late", session.getCurrent().getFront());
+        assertNull(session.grade(Sm2Scheduler.GRADE_GOOD));
+        assertTrue(session.isFinished());
+    }
+
+    @Test
+    void failedLoadIsNotAnEmptyDeck() {
+        StudySession session = new StudySession(databaseManager, deck.getId(), 5, 10, DIRECT);
+        databaseManager.close();
+
+        assertThrows(IllegalStateException.class, session::start);
+    }
+
+    @Test
+    void rejectsWindowSmallerThanBatch() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new StudySession(databaseManager, deck.getId(), 10, 5, DIRECT));
+    }
+}
\ No newline at end of file